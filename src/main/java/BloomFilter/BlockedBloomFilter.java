@@ -0,0 +1,236 @@
+package BloomFilter;
+
+import BloomFilter.core.BitArrayFactory;
+import BloomFilter.decompose.Decomposer;
+
+/**
+ * A cache-line blocked bloom filter. The bit array is split into blocks of
+ * {@link #blockBits} bits and all the <code>k</code> bits of a key are set
+ * inside a single block chosen by the first hash. With the default block of
+ * 512 bits, which is one 64-byte cache line, every lookup touches one cache
+ * line instead of up to <code>k</code> of them. Blocks line up exactly with
+ * cache lines when the bits live in page-aligned memory, such as a
+ * {@link BloomFilter.core.DirectBitArray}.
+ * <p>
+ * Confining the bits to a block costs some accuracy, as the number of keys
+ * that fall in a block varies. For the same number of bits as given by
+ * {@link BloomFilter#optimalBitSizeOrM(double, double)} the false positive
+ * probability goes up, for instance with 1M keys and 512-bit blocks:
+ * <ul>
+ * <li>p = 1% (k = 7) gives about 1.16%, and needs ~4% more bits to get back to 1%</li>
+ * <li>p = 0.1% (k = 10) gives about 0.16%, and needs ~8% more bits to get back to 0.1%</li>
+ * </ul>
+ * Smaller blocks make the penalty bigger: 64-bit blocks give 2.2% instead of
+ * 1%. Use {@link #falsePositiveProbability(double, double, int, int)} to
+ * estimate the rate for a given configuration and size the filter with a
+ * lower target probability if needed.
+ *
+ * @param <T> the type of objects to be stored in the filter
+ */
+public class BlockedBloomFilter<T> extends BloomFilter<T> {
+
+    /**
+     * The default size of a block, one 64-byte cache line
+     */
+    public static final int DEFAULT_BLOCK_BITS = 512;
+
+    /**
+     * Odd multiplier used to derive the offsets of the bits inside a block
+     */
+    private static final long OFFSET_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    /**
+     * The powers of {@link #OFFSET_MULTIPLIER} used for each of the
+     * <code>k</code> bits, so that the offsets do not depend on each other
+     */
+    private final long[] offsetMultipliers;
+
+    /**
+     * Number of bits in a block
+     */
+    protected final int blockBits;
+
+    /**
+     * Shift that keeps the bits needed for an offset inside a block
+     */
+    protected final int offsetShift;
+
+    /**
+     * Number of blocks in the filter
+     */
+    protected final long numBlocks;
+
+    /**
+     * Create a new blocked bloom filter with 512-bit blocks.
+     *
+     * @param expectedInsertions       the number of max expected insertions
+     * @param falsePositiveProbability the false positive probability used to size
+     *                                 the filter, see the class documentation for
+     *                                 the actual rate
+     */
+    public BlockedBloomFilter(long expectedInsertions, double falsePositiveProbability) {
+        this(expectedInsertions, falsePositiveProbability, DEFAULT_BLOCK_BITS,
+                optimalNumberofHashFunctionsOrK(expectedInsertions, optimalBitSizeOrM(expectedInsertions, falsePositiveProbability)));
+    }
+
+    /**
+     * Create a new blocked bloom filter.
+     *
+     * @param expectedInsertions       the number of max expected insertions
+     * @param falsePositiveProbability the false positive probability used to size
+     *                                 the filter, see the class documentation for
+     *                                 the actual rate
+     * @param blockBits                the number of bits in a block, a power of two
+     *                                 between 64 and 4096
+     * @param k                        the number of bits set per key
+     */
+    public BlockedBloomFilter(long expectedInsertions, double falsePositiveProbability, int blockBits, int k) {
+        this(expectedInsertions, falsePositiveProbability, blockBits, k, null, null, null);
+    }
+
+    /**
+     * Create a new blocked bloom filter.
+     *
+     * @param expectedInsertions       the number of max expected insertions
+     * @param falsePositiveProbability the false positive probability used to size
+     *                                 the filter, see the class documentation for
+     *                                 the actual rate
+     * @param blockBits                the number of bits in a block, a power of two
+     *                                 between 64 and 4096
+     * @param k                        the number of bits set per key
+     * @param decomposer               a {@link Decomposer} that helps decompose the given object
+     * @param hasher                   the hash function to use, <code>null</code> for the default
+     * @param bitArrayFactory          the factory to create the bit array with,
+     *                                 <code>null</code> for the default
+     */
+    protected BlockedBloomFilter(long expectedInsertions, double falsePositiveProbability, int blockBits, int k,
+                                 Decomposer<T> decomposer, HashFunction hasher, BitArrayFactory bitArrayFactory) {
+        this(roundToBlocks(optimalBitSizeOrM(expectedInsertions, falsePositiveProbability), blockBits), blockBits, k,
+                decomposer, hasher, bitArrayFactory);
+    }
+
+    /**
+     * Create a new blocked bloom filter with an explicit size.
+     *
+     * @param numBitsRequired the number of bits in the filter, a multiple of
+     *                        <code>blockBits</code>
+     * @param blockBits       the number of bits in a block, a power of two
+     *                        between 64 and 4096
+     * @param k               the number of bits set per key
+     * @param decomposer      a {@link Decomposer} that helps decompose the given object
+     * @param hasher          the hash function to use, <code>null</code> for the default
+     * @param bitArrayFactory the factory to create the bit array with,
+     *                        <code>null</code> for the default
+     */
+    protected BlockedBloomFilter(long numBitsRequired, int blockBits, int k, Decomposer<T> decomposer, HashFunction hasher,
+                                 BitArrayFactory bitArrayFactory) {
+        super(numBitsRequired, k, decomposer, hasher, bitArrayFactory);
+
+        checkBlockBits(blockBits);
+        if (numBitsRequired % blockBits != 0) {
+            throw new IllegalArgumentException("Number of bits " + numBitsRequired + " is not a multiple of the block size " + blockBits);
+        }
+        if (k > blockBits) {
+            throw new IllegalArgumentException("Cannot set " + k + " bits in a block of " + blockBits + " bits");
+        }
+
+        this.blockBits = blockBits;
+        this.offsetShift = Long.numberOfLeadingZeros(blockBits) + 1;
+        this.offsetMultipliers = new long[k];
+        long multiplier = OFFSET_MULTIPLIER;
+        for (int i = 0; i < k; i++) {
+            this.offsetMultipliers[i] = multiplier;
+            multiplier *= OFFSET_MULTIPLIER;
+        }
+        this.numBlocks = this.numBitsRequired / blockBits;
+    }
+
+    private static void checkBlockBits(int blockBits) {
+        if (blockBits < Long.SIZE || blockBits > 4096 || Integer.bitCount(blockBits) != 1) {
+            throw new IllegalArgumentException("Block size must be a power of two between 64 and 4096 bits: " + blockBits);
+        }
+    }
+
+    private static long roundToBlocks(long numBits, int blockBits) {
+        checkBlockBits(blockBits);
+
+        return Math.max(1, (numBits + blockBits - 1) / blockBits) * blockBits;
+    }
+
+    /**
+     * Estimate the false positive probability of a blocked bloom filter. The
+     * number of keys per block follows a Poisson distribution, and each block
+     * behaves as a small standard bloom filter.
+     *
+     * @param n         the number of inserted keys
+     * @param m         the number of bits in the filter
+     * @param blockBits the number of bits in a block
+     * @param k         the number of bits set per key
+     * @return the expected false positive probability
+     */
+    public static double falsePositiveProbability(final double n, final double m, final int blockBits, final int k) {
+        final double lambda = n * blockBits / m;
+        final int maxKeys = (int) (lambda + 20 * Math.sqrt(lambda) + 50);
+
+        double poisson = Math.exp(-lambda);
+        double probability = 0;
+        for (int keys = 0; keys <= maxKeys; keys++) {
+            if (keys > 0) {
+                poisson *= lambda / keys;
+            }
+            probability += poisson * Math.pow(1 - Math.pow(1 - 1.0 / blockBits, (double) k * keys), k);
+        }
+
+        return probability;
+    }
+
+    /**
+     * Set the <code>k</code> bits of the key inside the block selected by
+     * <code>hash1</code>. The offset of each bit inside the block is taken
+     * from the top bits of <code>hash2</code> multiplied by a different odd
+     * constant.
+     */
+    @Override
+    protected boolean setBits(long hash1, long hash2) {
+        final long blockStart = Math.floorMod(hash1, this.numBlocks) * this.blockBits;
+
+        boolean bitsChanged = false;
+        for (int i = 0; i < this.kOrNumberOfHashFunctions; i++) {
+            bitsChanged |= this.bitArray.setBit(blockStart + ((hash2 * this.offsetMultipliers[i]) >>> this.offsetShift));
+        }
+
+        return bitsChanged;
+    }
+
+    /**
+     * Check the <code>k</code> bits of the key inside the block selected by
+     * <code>hash1</code>.
+     */
+    @Override
+    protected boolean testBits(long hash1, long hash2) {
+        final long blockStart = Math.floorMod(hash1, this.numBlocks) * this.blockBits;
+
+        for (int i = 0; i < this.kOrNumberOfHashFunctions; i++) {
+            if (!this.bitArray.getBit(blockStart + ((hash2 * this.offsetMultipliers[i]) >>> this.offsetShift))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    int formatVariant() {
+        return FilterFormat.BLOCKED;
+    }
+
+    @Override
+    int formatParameter() {
+        return this.blockBits;
+    }
+
+    @Override
+    protected long bitIndex(long hash1, long hash2, int i) {
+        return Math.floorMod(hash1, this.numBlocks) * this.blockBits + ((hash2 * this.offsetMultipliers[i]) >>> this.offsetShift);
+    }
+}
@@ -1,13 +1,23 @@
 package BloomFilter;
 
-import java.nio.charset.Charset;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.BitSet;
+import java.util.List;
 
 import BloomFilter.core.BitArray;
+import BloomFilter.core.BitArrayFactory;
+import BloomFilter.core.BitArrays;
+import BloomFilter.core.DirectBitArray;
 import BloomFilter.core.JavaBitSetArray;
 import BloomFilter.decompose.ByteSink;
 import BloomFilter.decompose.Decomposable;
 import BloomFilter.decompose.Decomposer;
 import BloomFilter.decompose.DefaultDecomposer;
+import BloomFilter.hash.Murmur3Hash128;
+import BloomFilter.hash.XxHash64;
 
 /**
  * An abstract implementation for the bloom filter.
@@ -19,7 +29,7 @@ import BloomFilter.decompose.DefaultDecomposer;
  *
  * @param <T> the type of objects to be stored in the filter
  */
-public class BloomFilter<T> {
+public class BloomFilter<T> implements Closeable {
 
     /**
      * The decomposer to use when there is none specified at construction
@@ -29,7 +39,14 @@ public class BloomFilter<T> {
     /**
      * The default hasher to use if one is not specified
      */
-    protected static final HashFunction DEFAULT_HASHER = new HashFunction();
+    protected static final HashFunction DEFAULT_HASHER = new XxHash64();
+
+    /**
+     * The default hasher to use if one is not specified and the filter needs
+     * more than 2^31 bits. Such a filter needs two 64-bit hashes for its probes
+     * to reach every bit.
+     */
+    protected static final HashFunction DEFAULT_WIDE_HASHER = new Murmur3Hash128();
 
     /**
      * Constant
@@ -42,9 +59,9 @@ public class BloomFilter<T> {
     public static final double LOG_2_SQUARE = LOG_2 * LOG_2;
 
     /**
-     * The default {@link Charset} is the platform encoding charset
+     * The sink each thread reuses to decompose the values it adds or checks
      */
-    protected transient Charset currentCharset = Charset.defaultCharset();
+    private static final ThreadLocal<ByteSink> SINKS = ThreadLocal.withInitial(ByteSink::new);
 
     /**
      * The {@link BitArray} instance that holds the entire data
@@ -69,7 +86,14 @@ public class BloomFilter<T> {
     /**
      * Number of bits required for the bloom filter
      */
-    protected final int numBitsRequired;
+    protected final long numBitsRequired;
+
+    /**
+     * The factory used to create the {@link BitArray}, <code>null</code> to use
+     * the default {@link JavaBitSetArray}, or a {@link DirectBitArray} above
+     * 2^31 bits
+     */
+    protected final BitArrayFactory bitArrayFactory;
 
     /**
      * Create a new bloom filter.
@@ -78,8 +102,25 @@ public class BloomFilter<T> {
      * @param falsePositiveProbability the max false positive probability rate that the bloom filter
      *                                 can give
      */
-    public BloomFilter(int expectedInsertions, double falsePositiveProbability) {
-        this(expectedInsertions, falsePositiveProbability, null, null);
+    public BloomFilter(long expectedInsertions, double falsePositiveProbability) {
+        this(expectedInsertions, falsePositiveProbability, null, null, null);
+    }
+
+    /**
+     * Create a new bloom filter backed by the {@link BitArray} implementation
+     * returned from the given factory. Use <code>AtomicBitArray::new</code>
+     * to get a filter that can be added to and queried from many threads
+     * without external locking, <code>DirectBitArray::new</code> to keep the
+     * bits off the heap or {@link BloomFilter.core.MappedFileBitArray#factory}
+     * to back the filter by a file that can be re-opened after a restart.
+     *
+     * @param expectedInsertions       the number of max expected insertions
+     * @param falsePositiveProbability the max false positive probability rate that the bloom filter
+     *                                 can give
+     * @param bitArrayFactory          the factory to create the {@link BitArray} with
+     */
+    public BloomFilter(long expectedInsertions, double falsePositiveProbability, BitArrayFactory bitArrayFactory) {
+        this(expectedInsertions, falsePositiveProbability, null, null, bitArrayFactory);
     }
 
     /**
@@ -93,15 +134,62 @@ public class BloomFilter<T> {
      *                                 the {@link BloomFilter#DEFAULT_HASHER} will be used as
      *                                 the hashing function
      */
-    protected BloomFilter(int expectedInsertions, double falsePositiveProbability, Decomposer<T> decomposer, HashFunction hasher) {
-        this.numBitsRequired = optimalBitSizeOrM(expectedInsertions, falsePositiveProbability);
-        this.kOrNumberOfHashFunctions = optimalNumberofHashFunctionsOrK(expectedInsertions, numBitsRequired);
+    protected BloomFilter(long expectedInsertions, double falsePositiveProbability, Decomposer<T> decomposer, HashFunction hasher) {
+        this(expectedInsertions, falsePositiveProbability, decomposer, hasher, null);
+    }
+
+    /**
+     * Create a new bloom filter.
+     *
+     * @param expectedInsertions       the number of max expected insertions
+     * @param falsePositiveProbability the max false positive probability rate that the bloom filter
+     *                                 can give
+     * @param decomposer               a {@link Decomposer} that helps decompose the given object
+     * @param hasher                   the hash function to use. If <code>null</code> is specified
+     *                                 the {@link BloomFilter#DEFAULT_HASHER} will be used as
+     *                                 the hashing function, or the
+     *                                 {@link BloomFilter#DEFAULT_WIDE_HASHER} for filters of
+     *                                 more than 2^31 bits
+     * @param bitArrayFactory          the factory to create the {@link BitArray} with. If
+     *                                 <code>null</code> is specified a {@link JavaBitSetArray}
+     *                                 will be used, or a {@link DirectBitArray} for filters
+     *                                 of more than 2^31 bits
+     */
+    protected BloomFilter(long expectedInsertions, double falsePositiveProbability, Decomposer<T> decomposer, HashFunction hasher,
+                          BitArrayFactory bitArrayFactory) {
+        this(optimalBitSizeOrM(expectedInsertions, falsePositiveProbability),
+                optimalNumberofHashFunctionsOrK(expectedInsertions, optimalBitSizeOrM(expectedInsertions, falsePositiveProbability)),
+                decomposer, hasher, bitArrayFactory);
+    }
+
+    /**
+     * Create a new bloom filter with an explicit size and number of hash
+     * functions, for variants that do their own sizing.
+     *
+     * @param numBitsRequired          the number of bits in the filter, or <code>m</code>
+     * @param kOrNumberOfHashFunctions the number of hash functions, or <code>k</code>
+     * @param decomposer               a {@link Decomposer} that helps decompose the given object
+     * @param hasher                   the hash function to use, <code>null</code> for the default
+     * @param bitArrayFactory          the factory to create the {@link BitArray} with,
+     *                                 <code>null</code> for the default
+     */
+    protected BloomFilter(long numBitsRequired, int kOrNumberOfHashFunctions, Decomposer<T> decomposer, HashFunction hasher,
+                          BitArrayFactory bitArrayFactory) {
+        if (numBitsRequired <= 0 || kOrNumberOfHashFunctions <= 0) {
+            throw new IllegalArgumentException("Number of bits and hash functions must be positive");
+        }
+
+        this.bitArrayFactory = bitArrayFactory;
+        this.numBitsRequired = numBitsRequired;
+        this.kOrNumberOfHashFunctions = kOrNumberOfHashFunctions;
         this.bitArray = createBitArray(numBitsRequired);
 
         this.customDecomposer = decomposer;
 
         if (hasher != null) {
             this.hasher = hasher;
+        } else if (numBitsRequired > Integer.MAX_VALUE) {
+            this.hasher = DEFAULT_WIDE_HASHER;
         } else {
             this.hasher = DEFAULT_HASHER;
         }
@@ -114,8 +202,8 @@ public class BloomFilter<T> {
      * @param p the maximum false positive rate expected, or <code>p</code>
      * @return the optimal size in bits for the filter, or <code>m</code>
      */
-    public static int optimalBitSizeOrM(final double n, final double p) {
-        return (int) (-n * Math.log(p) / (LOG_2_SQUARE));
+    public static long optimalBitSizeOrM(final double n, final double p) {
+        return (long) (-n * Math.log(p) / (LOG_2_SQUARE));
         // return (int) Math.ceil(-1 * n * Math.log(p) / LOG_2_SQUARE);
     }
 
@@ -134,11 +222,21 @@ public class BloomFilter<T> {
 
     /**
      * Create a new {@link BitArray} instance for the given number of bits.
+     * Without a factory, a {@link java.util.BitSet} holds at most 2^31 bits,
+     * bigger filters are kept off the heap in a {@link DirectBitArray}
+     * indexed by <code>long</code>.
      *
      * @param numBits the number of required bits in the underlying array
      * @return the {@link BitArray} implementation to be used
      */
-    protected BitArray createBitArray(int numBits) {
+    protected BitArray createBitArray(long numBits) {
+        if (this.bitArrayFactory != null) {
+            return this.bitArrayFactory.create(numBits);
+        }
+
+        if (numBits > Integer.MAX_VALUE) {
+            return new DirectBitArray(numBits);
+        }
         return new JavaBitSetArray(numBits);
     }
 
@@ -151,22 +249,17 @@ public class BloomFilter<T> {
      * @throws IllegalArgumentException if the byte array is <code>null</code>
      */
     public final boolean add(byte[] bytes) {
-        long hash64 = getLongHash64(bytes);
+        checkBytes(bytes);
 
-        // apply the less hashing technique
-        int hash1 = (int) hash64;
-        int hash2 = (int) (hash64 >>> 32);
+        if (this.hasher.isSingleValued()) {
+            long hash64 = this.hasher.hash(bytes);
 
-        boolean bitsChanged = false;
-        for (int i = 1; i <= this.kOrNumberOfHashFunctions; i++) {
-            int nextHash = hash1 + i * hash2;
-            if (nextHash < 0) {
-                nextHash = ~nextHash;
-            }
-            bitsChanged |= this.bitArray.setBit(nextHash % this.bitArray.bitSize());
+            // apply the less hashing technique over the two 32-bit halves
+            return setBits((int) hash64, (int) (hash64 >>> 32));
         }
 
-        return bitsChanged;
+        long[] hashes = hashMultiple(this.hasher, bytes);
+        return setBits(hashes[0], hashes[1]);
     }
 
     /**
@@ -179,16 +272,45 @@ public class BloomFilter<T> {
      * @throws IllegalArgumentException if the byte array is <code>null</code>
      */
     public final boolean contains(byte[] bytes) {
-        long hash64 = getLongHash64(bytes);
-
-        int hash1 = (int) hash64;
-        int hash2 = (int) (hash64 >>> 32);
-        for (int i = 1; i <= this.kOrNumberOfHashFunctions; i++) {
-            int nextHash = hash1 + i * hash2;
-            if (nextHash < 0) {
-                nextHash = ~nextHash;
-            }
-            if (!this.bitArray.getBit(nextHash % this.bitArray.bitSize())) {
+        checkBytes(bytes);
+
+        if (this.hasher.isSingleValued()) {
+            long hash64 = this.hasher.hash(bytes);
+            return testBits((int) hash64, (int) (hash64 >>> 32));
+        }
+
+        long[] hashes = hashMultiple(this.hasher, bytes);
+        return testBits(hashes[0], hashes[1]);
+    }
+
+    /**
+     * Set the <code>k</code> bits derived from the two given hashes.
+     *
+     * @param hash1 the first hash
+     * @param hash2 the second hash
+     * @return <code>true</code> if any of the bits changed, <code>false</code>
+     * otherwise
+     */
+    protected boolean setBits(long hash1, long hash2) {
+        boolean bitsChanged = false;
+        for (int i = 0; i < this.kOrNumberOfHashFunctions; i++) {
+            bitsChanged |= this.bitArray.setBit(bitIndex(hash1, hash2, i));
+        }
+
+        return bitsChanged;
+    }
+
+    /**
+     * Check the <code>k</code> bits derived from the two given hashes.
+     *
+     * @param hash1 the first hash
+     * @param hash2 the second hash
+     * @return <code>true</code> if all the bits are set, <code>false</code>
+     * otherwise
+     */
+    protected boolean testBits(long hash1, long hash2) {
+        for (int i = 0; i < this.kOrNumberOfHashFunctions; i++) {
+            if (!this.bitArray.getBit(bitIndex(hash1, hash2, i))) {
                 return false;
             }
         }
@@ -196,49 +318,286 @@ public class BloomFilter<T> {
     }
 
     /**
-     * Compute one 64-bit hash from the given byte-array using the specified
-     * {@link HashFunction}.
+     * Compute the index of the <code>i</code>-th bit derived from the two given
+     * hashes, using the less hashing technique <code>hash1 + (i + 1) * hash2</code>.
+     * Variants that place their bits differently must override this method
+     * along with {@link #setBits(long, long)} and {@link #testBits(long, long)}.
      *
-     * @param bytes the byte-array to use for hash computation
-     * @return the 64-bit hash
+     * @param hash1 the first hash
+     * @param hash2 the second hash
+     * @param i     the number of the bit, between 0 and <code>k - 1</code>
+     * @return the index of the bit in the {@link BitArray}
      */
-    protected long getLongHash64(byte[] bytes) {
-        if (bytes == null) {
-            throw new IllegalArgumentException("Bytes to add to bloom filter cannot be null");
+    protected long bitIndex(long hash1, long hash2, int i) {
+        long nextHash = hash1 + (i + 1) * hash2;
+        if (nextHash < 0) {
+            nextHash = ~nextHash;
+        }
+        return nextHash % this.bitArray.bitSize();
+    }
+
+    /**
+     * Add all the given byte arrays to the bloom filter. The whole batch is
+     * hashed first, then the bits are set one probe at a time across all the
+     * keys, so that the memory accesses for different keys overlap instead of
+     * waiting on each other.
+     *
+     * @param keys the byte arrays to be added to the bloom filter, none can be null
+     * @return the number of keys that changed at least one bit
+     * @throws IllegalArgumentException if any byte array is <code>null</code>
+     */
+    public int addAll(byte[][] keys) {
+        long[] hashes = new long[keys.length << 1];
+        for (int j = 0; j < keys.length; j++) {
+            checkBytes(keys[j]);
+            hashInto(keys[j], hashes, j);
+        }
+
+        BitSet batch = new BitSet(keys.length);
+        batch.set(0, keys.length);
+        return setBitsAll(hashes, batch);
+    }
+
+    /**
+     * Check which of the given byte arrays exist in the bloom filter. The
+     * whole batch is hashed first, then the bits are tested one probe at a
+     * time across all the keys that are still candidates.
+     *
+     * @param keys   the byte arrays to be tested, none can be null
+     * @param result receives a set bit at the position of every key that
+     *               exists in the bloom filter, its previous content is cleared
+     * @throws IllegalArgumentException if any byte array is <code>null</code>
+     */
+    public void containsAll(byte[][] keys, BitSet result) {
+        long[] hashes = new long[keys.length << 1];
+        for (int j = 0; j < keys.length; j++) {
+            checkBytes(keys[j]);
+            hashInto(keys[j], hashes, j);
+        }
+
+        result.clear();
+        result.set(0, keys.length);
+        testBitsAll(hashes, result);
+    }
+
+    /**
+     * Add all the given values to the bloom filter, see {@link #addAll(byte[][])}.
+     * <code>null</code> values are skipped.
+     *
+     * @param values the values to be added
+     * @return the number of values that changed at least one bit
+     */
+    public int addAll(List<T> values) {
+        long[] hashes = new long[values.size() << 1];
+        BitSet batch = new BitSet(values.size());
+        for (int j = 0; j < values.size(); j++) {
+            T value = values.get(j);
+            if (value != null) {
+                hashInto(decomposedValue(value), hashes, j);
+                batch.set(j);
+            }
         }
 
+        return setBitsAll(hashes, batch);
+    }
+
+    /**
+     * Check which of the given values exist in the bloom filter, see
+     * {@link #containsAll(byte[][], BitSet)}. <code>null</code> values are
+     * never contained.
+     *
+     * @param values the values to be tested
+     * @param result receives a set bit at the position of every value that
+     *               exists in the bloom filter, its previous content is cleared
+     */
+    public void containsAll(List<T> values, BitSet result) {
+        long[] hashes = new long[values.size() << 1];
+        result.clear();
+        for (int j = 0; j < values.size(); j++) {
+            T value = values.get(j);
+            if (value != null) {
+                hashInto(decomposedValue(value), hashes, j);
+                result.set(j);
+            }
+        }
+
+        testBitsAll(hashes, result);
+    }
+
+    /**
+     * Add all the given <code>long</code> keys to the bloom filter, each key
+     * being hashed from its 8 little-endian bytes. See {@link #addAll(byte[][])}.
+     *
+     * @param keys the keys to be added
+     * @return the number of keys that changed at least one bit
+     */
+    public int addAll(long[] keys) {
+        long[] hashes = new long[keys.length << 1];
+        for (int j = 0; j < keys.length; j++) {
+            hashInto(keys[j], hashes, j);
+        }
+
+        BitSet batch = new BitSet(keys.length);
+        batch.set(0, keys.length);
+        return setBitsAll(hashes, batch);
+    }
+
+    /**
+     * Check which of the given <code>long</code> keys exist in the bloom
+     * filter. See {@link #containsAll(byte[][], BitSet)}.
+     *
+     * @param keys   the keys to be tested
+     * @param result receives a set bit at the position of every key that
+     *               exists in the bloom filter, its previous content is cleared
+     */
+    public void containsAll(long[] keys, BitSet result) {
+        long[] hashes = new long[keys.length << 1];
+        for (int j = 0; j < keys.length; j++) {
+            hashInto(keys[j], hashes, j);
+        }
+
+        result.clear();
+        result.set(0, keys.length);
+        testBitsAll(hashes, result);
+    }
+
+    /**
+     * Store the two hashes of the given bytes at position <code>j</code> of
+     * the batch.
+     */
+    private void hashInto(byte[] bytes, long[] hashes, int j) {
         if (this.hasher.isSingleValued()) {
-            return this.hasher.hash(bytes);
+            long hash64 = this.hasher.hash(bytes);
+            hashes[j << 1] = (int) hash64;
+            hashes[(j << 1) + 1] = (int) (hash64 >>> 32);
+            return;
         }
 
-        return this.hasher.hashMultiple(bytes)[0];
+        long[] multiple = hashMultiple(this.hasher, bytes);
+        hashes[j << 1] = multiple[0];
+        hashes[(j << 1) + 1] = multiple[1];
     }
 
     /**
-     * Given the value object, decompose it into a byte-array so that hashing
-     * can be done over the returned bytes. If a custom {@link Decomposer} has
+     * Store the two hashes of the bytes of the given sink at position
+     * <code>j</code> of the batch.
+     */
+    private void hashInto(ByteSink sink, long[] hashes, int j) {
+        if (this.hasher.isSingleValued()) {
+            long hash64 = sink.hash(this.hasher);
+            hashes[j << 1] = (int) hash64;
+            hashes[(j << 1) + 1] = (int) (hash64 >>> 32);
+            return;
+        }
+
+        long[] multiple = sink.hashMultiple(this.hasher);
+        hashes[j << 1] = multiple[0];
+        hashes[(j << 1) + 1] = multiple[1];
+    }
+
+    /**
+     * Store the two hashes of the given key at position <code>j</code> of the
+     * batch.
+     */
+    private void hashInto(long key, long[] hashes, int j) {
+        if (this.hasher.isSingleValued()) {
+            long hash64 = this.hasher.hash(key);
+            hashes[j << 1] = (int) hash64;
+            hashes[(j << 1) + 1] = (int) (hash64 >>> 32);
+            return;
+        }
+
+        long[] multiple = SINKS.get().hashMultiple(this.hasher, key);
+        hashes[j << 1] = multiple[0];
+        hashes[(j << 1) + 1] = multiple[1];
+    }
+
+    /**
+     * Set the bits of the keys of a hashed batch, one probe at a time across
+     * all the keys.
+     *
+     * @param hashes the two hashes of every key of the batch
+     * @param batch  the positions of the keys to add
+     * @return the number of keys that changed at least one bit
+     */
+    protected int setBitsAll(long[] hashes, BitSet batch) {
+        BitSet changed = new BitSet();
+        for (int i = 0; i < this.kOrNumberOfHashFunctions; i++) {
+            for (int j = batch.nextSetBit(0); j >= 0; j = batch.nextSetBit(j + 1)) {
+                if (this.bitArray.setBit(bitIndex(hashes[j << 1], hashes[(j << 1) + 1], i))) {
+                    changed.set(j);
+                }
+            }
+        }
+
+        return changed.cardinality();
+    }
+
+    /**
+     * Test the bits of the keys of a hashed batch, one probe at a time across
+     * all the keys. A key is dropped from the candidates as soon as one of its
+     * bits is not set, so later probes only touch the remaining candidates.
+     *
+     * @param hashes     the two hashes of every key of the batch
+     * @param candidates the positions of the keys to test, only the positions
+     *                   of the keys that exist in the filter are kept
+     */
+    protected void testBitsAll(long[] hashes, BitSet candidates) {
+        for (int i = 0; i < this.kOrNumberOfHashFunctions; i++) {
+            for (int j = candidates.nextSetBit(0); j >= 0; j = candidates.nextSetBit(j + 1)) {
+                if (!this.bitArray.getBit(bitIndex(hashes[j << 1], hashes[(j << 1) + 1], i))) {
+                    candidates.clear(j);
+                }
+            }
+        }
+    }
+
+    /**
+     * Compute the two hashes of the given bytes with a hash function that is
+     * not single valued, into the array of the sink of the calling thread so
+     * that nothing is allocated. The hashes must be used before the next
+     * hash or decomposition.
+     *
+     * @param hasher the hash function
+     * @param bytes  the bytes to hash
+     * @return the two hashes
+     */
+    protected static long[] hashMultiple(HashFunction hasher, byte[] bytes) {
+        return SINKS.get().hashMultiple(hasher, bytes);
+    }
+
+    private static void checkBytes(byte[] bytes) {
+        if (bytes == null) {
+            throw new IllegalArgumentException("Bytes to add to bloom filter cannot be null");
+        }
+    }
+
+    /**
+     * Given the value object, decompose it into a {@link ByteSink} so that
+     * hashing can be done over its bytes. If a custom {@link Decomposer} has
      * been specified, it will be used, otherwise the {@link DefaultDecomposer}
      * will be used.
+     * The returned sink belongs to the calling thread and is reused by the
+     * next call, its bytes must be hashed before decomposing another value.
      *
      * @param value the value to be decomposed
-     * @return the decomposed byte array
+     * @return the sink holding the decomposed bytes
      */
-    protected byte[] decomposedValue(T value) {
-        ByteSink sink = new ByteSink();
+    protected ByteSink decomposedValue(T value) {
+        ByteSink sink = SINKS.get().reset();
 
         if (value instanceof Decomposable) {
             ((Decomposable) value).decompose(sink);
-
-            return sink.getByteArray();
+            return sink;
         }
 
         if (this.customDecomposer != null) {
             this.customDecomposer.decompose(value, sink);
-            return sink.getByteArray();
+            return sink;
         }
 
         DEFAULT_COMPOSER.decompose(value, sink);
-        return sink.getByteArray();
+        return sink;
     }
 
     /**
@@ -253,7 +612,14 @@ public class BloomFilter<T> {
             return false;
         }
 
-        return add(decomposedValue(value));
+        ByteSink sink = decomposedValue(value);
+        if (this.hasher.isSingleValued()) {
+            long hash64 = sink.hash(this.hasher);
+            return setBits((int) hash64, (int) (hash64 >>> 32));
+        }
+
+        long[] hashes = sink.hashMultiple(this.hasher);
+        return setBits(hashes[0], hashes[1]);
     }
 
     /**
@@ -269,6 +635,211 @@ public class BloomFilter<T> {
             return false;
         }
 
-        return contains(value.toString().getBytes(this.currentCharset));
+        ByteSink sink = decomposedValue(value);
+        if (this.hasher.isSingleValued()) {
+            long hash64 = sink.hash(this.hasher);
+            return testBits((int) hash64, (int) (hash64 >>> 32));
+        }
+
+        long[] hashes = sink.hashMultiple(this.hasher);
+        return testBits(hashes[0], hashes[1]);
+    }
+
+    /**
+     * Add all the values of the other filter to this one, by setting every
+     * bit that is set in the other filter. This gives the same filter as
+     * adding the values of both filters to a single one, so filters built in
+     * parallel over shards of the values can be merged. Large filters are
+     * merged in parallel.
+     *
+     * @param other the filter to merge into this one
+     * @throws IllegalArgumentException if the filters do not have the same
+     *                                  variant, size, number of hash functions and hash function
+     */
+    public void union(BloomFilter<T> other) {
+        checkCompatible(other);
+        BitArrays.or(this.bitArray, other.bitArray);
+    }
+
+    /**
+     * Keep in this filter only the bits that are also set in the other one.
+     * The filter then contains the values contained by both filters, with a
+     * false positive probability that can be higher than that of a filter
+     * built from the common values only.
+     *
+     * @param other the filter to intersect with this one
+     * @throws IllegalArgumentException      if the filters do not have the same
+     *                                       variant, size, number of hash functions and hash function
+     * @throws UnsupportedOperationException if the {@link BitArray} of this
+     *                                       filter cannot clear bits
+     */
+    public void intersect(BloomFilter<T> other) {
+        checkCompatible(other);
+        BitArrays.and(this.bitArray, other.bitArray);
+    }
+
+    /**
+     * Estimate the number of distinct values added to the filter from the
+     * number of bits set, with the Swamidass-Baldi estimate
+     * <code>-m / k * ln(1 - X / m)</code> where <code>X</code> is the number
+     * of bits set. The estimate assumes the bits of the values are spread
+     * over the whole filter, it is less accurate for the blocked variants.
+     *
+     * @return the estimated number of values, or
+     * {@link Double#POSITIVE_INFINITY} if all the bits are set
+     */
+    public double estimateCardinality() {
+        final double m = this.bitArray.bitSize();
+        final double bitsSet = BitArrays.cardinality(this.bitArray);
+
+        return -m / this.kOrNumberOfHashFunctions * Math.log1p(-bitsSet / m);
+    }
+
+    /**
+     * Check that the other filter sets the same bits for the same values,
+     * so that the bits of both filters can be combined.
+     *
+     * @param other the other filter
+     * @throws IllegalArgumentException if the filters are not compatible
+     */
+    protected void checkCompatible(BloomFilter<T> other) {
+        if (other == null) {
+            throw new IllegalArgumentException("Bloom filter to combine with cannot be null");
+        }
+
+        if (formatVariant() != other.formatVariant() || formatParameter() != other.formatParameter()) {
+            throw new IllegalArgumentException("Cannot combine a " + getClass().getSimpleName() + " with a "
+                    + other.getClass().getSimpleName());
+        }
+
+        if (this.numBitsRequired != other.numBitsRequired || this.bitArray.bitSize() != other.bitArray.bitSize()
+                || this.kOrNumberOfHashFunctions != other.kOrNumberOfHashFunctions) {
+            throw new IllegalArgumentException("Cannot combine a filter of " + this.numBitsRequired + " bits and "
+                    + this.kOrNumberOfHashFunctions + " hash functions with a filter of " + other.numBitsRequired
+                    + " bits and " + other.kOrNumberOfHashFunctions + " hash functions");
+        }
+
+        boolean sameHasher = this.hasher == other.hasher
+                || (this.hasher.id() != HashFunction.UNKNOWN_ID && this.hasher.id() == other.hasher.id()
+                && this.hasher.seed() == other.hasher.seed());
+        if (!sameHasher) {
+            throw new IllegalArgumentException("Cannot combine filters using different hash functions");
+        }
+    }
+
+    /**
+     * Write the filter to the given channel, followed by a checksum. See
+     * {@link #writeTo(WritableByteChannel, boolean)}.
+     *
+     * @param channel the channel to write to
+     * @throws IOException if the filter cannot be written
+     */
+    public void writeTo(WritableByteChannel channel) throws IOException {
+        writeTo(channel, true);
+    }
+
+    /**
+     * Write the filter to the given channel: a versioned header with the
+     * size, the number of hash functions, the hash function and the charset,
+     * then the raw words of the {@link BitArray}, written in bulk. The filter
+     * can be read back with {@link #readFrom(ReadableByteChannel)}.
+     * <p>
+     * The charset of the default decomposer is written, so that the filter
+     * is read back with the same one whatever the default charset of the
+     * reader. A custom {@link Decomposer} cannot be written: the filter only
+     * records that it used one, and must be read with
+     * {@link #readFrom(ReadableByteChannel, BitArrayFactory, Decomposer)}.
+     * The filter must not be updated while it is being written.
+     *
+     * @param channel  the channel to write to
+     * @param checksum whether to write a CRC32C of the filter after the words
+     * @throws IOException              if the filter cannot be written
+     * @throws IllegalArgumentException if the hash function of the filter is a
+     *                                  custom one, that cannot be recreated
+     */
+    public void writeTo(WritableByteChannel channel, boolean checksum) throws IOException {
+        FilterFormat.write(this, channel, checksum);
+    }
+
+    /**
+     * Read a filter written by {@link #writeTo(WritableByteChannel)}. The
+     * filter is of the same variant as the one written, and its bits are held
+     * in a {@link JavaBitSetArray}, or a {@link DirectBitArray} above 2^31
+     * bits.
+     *
+     * @param channel the channel to read from
+     * @param <T>     the type of objects stored in the filter
+     * @return the filter
+     * @throws IOException if the filter cannot be read, or its checksum does
+     *                     not match
+     */
+    public static <T> BloomFilter<T> readFrom(ReadableByteChannel channel) throws IOException {
+        return readFrom(channel, null);
+    }
+
+    /**
+     * Read a filter written by {@link #writeTo(WritableByteChannel)} into a
+     * {@link BitArray} created by the given factory. The words are read in
+     * bulk, straight into the memory of a
+     * {@link BloomFilter.core.DirectBitArray} or a
+     * {@link BloomFilter.core.MappedFileBitArray}. A split-block filter always
+     * uses an {@link BloomFilter.core.AtomicBitArray}.
+     *
+     * @param channel         the channel to read from
+     * @param bitArrayFactory the factory to create the {@link BitArray} with,
+     *                        <code>null</code> for the default
+     * @param <T>             the type of objects stored in the filter
+     * @return the filter
+     * @throws IOException if the filter cannot be read, or its checksum does
+     *                     not match, or it was built with a custom
+     *                     {@link Decomposer}
+     */
+    public static <T> BloomFilter<T> readFrom(ReadableByteChannel channel, BitArrayFactory bitArrayFactory) throws IOException {
+        return FilterFormat.read(channel, bitArrayFactory, null);
+    }
+
+    /**
+     * Read a filter written by {@link #writeTo(WritableByteChannel)} that was
+     * built with a custom {@link Decomposer}, which the format cannot record.
+     * See {@link #readFrom(ReadableByteChannel, BitArrayFactory)}.
+     *
+     * @param channel         the channel to read from
+     * @param bitArrayFactory the factory to create the {@link BitArray} with,
+     *                        <code>null</code> for the default
+     * @param decomposer      the decomposer the filter was built with, ignored
+     *                        if it was built with the default one
+     * @param <T>             the type of objects stored in the filter
+     * @return the filter
+     * @throws IOException if the filter cannot be read, or its checksum does
+     *                     not match
+     */
+    public static <T> BloomFilter<T> readFrom(ReadableByteChannel channel, BitArrayFactory bitArrayFactory,
+                                              Decomposer<T> decomposer) throws IOException {
+        return FilterFormat.read(channel, bitArrayFactory, decomposer);
+    }
+
+    /**
+     * The variant of the filter in the serialized format
+     */
+    int formatVariant() {
+        return FilterFormat.STANDARD;
+    }
+
+    /**
+     * The parameter of the variant in the serialized format
+     */
+    int formatParameter() {
+        return 0;
+    }
+
+    /**
+     * Release the underlying {@link BitArray}. For a file backed array this
+     * makes sure all changes have been written to the file.
+     *
+     * @throws IOException if the underlying array cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        this.bitArray.close();
     }
 }
\ No newline at end of file
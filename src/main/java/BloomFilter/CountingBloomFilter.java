@@ -0,0 +1,186 @@
+package BloomFilter;
+
+import BloomFilter.core.BitArrayFactory;
+import BloomFilter.core.CounterArray;
+import BloomFilter.core.NibbleCounterArray;
+import BloomFilter.decompose.ByteSink;
+import BloomFilter.decompose.Decomposer;
+
+/**
+ * A counting bloom filter, which supports removal. Each bit of the filter is
+ * replaced by a 4-bit counter of a {@link NibbleCounterArray}: adding a value
+ * increments its <code>k</code> counters and removing it decrements them, so
+ * the filter takes four times the memory of a {@link BloomFilter} with the
+ * same false positive probability.
+ * <p>
+ * Only values that were added should be removed. Removing a value that the
+ * filter wrongly contains, a false positive, decrements counters of other
+ * values, which may then no longer be contained. Values the filter does not
+ * contain at all are ignored.
+ *
+ * @param <T> the type of objects to be stored in the filter
+ */
+public class CountingBloomFilter<T> extends BloomFilter<T> {
+
+    /**
+     * The counters of the filter
+     */
+    protected final CounterArray counters;
+
+    /**
+     * Create a new counting bloom filter for use by a single thread.
+     *
+     * @param expectedInsertions       the number of max expected insertions
+     * @param falsePositiveProbability the max false positive probability rate that the bloom filter
+     *                                 can give
+     */
+    public CountingBloomFilter(long expectedInsertions, double falsePositiveProbability) {
+        this(expectedInsertions, falsePositiveProbability, false);
+    }
+
+    /**
+     * Create a new counting bloom filter.
+     *
+     * @param expectedInsertions       the number of max expected insertions
+     * @param falsePositiveProbability the max false positive probability rate that the bloom filter
+     *                                 can give
+     * @param concurrent               whether the counters are updated with compare-and-set, so
+     *                                 that the filter can be shared between threads
+     */
+    public CountingBloomFilter(long expectedInsertions, double falsePositiveProbability, boolean concurrent) {
+        this(expectedInsertions, falsePositiveProbability, concurrent, null, null);
+    }
+
+    /**
+     * Create a new counting bloom filter.
+     *
+     * @param expectedInsertions       the number of max expected insertions
+     * @param falsePositiveProbability the max false positive probability rate that the bloom filter
+     *                                 can give
+     * @param concurrent               whether the counters are updated with compare-and-set, so
+     *                                 that the filter can be shared between threads
+     * @param decomposer               a {@link Decomposer} that helps decompose the given object
+     * @param hasher                   the hash function to use, <code>null</code> for the default
+     */
+    protected CountingBloomFilter(long expectedInsertions, double falsePositiveProbability, boolean concurrent,
+                                  Decomposer<T> decomposer, HashFunction hasher) {
+        this(optimalBitSizeOrM(expectedInsertions, falsePositiveProbability),
+                optimalNumberofHashFunctionsOrK(expectedInsertions, optimalBitSizeOrM(expectedInsertions, falsePositiveProbability)),
+                decomposer, hasher, numCounters -> new NibbleCounterArray(numCounters, concurrent));
+    }
+
+    /**
+     * Create a new counting bloom filter with an explicit size and number of
+     * hash functions.
+     *
+     * @param numCounters              the number of counters in the filter, or <code>m</code>
+     * @param kOrNumberOfHashFunctions the number of hash functions, or <code>k</code>
+     * @param decomposer               a {@link Decomposer} that helps decompose the given object
+     * @param hasher                   the hash function to use, <code>null</code> for the default
+     * @param counterArrayFactory      the factory to create the {@link CounterArray} with
+     */
+    protected CountingBloomFilter(long numCounters, int kOrNumberOfHashFunctions, Decomposer<T> decomposer, HashFunction hasher,
+                                  BitArrayFactory counterArrayFactory) {
+        super(numCounters, kOrNumberOfHashFunctions, decomposer, hasher, counterArrayFactory);
+
+        if (!(this.bitArray instanceof CounterArray)) {
+            throw new IllegalArgumentException("A counting bloom filter needs a CounterArray, got " + this.bitArray.getClass().getName());
+        }
+        this.counters = (CounterArray) this.bitArray;
+    }
+
+    /**
+     * Remove the given byte array from the bloom filter
+     *
+     * @param bytes the byte array to be removed from the bloom filter, cannot be null
+     * @return <code>true</code> if the value was contained and has been removed,
+     * <code>false</code> otherwise
+     * @throws IllegalArgumentException if the byte array is <code>null</code>
+     */
+    public boolean remove(byte[] bytes) {
+        if (bytes == null) {
+            throw new IllegalArgumentException("Bytes to remove from bloom filter cannot be null");
+        }
+
+        if (this.hasher.isSingleValued()) {
+            long hash64 = this.hasher.hash(bytes);
+            return clearBits((int) hash64, (int) (hash64 >>> 32));
+        }
+
+        long[] hashes = hashMultiple(this.hasher, bytes);
+        return clearBits(hashes[0], hashes[1]);
+    }
+
+    /**
+     * Remove the given value from the bloom filter.
+     *
+     * @param value the value to be removed
+     * @return <code>true</code> if the value was contained and has been removed,
+     * <code>false</code> otherwise
+     */
+    public boolean remove(T value) {
+        if (value == null) {
+            return false;
+        }
+
+        ByteSink sink = decomposedValue(value);
+        if (this.hasher.isSingleValued()) {
+            long hash64 = sink.hash(this.hasher);
+            return clearBits((int) hash64, (int) (hash64 >>> 32));
+        }
+
+        long[] hashes = sink.hashMultiple(this.hasher);
+        return clearBits(hashes[0], hashes[1]);
+    }
+
+    /**
+     * Decrement the <code>k</code> counters derived from the two given hashes,
+     * if the value they stand for is contained.
+     *
+     * @param hash1 the first hash
+     * @param hash2 the second hash
+     * @return <code>true</code> if the counters were decremented,
+     * <code>false</code> otherwise
+     */
+    protected boolean clearBits(long hash1, long hash2) {
+        if (!testBits(hash1, hash2)) {
+            return false;
+        }
+
+        for (int i = 0; i < this.kOrNumberOfHashFunctions; i++) {
+            this.counters.decrement(bitIndex(hash1, hash2, i));
+        }
+
+        return true;
+    }
+
+    /**
+     * Counting filters cannot be merged bit by bit.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void union(BloomFilter<T> other) {
+        throw new UnsupportedOperationException("Counting bloom filters do not support union");
+    }
+
+    /**
+     * Counting filters cannot be intersected bit by bit.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void intersect(BloomFilter<T> other) {
+        throw new UnsupportedOperationException("Counting bloom filters do not support intersect");
+    }
+
+    @Override
+    int formatVariant() {
+        return FilterFormat.COUNTING;
+    }
+
+    @Override
+    int formatParameter() {
+        return NibbleCounterArray.COUNTER_BITS;
+    }
+}
@@ -0,0 +1,315 @@
+package BloomFilter;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32C;
+
+import BloomFilter.core.BitArray;
+import BloomFilter.core.BitArrayFactory;
+import BloomFilter.core.NibbleCounterArray;
+import BloomFilter.decompose.Decomposer;
+import BloomFilter.decompose.DefaultDecomposer;
+
+/**
+ * The binary format of a serialized {@link BloomFilter}. All the values are
+ * little-endian:
+ * <pre>
+ * int    magic, "BLMF"
+ * byte   version
+ * byte   flags, bit 0 set when a checksum follows the words, bit 1 set when
+ *        the values were decomposed by a custom decomposer
+ * byte   variant of the filter, see the constants of this class
+ * byte   reserved, 0
+ * int    parameter of the variant, the block size or the counter size
+ * long   number of bits of the filter, or m
+ * int    number of hash functions, or k
+ * int    id of the hash function, see {@link HashFunction#id()}
+ * long   seed of the hash function
+ * long   number of words that follow the header
+ * short  length of the charset name, 0 with a custom decomposer
+ * byte[] charset name of the default decomposer, in US-ASCII
+ * long[] the words of the bit array
+ * int    CRC32C of all the previous bytes, if the flag is set
+ * </pre>
+ * The words are written and read in bulk by the {@link BitArray}, a memory
+ * mapped or direct array moves them without any copy on the heap. The
+ * header is checked before anything is allocated, the checksum only covers
+ * the words once they are read.
+ */
+final class FilterFormat {
+
+    /**
+     * "BLMF" read as a little-endian int
+     */
+    static final int MAGIC = 0x464D4C42;
+
+    static final byte VERSION = 1;
+
+    static final int FLAG_CHECKSUM = 1;
+
+    static final int FLAG_CUSTOM_DECOMPOSER = 2;
+
+    static final int STANDARD = 0;
+
+    static final int BLOCKED = 1;
+
+    static final int SPLIT_BLOCK = 2;
+
+    static final int COUNTING = 3;
+
+    /**
+     * Size of the header before the charset name
+     */
+    private static final int FIXED_HEADER_BYTES = 46;
+
+    private FilterFormat() {
+    }
+
+    static void write(BloomFilter<?> filter, WritableByteChannel channel, boolean checksum) throws IOException {
+        if (filter.hasher.id() == HashFunction.UNKNOWN_ID) {
+            throw new IllegalArgumentException("Cannot serialize a filter using the custom hash function "
+                    + filter.hasher.getClass().getName());
+        }
+
+        Charset charset = charsetOf(filter.customDecomposer);
+        byte[] charsetName = charset == null ? new byte[0] : charset.name().getBytes(StandardCharsets.US_ASCII);
+        int flags = (checksum ? FLAG_CHECKSUM : 0) | (charset == null ? FLAG_CUSTOM_DECOMPOSER : 0);
+        ByteBuffer header = ByteBuffer.allocate(FIXED_HEADER_BYTES + charsetName.length).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC)
+                .put(VERSION)
+                .put((byte) flags)
+                .put((byte) filter.formatVariant())
+                .put((byte) 0)
+                .putInt(filter.formatParameter())
+                .putLong(filter.numBitsRequired)
+                .putInt(filter.kOrNumberOfHashFunctions)
+                .putInt(filter.hasher.id())
+                .putLong(filter.hasher.seed())
+                .putLong(filter.bitArray.wordCount())
+                .putShort((short) charsetName.length)
+                .put(charsetName)
+                .flip();
+
+        ChecksumChannel crc = checksum ? new ChecksumChannel(channel) : null;
+        WritableByteChannel target = checksum ? crc : channel;
+        writeFully(target, header);
+        filter.bitArray.writeWords(target);
+
+        if (checksum) {
+            ByteBuffer trailer = ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            trailer.putInt((int) crc.crc.getValue()).flip();
+            writeFully(channel, trailer);
+        }
+    }
+
+    static <T> BloomFilter<T> read(ReadableByteChannel channel, BitArrayFactory bitArrayFactory,
+                                   Decomposer<T> customDecomposer) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(FIXED_HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(channel, header);
+        header.flip();
+
+        if (header.getInt() != MAGIC) {
+            throw new IOException("Not a serialized bloom filter");
+        }
+        byte version = header.get();
+        if (version != VERSION) {
+            throw new IOException("Unsupported bloom filter format version " + version);
+        }
+        int flags = header.get();
+        boolean checksum = (flags & FLAG_CHECKSUM) != 0;
+        int variant = header.get();
+        header.get();
+        int parameter = header.getInt();
+        long numBits = header.getLong();
+        int k = header.getInt();
+        int hasherId = header.getInt();
+        long seed = header.getLong();
+        long wordCount = header.getLong();
+        int charsetLength = header.getShort();
+
+        if (numBits <= 0 || k < 1) {
+            throw new IOException("Corrupted header, " + numBits + " bits and " + k + " hash functions");
+        }
+        // the words hold the bits, or the counters, rounded up to a word
+        int bitsPerEntry = variant == COUNTING ? NibbleCounterArray.COUNTER_BITS : 1;
+        if (numBits > Long.MAX_VALUE / bitsPerEntry
+                || wordCount != (numBits * bitsPerEntry + Long.SIZE - 1) >>> 6) {
+            throw new IOException("Corrupted header, " + wordCount + " words cannot hold " + numBits + " bits");
+        }
+        if (channel instanceof SeekableByteChannel) {
+            SeekableByteChannel file = (SeekableByteChannel) channel;
+            if (file.size() - file.position() < wordCount * Long.BYTES) {
+                throw new EOFException("Serialized bloom filter is truncated, " + wordCount + " words expected");
+            }
+        }
+        if (charsetLength < 0) {
+            throw new IOException("Corrupted header, charset name of " + charsetLength + " bytes");
+        }
+
+        HashFunction hasher;
+        try {
+            hasher = HashFunction.forId(hasherId, seed);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Corrupted header, " + e.getMessage(), e);
+        }
+
+        ByteBuffer charsetName = ByteBuffer.allocate(charsetLength);
+        readFully(channel, charsetName);
+
+        // values must be decomposed as they were when the filter was built
+        Decomposer<T> decomposer;
+        if ((flags & FLAG_CUSTOM_DECOMPOSER) != 0) {
+            if (customDecomposer == null) {
+                throw new IOException("The filter was built with a custom decomposer, which must be given to read it");
+            }
+            decomposer = customDecomposer;
+        } else {
+            String name = new String(charsetName.array(), StandardCharsets.US_ASCII);
+            try {
+                decomposer = new DefaultDecomposer<T>(Charset.forName(name));
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Unsupported charset " + name + " of the default decomposer", e);
+            }
+        }
+
+        BloomFilter<T> filter;
+        try {
+            switch (variant) {
+                case STANDARD:
+                    filter = new BloomFilter<>(numBits, k, decomposer, hasher, bitArrayFactory);
+                    break;
+                case BLOCKED:
+                    filter = new BlockedBloomFilter<>(numBits, parameter, k, decomposer, hasher, bitArrayFactory);
+                    break;
+                case SPLIT_BLOCK:
+                    if (numBits % SplitBlockBloomFilter.BLOCK_BITS != 0) {
+                        throw new IOException("Corrupted header, " + numBits + " bits is not a whole number of blocks");
+                    }
+                    filter = new SplitBlockBloomFilter<>(numBits / SplitBlockBloomFilter.BLOCK_BITS, decomposer, hasher);
+                    break;
+                case COUNTING:
+                    if (parameter != NibbleCounterArray.COUNTER_BITS) {
+                        throw new IOException("Unsupported counter size " + parameter);
+                    }
+                    filter = new CountingBloomFilter<>(numBits, k, decomposer, hasher,
+                            bitArrayFactory != null ? bitArrayFactory : NibbleCounterArray::new);
+                    break;
+                default:
+                    throw new IOException("Unknown bloom filter variant " + variant);
+            }
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Corrupted header, " + e.getMessage(), e);
+        }
+
+        ChecksumChannel crc = checksum ? new ChecksumChannel(channel) : null;
+        if (checksum) {
+            crc.crc.update(header.array());
+            crc.crc.update(charsetName.array());
+        }
+
+        try {
+            if (filter.bitArray.wordCount() != wordCount) {
+                throw new IOException("The filter holds " + wordCount + " words, the bit array holds "
+                        + filter.bitArray.wordCount());
+            }
+
+            filter.bitArray.readWords(checksum ? crc : channel);
+
+            if (checksum) {
+                int expected = (int) crc.crc.getValue();
+                ByteBuffer trailer = ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                readFully(channel, trailer);
+                if (trailer.getInt(0) != expected) {
+                    throw new IOException("Checksum mismatch, the serialized bloom filter is corrupted");
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            filter.close();
+            throw e;
+        }
+
+        return filter;
+    }
+
+    /**
+     * The charset the values of a filter are decomposed with, <code>null</code>
+     * if they are decomposed by a custom decomposer. A subclass of
+     * {@link DefaultDecomposer} may decompose them otherwise, it is a custom
+     * one.
+     */
+    private static Charset charsetOf(Decomposer<?> decomposer) {
+        if (decomposer == null) {
+            return BloomFilter.DEFAULT_COMPOSER.getCharset();
+        }
+        if (decomposer.getClass() == DefaultDecomposer.class) {
+            return ((DefaultDecomposer<?>) decomposer).getCharset();
+        }
+        return null;
+    }
+
+    private static void writeFully(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static void readFully(ReadableByteChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("Serialized bloom filter is truncated");
+            }
+        }
+    }
+
+    /**
+     * A channel that updates a CRC32C with all the bytes that go through it.
+     */
+    private static final class ChecksumChannel implements ReadableByteChannel, WritableByteChannel {
+
+        final CRC32C crc = new CRC32C();
+
+        private final Channel channel;
+
+        ChecksumChannel(Channel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            int position = dst.position();
+            int read = ((ReadableByteChannel) this.channel).read(dst);
+            if (read > 0) {
+                this.crc.update(dst.duplicate().limit(position + read).position(position));
+            }
+            return read;
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            int position = src.position();
+            int written = ((WritableByteChannel) this.channel).write(src);
+            if (written > 0) {
+                this.crc.update(src.duplicate().limit(position + written).position(position));
+            }
+            return written;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return this.channel.isOpen();
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.channel.close();
+        }
+    }
+}
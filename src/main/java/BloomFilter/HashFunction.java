@@ -1,18 +1,161 @@
 package BloomFilter;
 
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.zip.CRC32;
 
+import BloomFilter.hash.Murmur3Hash128;
+import BloomFilter.hash.XxHash64;
+
 /**
- * A CRC32 hash function.
+ * A CRC32 hash function. This is also the base class for the other hash
+ * functions that can be plugged into a {@link BloomFilter}, see the
+ * {@link BloomFilter.hash} package.
+ * <p>
+ * A single valued hash function returns 64 bits from {@link #hash(byte[])},
+ * whose two 32-bit halves are used for double hashing. A hash function that
+ * is not single valued returns two 64-bit values from
+ * {@link #hashMultiple(byte[])} which are used as is.
+ * <p>
+ * Note that CRC32 only produces 32 bits, the upper half of its hash is always
+ * zero. It is kept for compatibility, the filters use a 64-bit hash function
+ * by default.
  */
 public class HashFunction {
+
+    /**
+     * Reusable CRC32 instance per thread
+     */
+    private static final ThreadLocal<CRC32> CRC = ThreadLocal.withInitial(CRC32::new);
+
+    /**
+     * Id of a hash function that cannot be recreated from its id
+     */
+    public static final int UNKNOWN_ID = -1;
+
+    /**
+     * Id of this CRC32 hash function
+     */
+    public static final int CRC32_ID = 0;
+
+    /**
+     * Id of the {@link XxHash64} hash function
+     */
+    public static final int XXHASH64_ID = 1;
+
+    /**
+     * Id of the {@link Murmur3Hash128} hash function
+     */
+    public static final int MURMUR3_128_ID = 2;
+
+    /**
+     * Create the hash function with the given id and seed, as returned by
+     * {@link #id()} and {@link #seed()}.
+     *
+     * @param id   the id of the hash function
+     * @param seed the seed of the hash function
+     * @return the hash function
+     * @throws IllegalArgumentException if the id is not known
+     */
+    public static HashFunction forId(int id, long seed) {
+        switch (id) {
+            case CRC32_ID:
+                return new HashFunction();
+            case XXHASH64_ID:
+                return new XxHash64(seed);
+            case MURMUR3_128_ID:
+                return new Murmur3Hash128((int) seed);
+            default:
+                throw new IllegalArgumentException("Unknown hash function id: " + id);
+        }
+    }
+
+    /**
+     * Get the id that identifies this hash function in a serialized filter.
+     * Hash functions other than the ones of this library return
+     * {@link #UNKNOWN_ID}.
+     *
+     * @return the id of the hash function
+     */
+    public int id() {
+        return getClass() == HashFunction.class ? CRC32_ID : UNKNOWN_ID;
+    }
+
+    /**
+     * Get the seed of this hash function, which along with its {@link #id()}
+     * is enough to recreate it.
+     *
+     * @return the seed
+     */
+    public long seed() {
+        return 0;
+    }
+
     public boolean isSingleValued() {
         return true;
     }
 
     public long hash(byte[] bytes) {
-        CRC32 crc32 = new CRC32();
-        crc32.update(bytes);
+        return hash(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Hash a slice of the given byte-array.
+     *
+     * @param bytes  the byte-array to hash
+     * @param offset the offset of the first byte to hash
+     * @param length the number of bytes to hash
+     * @return the hash
+     */
+    public long hash(byte[] bytes, int offset, int length) {
+        CRC32 crc32 = crc32();
+        crc32.update(bytes, offset, length);
+        return crc32.getValue();
+    }
+
+    /**
+     * Hash the remaining bytes of the given buffer. The position of the buffer
+     * is left untouched.
+     *
+     * @param buffer the buffer to hash
+     * @return the hash
+     */
+    public long hash(ByteBuffer buffer) {
+        CRC32 crc32 = crc32();
+        int position = buffer.position();
+        crc32.update(buffer);
+        buffer.position(position);
+        return crc32.getValue();
+    }
+
+    /**
+     * Hash the given characters as if they were encoded in UTF-16LE, without
+     * encoding them.
+     *
+     * @param chars the characters to hash
+     * @return the hash
+     */
+    public long hash(CharSequence chars) {
+        CRC32 crc32 = crc32();
+        for (int i = 0; i < chars.length(); i++) {
+            char c = chars.charAt(i);
+            crc32.update(c);
+            crc32.update(c >>> 8);
+        }
+        return crc32.getValue();
+    }
+
+    /**
+     * Hash the 8 little-endian bytes of the given value.
+     *
+     * @param value the value to hash
+     * @return the hash
+     */
+    public long hash(long value) {
+        CRC32 crc32 = crc32();
+        for (int i = 0; i < Long.BYTES; i++) {
+            crc32.update((int) (value >>> (i << 3)));
+        }
         return crc32.getValue();
     }
 
@@ -20,4 +163,71 @@ public class HashFunction {
         return null;
     }
 
-}
\ No newline at end of file
+    /**
+     * Compute the multiple hashes of a slice of the given byte-array.
+     *
+     * @param bytes  the byte-array to hash
+     * @param offset the offset of the first byte to hash
+     * @param length the number of bytes to hash
+     * @return the hashes
+     */
+    public long[] hashMultiple(byte[] bytes, int offset, int length) {
+        if (offset == 0 && length == bytes.length) {
+            return hashMultiple(bytes);
+        }
+        return hashMultiple(Arrays.copyOfRange(bytes, offset, offset + length));
+    }
+
+    /**
+     * Compute the first two of the multiple hashes of a slice of the given
+     * byte-array into the given array. By default they are copied from
+     * {@link #hashMultiple(byte[], int, int)}, the hash functions of this
+     * library compute them in place without allocating.
+     *
+     * @param bytes  the byte-array to hash
+     * @param offset the offset of the first byte to hash
+     * @param length the number of bytes to hash
+     * @param out    receives the first two hashes
+     */
+    public void hashMultiple(byte[] bytes, int offset, int length, long[] out) {
+        long[] hashes = hashMultiple(bytes, offset, length);
+        out[0] = hashes[0];
+        out[1] = hashes[1];
+    }
+
+    /**
+     * Compute the multiple hashes of the 8 little-endian bytes of the given
+     * value.
+     *
+     * @param value the value to hash
+     * @return the hashes
+     */
+    public long[] hashMultiple(long value) {
+        byte[] bytes = new byte[Long.BYTES];
+        for (int i = 0; i < Long.BYTES; i++) {
+            bytes[i] = (byte) (value >>> (i << 3));
+        }
+        return hashMultiple(bytes);
+    }
+
+    /**
+     * Compute the first two of the multiple hashes of the 8 little-endian
+     * bytes of the given value into the given array, see
+     * {@link #hashMultiple(byte[], int, int, long[])}.
+     *
+     * @param value the value to hash
+     * @param out   receives the first two hashes
+     */
+    public void hashMultiple(long value, long[] out) {
+        long[] hashes = hashMultiple(value);
+        out[0] = hashes[0];
+        out[1] = hashes[1];
+    }
+
+    private static CRC32 crc32() {
+        CRC32 crc32 = CRC.get();
+        crc32.reset();
+        return crc32;
+    }
+
+}
@@ -0,0 +1,409 @@
+package BloomFilter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+import BloomFilter.core.AtomicBitArray;
+import BloomFilter.core.BitArrayFactory;
+import BloomFilter.core.DirectBitArray;
+import BloomFilter.decompose.ByteSink;
+import BloomFilter.decompose.Decomposer;
+
+/**
+ * A scalable bloom filter (Almeida et al.) that grows instead of degrading
+ * once more values than expected are inserted. The filter is a chain of
+ * {@link BloomFilter} slices. When the newest slice has received as many
+ * values as it was sized for, a new slice is added with
+ * <code>growthFactor</code> times its capacity and <code>tighteningRatio</code>
+ * times its false positive probability. The false positive probability of
+ * slice <code>i</code> is <code>p * (1 - r) * r^i</code>, which keeps the
+ * compound probability of the whole chain under <code>p</code>.
+ * <p>
+ * A value is hashed once for all the slices. Queries go through the slices
+ * from the newest, which holds the most values, to the oldest and stop at the
+ * first one that contains the value.
+ * <p>
+ * Slices double in size, so a filter that keeps growing ends up with slices
+ * bigger than 2^31 bits. Such slices hash with
+ * {@link BloomFilter#DEFAULT_WIDE_HASHER} when the hash function of the
+ * filter is single valued, and keep their bits in a {@link DirectBitArray}
+ * unless a factory is given. A value is then hashed once more for the wide
+ * slices.
+ * <p>
+ * The filter can be added to and queried from many threads without external
+ * locking: the slices keep their bits in an {@link AtomicBitArray}, or in a
+ * {@link DirectBitArray} above 2^31 bits, both thread-safe, their counts are
+ * atomic and a new slice is published atomically. A factory given to the
+ * filter must create thread-safe arrays for the filter to stay so. Two
+ * threads adding the same value at once may both count it.
+ *
+ * @param <T> the type of objects to be stored in the filter
+ */
+public class ScalableBloomFilter<T> implements Closeable {
+
+    /**
+     * Default growth of the capacity between two slices
+     */
+    public static final int DEFAULT_GROWTH_FACTOR = 2;
+
+    /**
+     * Default ratio of the false positive probability between two slices
+     */
+    public static final double DEFAULT_TIGHTENING_RATIO = 0.85;
+
+    /**
+     * The max compound false positive probability
+     */
+    protected final double falsePositiveProbability;
+
+    /**
+     * Growth of the capacity between two slices
+     */
+    protected final int growthFactor;
+
+    /**
+     * Ratio of the false positive probability between two slices
+     */
+    protected final double tighteningRatio;
+
+    /**
+     * Holds the custom decomposer that should be used for the slices
+     */
+    protected final Decomposer<T> customDecomposer;
+
+    /**
+     * The hashing method used by the slices of at most 2^31 bits
+     */
+    protected final HashFunction hasher;
+
+    /**
+     * The hashing method used by the slices bigger than 2^31 bits, the same as
+     * {@link #hasher} unless that one is single valued
+     */
+    protected final HashFunction wideHasher;
+
+    /**
+     * The factory to create the bit arrays of the slices with, <code>null</code>
+     * for the thread-safe defaults
+     */
+    protected final BitArrayFactory bitArrayFactory;
+
+    /**
+     * The slices, from the oldest to the newest
+     */
+    private volatile Slice<T>[] slices;
+
+    /**
+     * Create a new scalable bloom filter.
+     *
+     * @param initialCapacity          the number of values the first slice is sized for
+     * @param falsePositiveProbability the max compound false positive probability
+     */
+    public ScalableBloomFilter(long initialCapacity, double falsePositiveProbability) {
+        this(initialCapacity, falsePositiveProbability, DEFAULT_GROWTH_FACTOR, DEFAULT_TIGHTENING_RATIO);
+    }
+
+    /**
+     * Create a new scalable bloom filter.
+     *
+     * @param initialCapacity          the number of values the first slice is sized for
+     * @param falsePositiveProbability the max compound false positive probability
+     * @param growthFactor             growth of the capacity between two slices, at least 1
+     * @param tighteningRatio          ratio of the false positive probability between two
+     *                                 slices, between 0 and 1 exclusive
+     */
+    public ScalableBloomFilter(long initialCapacity, double falsePositiveProbability, int growthFactor, double tighteningRatio) {
+        this(initialCapacity, falsePositiveProbability, growthFactor, tighteningRatio, null, null, null);
+    }
+
+    /**
+     * Create a new scalable bloom filter.
+     *
+     * @param initialCapacity          the number of values the first slice is sized for
+     * @param falsePositiveProbability the max compound false positive probability, between
+     *                                 0 and 1 exclusive
+     * @param growthFactor             growth of the capacity between two slices, at least 1
+     * @param tighteningRatio          ratio of the false positive probability between two
+     *                                 slices, between 0 and 1 exclusive
+     * @param decomposer               a {@link Decomposer} that helps decompose the given object
+     * @param hasher                   the hash function to use, <code>null</code> for the default
+     * @param bitArrayFactory          the factory to create the bit arrays of the slices with,
+     *                                 <code>null</code> for an {@link AtomicBitArray}, or a
+     *                                 {@link DirectBitArray} above 2^31 bits
+     */
+    protected ScalableBloomFilter(long initialCapacity, double falsePositiveProbability, int growthFactor, double tighteningRatio,
+                                  Decomposer<T> decomposer, HashFunction hasher, BitArrayFactory bitArrayFactory) {
+        if (initialCapacity <= 0) {
+            throw new IllegalArgumentException("Initial capacity must be positive");
+        }
+        if (falsePositiveProbability <= 0 || falsePositiveProbability >= 1) {
+            throw new IllegalArgumentException("False positive probability must be between 0 and 1 exclusive");
+        }
+        if (growthFactor < 1) {
+            throw new IllegalArgumentException("Growth factor must be at least 1");
+        }
+        if (tighteningRatio <= 0 || tighteningRatio >= 1) {
+            throw new IllegalArgumentException("Tightening ratio must be between 0 and 1 exclusive");
+        }
+
+        this.falsePositiveProbability = falsePositiveProbability;
+        this.growthFactor = growthFactor;
+        this.tighteningRatio = tighteningRatio;
+        this.customDecomposer = decomposer;
+        this.hasher = hasher != null ? hasher : BloomFilter.DEFAULT_HASHER;
+        this.wideHasher = this.hasher.isSingleValued() ? BloomFilter.DEFAULT_WIDE_HASHER : this.hasher;
+        this.bitArrayFactory = bitArrayFactory;
+
+        Slice<T>[] initial = newSliceArray(1);
+        initial[0] = newSlice(initialCapacity, falsePositiveProbability * (1 - tighteningRatio));
+        this.slices = initial;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Slice<T>[] newSliceArray(int length) {
+        return (Slice<T>[]) new Slice<?>[length];
+    }
+
+    /**
+     * Create a slice sized for the given capacity. Slices bigger than 2^31
+     * bits get the wide hash function and, without a factory, a bit array
+     * indexed by <code>long</code>.
+     */
+    private Slice<T> newSlice(long capacity, double sliceProbability) {
+        long numBits = BloomFilter.optimalBitSizeOrM(capacity, sliceProbability);
+        boolean wide = numBits > Integer.MAX_VALUE;
+        BitArrayFactory factory = this.bitArrayFactory;
+        if (factory == null) {
+            factory = wide ? DirectBitArray::new : AtomicBitArray::new;
+        }
+
+        BloomFilter<T> filter = new BloomFilter<>(capacity, sliceProbability, this.customDecomposer,
+                wide ? this.wideHasher : this.hasher, factory);
+        return new Slice<>(filter, capacity, sliceProbability, wide && this.wideHasher != this.hasher);
+    }
+
+    /**
+     * Add the given byte array to the bloom filter
+     *
+     * @param bytes the byte array to be added to the bloom filter, cannot be null
+     * @return <code>true</code> if the value was added to the bloom filter,
+     * <code>false</code> if it was already contained
+     * @throws IllegalArgumentException if the byte array is <code>null</code>
+     */
+    public boolean add(byte[] bytes) {
+        checkBytes(bytes);
+        return probe(this.slices, bytes, null, true);
+    }
+
+    /**
+     * Check if the given byte array item exists in the bloom filter
+     *
+     * @param bytes the byte array to be tested for existence in the bloom filter,
+     *              cannot be null
+     * @return <code>true</code> if the value exists in the bloom filter,
+     * <code>false</code> otherwise
+     * @throws IllegalArgumentException if the byte array is <code>null</code>
+     */
+    public boolean contains(byte[] bytes) {
+        checkBytes(bytes);
+        return probe(this.slices, bytes, null, false);
+    }
+
+    /**
+     * Add the given value to the bloom filter.
+     *
+     * @param value the value to be added
+     * @return <code>true</code> if the value was added to the bloom filter,
+     * <code>false</code> if it was already contained or is <code>null</code>
+     */
+    public boolean add(T value) {
+        if (value == null) {
+            return false;
+        }
+
+        Slice<T>[] current = this.slices;
+        return probe(current, null, current[0].filter.decomposedValue(value), true);
+    }
+
+    /**
+     * Check if the given value exists in the bloom filter. Note that this
+     * method may return <code>true</code>, indicating a false positive - but
+     * this is the property of the bloom filter and is not a bug.
+     *
+     * @return <code>false</code> if the value is definitely (100% surety) not
+     * contained in the bloom filter, <code>true</code> otherwise.
+     */
+    public boolean contains(T value) {
+        if (value == null) {
+            return false;
+        }
+
+        Slice<T>[] current = this.slices;
+        return probe(current, null, current[0].filter.decomposedValue(value), false);
+    }
+
+    /**
+     * Hash a value, given either as bytes or as a decomposed sink, then add
+     * it to the slices or check it against them. The value is hashed with
+     * the wide hash function as well only when the newest slice uses it: the
+     * slices never shrink, so the wide slices are always the newest ones.
+     */
+    private boolean probe(Slice<T>[] current, byte[] bytes, ByteSink sink, boolean add) {
+        long hash1;
+        long hash2;
+        long wideHash1 = 0;
+        long wideHash2 = 0;
+        if (this.hasher.isSingleValued()) {
+            long hash64 = bytes != null ? this.hasher.hash(bytes) : sink.hash(this.hasher);
+            hash1 = (int) hash64;
+            hash2 = (int) (hash64 >>> 32);
+            if (current[current.length - 1].wide) {
+                long[] wideHashes = bytes != null ? BloomFilter.hashMultiple(this.wideHasher, bytes) : sink.hashMultiple(this.wideHasher);
+                wideHash1 = wideHashes[0];
+                wideHash2 = wideHashes[1];
+            }
+        } else {
+            long[] hashes = bytes != null ? BloomFilter.hashMultiple(this.hasher, bytes) : sink.hashMultiple(this.hasher);
+            hash1 = wideHash1 = hashes[0];
+            hash2 = wideHash2 = hashes[1];
+        }
+
+        if (!add) {
+            return contains(current, hash1, hash2, wideHash1, wideHash2);
+        }
+        return add(current, hash1, hash2, wideHash1, wideHash2);
+    }
+
+    /**
+     * Add a hashed value to the newest slice, unless some slice already
+     * contains it. Values already contained are not counted, so that the
+     * number of values in a slice is not inflated by duplicates.
+     */
+    private boolean add(Slice<T>[] current, long hash1, long hash2, long wideHash1, long wideHash2) {
+        if (contains(current, hash1, hash2, wideHash1, wideHash2)) {
+            return false;
+        }
+
+        Slice<T> newest = current[current.length - 1];
+        boolean changed = newest.wide ? newest.filter.setBits(wideHash1, wideHash2) : newest.filter.setBits(hash1, hash2);
+        if (!changed) {
+            return false;
+        }
+
+        if (newest.count.incrementAndGet() >= newest.capacity) {
+            grow(current);
+        }
+        return true;
+    }
+
+    private boolean contains(Slice<T>[] current, long hash1, long hash2, long wideHash1, long wideHash2) {
+        for (int i = current.length - 1; i >= 0; i--) {
+            Slice<T> slice = current[i];
+            if (slice.wide ? slice.filter.testBits(wideHash1, wideHash2) : slice.filter.testBits(hash1, hash2)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Add a new slice, unless another thread already did so since the given
+     * slices were read.
+     */
+    private synchronized void grow(Slice<T>[] seen) {
+        if (this.slices != seen) {
+            return;
+        }
+
+        Slice<T> newest = seen[seen.length - 1];
+        // the slice is allocated before it is published, a failure leaves the filter as it was
+        Slice<T>[] grown = Arrays.copyOf(seen, seen.length + 1);
+        grown[seen.length] = newSlice(newest.capacity * this.growthFactor, newest.falsePositiveProbability * this.tighteningRatio);
+        this.slices = grown;
+    }
+
+    /**
+     * Get the number of slices the filter is made of.
+     *
+     * @return the number of slices
+     */
+    public int getSliceCount() {
+        return this.slices.length;
+    }
+
+    /**
+     * Get the number of distinct values added to the filter. Values that were
+     * reported as already contained, possibly false positives, are not counted.
+     *
+     * @return the number of values added
+     */
+    public long getCount() {
+        long count = 0;
+        for (Slice<T> slice : this.slices) {
+            count += slice.count.get();
+        }
+        return count;
+    }
+
+    /**
+     * Compute the max false positive probability of the filter with its
+     * current slices, once all of them are full.
+     *
+     * @return the compound false positive probability
+     */
+    public double getFalsePositiveProbability() {
+        double notFalsePositive = 1;
+        for (Slice<T> slice : this.slices) {
+            notFalsePositive *= 1 - slice.falsePositiveProbability;
+        }
+        return 1 - notFalsePositive;
+    }
+
+    /**
+     * Release the bit arrays of all the slices.
+     *
+     * @throws IOException if any bit array cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        for (Slice<T> slice : this.slices) {
+            slice.filter.close();
+        }
+    }
+
+    private static void checkBytes(byte[] bytes) {
+        if (bytes == null) {
+            throw new IllegalArgumentException("Bytes to add to bloom filter cannot be null");
+        }
+    }
+
+    /**
+     * A slice of the filter along with its sizing and the number of values
+     * it received.
+     */
+    private static final class Slice<T> {
+
+        final BloomFilter<T> filter;
+
+        final long capacity;
+
+        final double falsePositiveProbability;
+
+        /**
+         * Whether the slice hashes with the wide hash function instead of the
+         * one of the filter
+         */
+        final boolean wide;
+
+        final AtomicLong count = new AtomicLong();
+
+        Slice(BloomFilter<T> filter, long capacity, double falsePositiveProbability, boolean wide) {
+            this.filter = filter;
+            this.capacity = capacity;
+            this.falsePositiveProbability = falsePositiveProbability;
+            this.wide = wide;
+        }
+    }
+}
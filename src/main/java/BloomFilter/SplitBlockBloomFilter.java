@@ -0,0 +1,224 @@
+package BloomFilter;
+
+import BloomFilter.core.AtomicBitArray;
+import BloomFilter.decompose.Decomposer;
+
+/**
+ * A split-block bloom filter, the design used by Parquet and Impala. The bits
+ * are split into 256-bit blocks of eight 32-bit lanes. A key selects one block
+ * from the first hash, then sets exactly one bit in each lane, chosen from
+ * the second hash multiplied by a per-lane salt. The number of hash functions
+ * is therefore always 8.
+ * <p>
+ * When the project is built with the <code>vector</code> Maven profile and the
+ * JVM is started with <code>--add-modules jdk.incubator.vector</code>, the
+ * eight probes of a key are tested with one vector compare. Otherwise an
+ * equivalent scalar implementation is used.
+ * <p>
+ * The bits are held in an {@link AtomicBitArray}, so the filter can be shared
+ * between threads.
+ *
+ * @param <T> the type of objects to be stored in the filter
+ */
+public class SplitBlockBloomFilter<T> extends BloomFilter<T> {
+
+    /**
+     * Number of bits in a block
+     */
+    public static final int BLOCK_BITS = 256;
+
+    /**
+     * Number of bits set per key
+     */
+    public static final int NUM_HASH_FUNCTIONS = SplitBlockKernel.SALTS.length;
+
+    /**
+     * Name of the class implementing the vectorized kernel
+     */
+    private static final String VECTOR_KERNEL = "BloomFilter.VectorSplitBlockKernel";
+
+    /**
+     * The kernel shared by all the filters
+     */
+    private static final SplitBlockKernel KERNEL = loadKernel();
+
+    /**
+     * The bits of the filter
+     */
+    protected final AtomicBitArray blocks;
+
+    /**
+     * The words of the filter, four per block
+     */
+    protected final long[] words;
+
+    /**
+     * Number of blocks in the filter
+     */
+    protected final int numBlocks;
+
+    /**
+     * Create a new split-block bloom filter.
+     *
+     * @param expectedInsertions       the number of max expected insertions
+     * @param falsePositiveProbability the max false positive probability rate that the bloom filter
+     *                                 can give
+     */
+    public SplitBlockBloomFilter(long expectedInsertions, double falsePositiveProbability) {
+        this(expectedInsertions, falsePositiveProbability, null, null);
+    }
+
+    /**
+     * Create a new split-block bloom filter.
+     *
+     * @param expectedInsertions       the number of max expected insertions
+     * @param falsePositiveProbability the max false positive probability rate that the bloom filter
+     *                                 can give
+     * @param decomposer               a {@link Decomposer} that helps decompose the given object
+     * @param hasher                   the hash function to use, <code>null</code> for the default
+     */
+    protected SplitBlockBloomFilter(long expectedInsertions, double falsePositiveProbability, Decomposer<T> decomposer,
+                                    HashFunction hasher) {
+        this(optimalBlockCount(expectedInsertions, falsePositiveProbability), decomposer, hasher);
+    }
+
+    /**
+     * Create a new split-block bloom filter with an explicit number of blocks.
+     *
+     * @param numBlocks  the number of blocks in the filter
+     * @param decomposer a {@link Decomposer} that helps decompose the given object
+     * @param hasher     the hash function to use, <code>null</code> for the default
+     */
+    protected SplitBlockBloomFilter(long numBlocks, Decomposer<T> decomposer, HashFunction hasher) {
+        super(numBlocks * BLOCK_BITS, NUM_HASH_FUNCTIONS, decomposer, hasher, AtomicBitArray::new);
+
+        this.blocks = (AtomicBitArray) this.bitArray;
+        this.words = this.blocks.words();
+        this.numBlocks = (int) (this.numBitsRequired / BLOCK_BITS);
+    }
+
+    /**
+     * Compute the number of blocks needed to stay under the given false
+     * positive probability. Split-block filters need somewhat more bits than a
+     * standard bloom filter, so the standard size is grown until the estimate
+     * of {@link #falsePositiveProbability(double, double)} is low enough.
+     *
+     * @param n the number of expected insertions
+     * @param p the maximum false positive rate expected
+     * @return the number of blocks for the filter
+     */
+    public static long optimalBlockCount(final double n, final double p) {
+        double numBits = Math.max(BLOCK_BITS, optimalBitSizeOrM(n, p));
+        while (falsePositiveProbability(n, numBits) > p) {
+            numBits *= 1.02;
+        }
+
+        long numBlocks = (long) Math.ceil(numBits / BLOCK_BITS);
+        if (numBlocks > (Integer.MAX_VALUE - 8) / (BLOCK_BITS / Long.SIZE)) {
+            throw new IllegalArgumentException("Too many blocks for a split-block bloom filter: " + numBlocks);
+        }
+
+        return numBlocks;
+    }
+
+    /**
+     * Estimate the false positive probability of a split-block bloom filter.
+     * The number of keys per block follows a Poisson distribution, and each
+     * key sets one bit in each of the eight 32-bit lanes of its block.
+     *
+     * @param n the number of inserted keys
+     * @param m the number of bits in the filter
+     * @return the expected false positive probability
+     */
+    public static double falsePositiveProbability(final double n, final double m) {
+        final double lambda = n * BLOCK_BITS / m;
+        final int maxKeys = (int) (lambda + 20 * Math.sqrt(lambda) + 50);
+
+        double poisson = Math.exp(-lambda);
+        double probability = 0;
+        for (int keys = 0; keys <= maxKeys; keys++) {
+            if (keys > 0) {
+                poisson *= lambda / keys;
+            }
+            probability += poisson * Math.pow(1 - Math.pow(1 - 1.0 / Integer.SIZE, keys), NUM_HASH_FUNCTIONS);
+        }
+
+        return probability;
+    }
+
+    /**
+     * Check whether the vectorized kernel is in use.
+     *
+     * @return <code>true</code> if the probes use the Vector API,
+     * <code>false</code> if they use the scalar fallback
+     */
+    public static boolean isVectorized() {
+        return !(KERNEL instanceof ScalarKernel);
+    }
+
+    private static SplitBlockKernel loadKernel() {
+        try {
+            return (SplitBlockKernel) Class.forName(VECTOR_KERNEL).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError | UnsupportedOperationException e) {
+            return new ScalarKernel();
+        }
+    }
+
+    @Override
+    protected boolean setBits(long hash1, long hash2) {
+        int wordIndex = (int) Math.floorMod(hash1, (long) this.numBlocks) << 2;
+        return KERNEL.set(this.blocks, wordIndex, (int) hash2);
+    }
+
+    @Override
+    protected boolean testBits(long hash1, long hash2) {
+        int wordIndex = (int) Math.floorMod(hash1, (long) this.numBlocks) << 2;
+        return KERNEL.test(this.words, wordIndex, (int) hash2);
+    }
+
+    @Override
+    int formatVariant() {
+        return FilterFormat.SPLIT_BLOCK;
+    }
+
+    @Override
+    protected long bitIndex(long hash1, long hash2, int i) {
+        long blockStart = Math.floorMod(hash1, (long) this.numBlocks) * BLOCK_BITS;
+        return blockStart + i * Integer.SIZE + (((int) hash2 * SplitBlockKernel.SALTS[i]) >>> 27);
+    }
+
+    /**
+     * The scalar {@link SplitBlockKernel}, used when the Vector API is not
+     * available. The masks of two lanes are combined in one <code>long</code>.
+     */
+    private static final class ScalarKernel implements SplitBlockKernel {
+
+        private static long mask(int key, int word) {
+            int low = 1 << ((key * SALTS[word << 1]) >>> 27);
+            int high = 1 << ((key * SALTS[(word << 1) + 1]) >>> 27);
+            return (low & 0xFFFFFFFFL) | ((long) high << 32);
+        }
+
+        @Override
+        public boolean set(AtomicBitArray bits, int wordIndex, int key) {
+            boolean bitsChanged = false;
+            for (int i = 0; i < 4; i++) {
+                bitsChanged |= bits.orWord(wordIndex + i, mask(key, i));
+            }
+
+            return bitsChanged;
+        }
+
+        @Override
+        public boolean test(long[] words, int wordIndex, int key) {
+            for (int i = 0; i < 4; i++) {
+                long mask = mask(key, i);
+                if ((words[wordIndex + i] & mask) != mask) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+    }
+}
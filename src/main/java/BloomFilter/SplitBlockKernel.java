@@ -0,0 +1,41 @@
+package BloomFilter;
+
+import BloomFilter.core.AtomicBitArray;
+
+/**
+ * The insert and probe operations of a {@link SplitBlockBloomFilter} on a
+ * single 256-bit block. A block is made of eight 32-bit lanes, stored as four
+ * <code>long</code> words where lane <code>2j</code> is the low half of word
+ * <code>j</code>. Each key sets one bit in every lane, chosen from the key
+ * multiplied by the salt of the lane.
+ */
+interface SplitBlockKernel {
+
+    /**
+     * The salts of the eight lanes, as used by Parquet and Impala
+     */
+    int[] SALTS = {
+            0x47B6137B, 0x44974D91, 0x8824AD5B, 0xA2B7289D,
+            0x705495C7, 0x2DF1424B, 0x9EFC4947, 0x5C6BFB31
+    };
+
+    /**
+     * Set the eight bits of the key in the block.
+     *
+     * @param bits      the bits of the filter
+     * @param wordIndex the index of the first word of the block
+     * @param key       the 32-bit key derived from the hash
+     * @return <code>true</code> if any bit changed, <code>false</code> otherwise
+     */
+    boolean set(AtomicBitArray bits, int wordIndex, int key);
+
+    /**
+     * Check the eight bits of the key in the block.
+     *
+     * @param words     the words of the filter
+     * @param wordIndex the index of the first word of the block
+     * @param key       the 32-bit key derived from the hash
+     * @return <code>true</code> if all the bits are set, <code>false</code> otherwise
+     */
+    boolean test(long[] words, int wordIndex, int key);
+}
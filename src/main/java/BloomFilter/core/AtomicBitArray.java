@@ -0,0 +1,163 @@
+package BloomFilter.core;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * A thread-safe {@link BitArray} implementation backed by a plain
+ * <code>long[]</code> word array. Bits are set using compare-and-set on the
+ * containing word and read using plain loads, so that many threads can add
+ * to and query the same bloom filter without any external locking.
+ */
+public class AtomicBitArray implements BitArray {
+
+    /**
+     * Handle used to perform atomic operations on the elements of the word array
+     */
+    private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    /**
+     * The words holding the bits
+     */
+    final long[] words;
+
+    /**
+     * Number of bits available in this array
+     */
+    final long size;
+
+    public AtomicBitArray(long numBits) {
+        if (numBits < 0) {
+            throw new IllegalArgumentException("Number of bits cannot be negative");
+        }
+
+        long numWords = (numBits + Long.SIZE - 1) >>> 6;
+        if (numWords > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Too many bits for an on-heap word array: " + numBits);
+        }
+
+        this.words = new long[(int) numWords];
+        this.size = numWords * Long.SIZE;
+    }
+
+    @Override
+    public boolean getBit(long index) {
+        return (this.words[(int) (index >>> 6)] & (1L << index)) != 0;
+    }
+
+    @Override
+    public boolean setBit(long index) {
+        final int wordIndex = (int) (index >>> 6);
+        final long mask = 1L << index;
+
+        long word = this.words[wordIndex];
+        while ((word & mask) == 0) {
+            long witness = (long) WORDS.compareAndExchange(this.words, wordIndex, word, word | mask);
+            if (witness == word) {
+                return true;
+            }
+            word = witness;
+        }
+
+        return false;
+    }
+
+    /**
+     * Atomically set the bits of the given mask in the word at the given
+     * index.
+     *
+     * @param wordIndex the index of the word in the array
+     * @param mask      the bits to set
+     * @return <code>true</code> if any bit was updated, <code>false</code>
+     * otherwise.
+     */
+    public boolean orWord(int wordIndex, long mask) {
+        long word = this.words[wordIndex];
+        while ((word & mask) != mask) {
+            long witness = (long) WORDS.compareAndExchange(this.words, wordIndex, word, word | mask);
+            if (witness == word) {
+                return true;
+            }
+            word = witness;
+        }
+
+        return false;
+    }
+
+    @Override
+    public long getWord(long wordIndex) {
+        return this.words[(int) wordIndex];
+    }
+
+    @Override
+    public boolean orWord(long wordIndex, long mask) {
+        return orWord((int) wordIndex, mask);
+    }
+
+    @Override
+    public boolean andWord(long wordIndex, long mask) {
+        final int index = (int) wordIndex;
+
+        long word = this.words[index];
+        while ((word & ~mask) != 0) {
+            long witness = (long) WORDS.compareAndExchange(this.words, index, word, word & mask);
+            if (witness == word) {
+                return true;
+            }
+            word = witness;
+        }
+
+        return false;
+    }
+
+    @Override
+    public long cardinality() {
+        long cardinality = 0;
+        for (long word : this.words) {
+            cardinality += Long.bitCount(word);
+        }
+
+        return cardinality;
+    }
+
+    /**
+     * Get the backing word array, for filters that read several words at
+     * once. Bit <code>i</code> is stored in word <code>i / 64</code> at
+     * position <code>i % 64</code>. The words must only be updated through
+     * the methods of this array.
+     *
+     * @return the backing word array
+     */
+    public long[] words() {
+        return this.words;
+    }
+
+    @Override
+    public long bitSize() {
+        return this.size;
+    }
+
+    @Override
+    public long wordCount() {
+        return this.words.length;
+    }
+
+    @Override
+    public void writeWords(WritableByteChannel channel) throws IOException {
+        Words.write(this.words, channel);
+    }
+
+    @Override
+    public void readWords(ReadableByteChannel channel) throws IOException {
+        Words.read(this.words, channel);
+    }
+
+    @Override
+    public void close() throws IOException {
+        // do nothing
+    }
+
+}
@@ -1,6 +1,11 @@
 package BloomFilter.core;
 
 import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 
 public interface BitArray extends Closeable {
 
@@ -10,7 +15,7 @@ public interface BitArray extends Closeable {
      * @param index the index of the bit in the array
      * @return <code>true<code> if the but is set, <code>false</code> otherwise
      */
-    public boolean getBit(int index);
+    public boolean getBit(long index);
 
     /**
      * Set the bit at index
@@ -19,12 +24,148 @@ public interface BitArray extends Closeable {
      * @return <code>true</code> if the bit was updated, <code>false</code>
      * otherwise.
      */
-    public boolean setBit(int index);
+    public boolean setBit(long index);
 
     /**
-     * The space used by this {@link BitArray} in number of bytes.
+     * The space used by this {@link BitArray} in number of bits.
      *
-     * @return the number of bytes being used
+     * @return the number of bits being used
      */
-    public int bitSize();
-}
\ No newline at end of file
+    public long bitSize();
+
+    /**
+     * Get the word at index, bit <code>i</code> of the array being stored in
+     * word <code>i / 64</code> at position <code>i % 64</code>.
+     * <p>
+     * This default implementation reads the word bit by bit.
+     *
+     * @param wordIndex the index of the word
+     * @return the word
+     */
+    public default long getWord(long wordIndex) {
+        final long numBits = bitSize();
+        long word = 0;
+        for (int bit = 0; bit < Long.SIZE && (wordIndex << 6) + bit < numBits; bit++) {
+            if (getBit((wordIndex << 6) + bit)) {
+                word |= 1L << bit;
+            }
+        }
+
+        return word;
+    }
+
+    /**
+     * Set the bits of the given mask in the word at index.
+     * <p>
+     * This default implementation sets the word bit by bit.
+     *
+     * @param wordIndex the index of the word
+     * @param mask      the bits to set
+     * @return <code>true</code> if any bit was updated, <code>false</code>
+     * otherwise.
+     */
+    public default boolean orWord(long wordIndex, long mask) {
+        boolean bitsChanged = false;
+        while (mask != 0) {
+            bitsChanged |= setBit((wordIndex << 6) + Long.numberOfTrailingZeros(mask));
+            mask &= mask - 1;
+        }
+
+        return bitsChanged;
+    }
+
+    /**
+     * Clear the bits that are not in the given mask in the word at index.
+     * This default implementation does not support clearing bits.
+     *
+     * @param wordIndex the index of the word
+     * @param mask      the bits to keep
+     * @return <code>true</code> if any bit was updated, <code>false</code>
+     * otherwise.
+     * @throws UnsupportedOperationException if the array cannot clear bits
+     */
+    public default boolean andWord(long wordIndex, long mask) {
+        throw new UnsupportedOperationException(getClass().getName() + " cannot clear bits");
+    }
+
+    /**
+     * Count the bits that are set.
+     *
+     * @return the number of bits set
+     */
+    public default long cardinality() {
+        long cardinality = 0;
+        final long numWords = wordCount();
+        for (long wordIndex = 0; wordIndex < numWords; wordIndex++) {
+            cardinality += Long.bitCount(getWord(wordIndex));
+        }
+
+        return cardinality;
+    }
+
+    /**
+     * The number of 64-bit words written by {@link #writeWords(WritableByteChannel)}.
+     *
+     * @return the number of words backing the array
+     */
+    public default long wordCount() {
+        return (bitSize() + Long.SIZE - 1) >>> 6;
+    }
+
+    /**
+     * Write the words backing this array to the given channel, as
+     * little-endian longs. Bit <code>i</code> is stored in word
+     * <code>i / 64</code> at position <code>i % 64</code>.
+     * <p>
+     * This default implementation reads the array bit by bit, the arrays of
+     * this package write their words in bulk.
+     *
+     * @param channel the channel to write to
+     * @throws IOException if the words cannot be written
+     */
+    public default void writeWords(WritableByteChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8192).order(ByteOrder.LITTLE_ENDIAN);
+        final long numWords = wordCount();
+        final long numBits = bitSize();
+        for (long wordIndex = 0; wordIndex < numWords; wordIndex++) {
+            long word = 0;
+            for (int bit = 0; bit < Long.SIZE && (wordIndex << 6) + bit < numBits; bit++) {
+                if (getBit((wordIndex << 6) + bit)) {
+                    word |= 1L << bit;
+                }
+            }
+
+            buffer.putLong(word);
+            if (!buffer.hasRemaining() || wordIndex == numWords - 1) {
+                buffer.flip();
+                Words.writeFully(channel, buffer);
+                buffer.clear();
+            }
+        }
+    }
+
+    /**
+     * Read the words backing this array from the given channel, in the format
+     * of {@link #writeWords(WritableByteChannel)}. The array is expected to
+     * be empty, bits it already holds may or may not be kept.
+     * <p>
+     * This default implementation sets the array bit by bit, the arrays of
+     * this package read their words in bulk.
+     *
+     * @param channel the channel to read from
+     * @throws IOException if the words cannot be read
+     */
+    public default void readWords(ReadableByteChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        final long numWords = wordCount();
+        for (long wordIndex = 0; wordIndex < numWords; wordIndex++) {
+            buffer.clear();
+            Words.readFully(channel, buffer);
+            long word = buffer.getLong(0);
+            while (word != 0) {
+                setBit((wordIndex << 6) + Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package BloomFilter.core;
+
+/**
+ * Contract for creating the {@link BitArray} that backs a bloom filter. This
+ * allows the caller to select the storage implementation, for example
+ * <code>AtomicBitArray::new</code> for a filter that is shared between
+ * threads.
+ */
+@FunctionalInterface
+public interface BitArrayFactory {
+
+    /**
+     * Create a new {@link BitArray} instance for the given number of bits.
+     *
+     * @param numBits the number of required bits in the underlying array
+     * @return the {@link BitArray} implementation to be used
+     */
+    public BitArray create(long numBits);
+}
@@ -0,0 +1,188 @@
+package BloomFilter.core;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Word-parallel operations over whole {@link BitArray}s. The arrays are
+ * processed 64 bits at a time, and arrays of more than
+ * {@link #PARALLEL_THRESHOLD_WORDS} words are split in ranges that are
+ * processed by the common {@link ForkJoinPool}. Only the thread-safe arrays,
+ * {@link AtomicBitArray} and {@link ByteBufferBitArray}, are updated in
+ * parallel.
+ */
+public final class BitArrays {
+
+    /**
+     * Number of words under which a range is processed by a single thread,
+     * 512 KiB of bits
+     */
+    public static final int PARALLEL_THRESHOLD_WORDS = 1 << 16;
+
+    private BitArrays() {
+    }
+
+    /**
+     * Set in the target all the bits that are set in the source.
+     *
+     * @param target the array to update
+     * @param source the array to read
+     * @throws IllegalArgumentException if the arrays do not have the same size
+     */
+    public static void or(BitArray target, BitArray source) {
+        checkSameSize(target, source);
+
+        if (target instanceof JavaBitSetArray && source instanceof JavaBitSetArray) {
+            ((JavaBitSetArray) target).bitSet.or(((JavaBitSetArray) source).bitSet);
+            return;
+        }
+
+        apply(target, source, false);
+    }
+
+    /**
+     * Clear in the target all the bits that are not set in the source.
+     *
+     * @param target the array to update
+     * @param source the array to read
+     * @throws IllegalArgumentException      if the arrays do not have the same size
+     * @throws UnsupportedOperationException if the target cannot clear bits
+     */
+    public static void and(BitArray target, BitArray source) {
+        checkSameSize(target, source);
+
+        if (target instanceof JavaBitSetArray && source instanceof JavaBitSetArray) {
+            ((JavaBitSetArray) target).bitSet.and(((JavaBitSetArray) source).bitSet);
+            return;
+        }
+
+        apply(target, source, true);
+    }
+
+    /**
+     * Count the bits that are set in the given array, in parallel for large
+     * arrays.
+     *
+     * @param array the array
+     * @return the number of bits set
+     */
+    public static long cardinality(BitArray array) {
+        final long numWords = array.wordCount();
+        if (numWords <= PARALLEL_THRESHOLD_WORDS || !isThreadSafe(array)) {
+            return array.cardinality();
+        }
+
+        return ForkJoinPool.commonPool().invoke(new CardinalityTask(array, 0, numWords));
+    }
+
+    private static void apply(BitArray target, BitArray source, boolean and) {
+        final long numWords = target.wordCount();
+        if (numWords <= PARALLEL_THRESHOLD_WORDS || !isThreadSafe(target)) {
+            combine(target, source, and, 0, numWords);
+            return;
+        }
+
+        ForkJoinPool.commonPool().invoke(new CombineTask(target, source, and, 0, numWords));
+    }
+
+    private static void combine(BitArray target, BitArray source, boolean and, long from, long to) {
+        for (long wordIndex = from; wordIndex < to; wordIndex++) {
+            long word = source.getWord(wordIndex);
+            if (and) {
+                if (word != -1L) {
+                    target.andWord(wordIndex, word);
+                }
+            } else if (word != 0) {
+                target.orWord(wordIndex, word);
+            }
+        }
+    }
+
+    private static boolean isThreadSafe(BitArray array) {
+        return array instanceof AtomicBitArray || array instanceof ByteBufferBitArray;
+    }
+
+    private static void checkSameSize(BitArray target, BitArray source) {
+        if (target.bitSize() != source.bitSize() || target.wordCount() != source.wordCount()) {
+            throw new IllegalArgumentException("Bit arrays of " + target.bitSize() + " and " + source.bitSize()
+                    + " bits cannot be combined");
+        }
+    }
+
+    /**
+     * Combine a range of words, splitting it in halves until it is small
+     * enough.
+     */
+    private static final class CombineTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final BitArray target;
+
+        private final BitArray source;
+
+        private final boolean and;
+
+        private final long from;
+
+        private final long to;
+
+        CombineTask(BitArray target, BitArray source, boolean and, long from, long to) {
+            this.target = target;
+            this.source = source;
+            this.and = and;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from <= PARALLEL_THRESHOLD_WORDS) {
+                combine(this.target, this.source, this.and, this.from, this.to);
+                return;
+            }
+
+            long middle = (this.from + this.to) >>> 1;
+            invokeAll(new CombineTask(this.target, this.source, this.and, this.from, middle),
+                    new CombineTask(this.target, this.source, this.and, middle, this.to));
+        }
+    }
+
+    /**
+     * Count the bits set in a range of words, splitting it in halves until it
+     * is small enough.
+     */
+    private static final class CardinalityTask extends RecursiveTask<Long> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final BitArray array;
+
+        private final long from;
+
+        private final long to;
+
+        CardinalityTask(BitArray array, long from, long to) {
+            this.array = array;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Long compute() {
+            if (this.to - this.from <= PARALLEL_THRESHOLD_WORDS) {
+                long cardinality = 0;
+                for (long wordIndex = this.from; wordIndex < this.to; wordIndex++) {
+                    cardinality += Long.bitCount(this.array.getWord(wordIndex));
+                }
+                return cardinality;
+            }
+
+            long middle = (this.from + this.to) >>> 1;
+            CardinalityTask low = new CardinalityTask(this.array, this.from, middle);
+            low.fork();
+            return new CardinalityTask(this.array, middle, this.to).compute() + low.join();
+        }
+    }
+}
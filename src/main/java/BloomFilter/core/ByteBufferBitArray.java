@@ -0,0 +1,208 @@
+package BloomFilter.core;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * A {@link BitArray} that stores its words inside a set of
+ * {@link ByteBuffer} chunks. A single buffer can hold at most 2^31 bytes, so
+ * the bits are spread across chunks of {@link #CHUNK_BYTES} bytes each which
+ * lets the array go well past 2^31 bits.
+ * Words are stored in little-endian order so that the layout does not depend
+ * on the platform. Bits are set using compare-and-set on the containing word,
+ * which makes the array safe to share between threads.
+ */
+public abstract class ByteBufferBitArray implements BitArray {
+
+    /**
+     * Number of words held by each chunk, as a power of two
+     */
+    protected static final int CHUNK_WORDS_SHIFT = 27;
+
+    /**
+     * Number of bytes held by each chunk, 1 GiB
+     */
+    public static final long CHUNK_BYTES = (1L << CHUNK_WORDS_SHIFT) * Long.BYTES;
+
+    /**
+     * Mask to get the index of a word inside its chunk
+     */
+    private static final long CHUNK_WORDS_MASK = (1L << CHUNK_WORDS_SHIFT) - 1;
+
+    /**
+     * Handle used to perform atomic operations on the words of a chunk
+     */
+    private static final VarHandle WORDS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * The chunks holding the bits
+     */
+    protected final ByteBuffer[] chunks;
+
+    /**
+     * Number of bits available in this array
+     */
+    protected final long size;
+
+    /**
+     * Create a new array over the given chunks. Every chunk but the last must
+     * hold exactly {@link #CHUNK_BYTES} bytes.
+     *
+     * @param chunks  the buffers that hold the words
+     * @param numBits the number of bits stored across the chunks
+     */
+    protected ByteBufferBitArray(ByteBuffer[] chunks, long numBits) {
+        this.chunks = chunks;
+        this.size = numBits;
+    }
+
+    /**
+     * Compute the number of bytes needed to store the given number of bits as
+     * whole words.
+     *
+     * @param numBits the number of bits
+     * @return the number of bytes needed
+     */
+    protected static long byteSize(long numBits) {
+        if (numBits < 0) {
+            throw new IllegalArgumentException("Number of bits cannot be negative");
+        }
+
+        return ((numBits + Long.SIZE - 1) >>> 6) * Long.BYTES;
+    }
+
+    /**
+     * Compute the number of chunks needed to store the given number of bytes.
+     *
+     * @param numBytes the number of bytes
+     * @return the number of chunks needed
+     */
+    protected static int chunkCount(long numBytes) {
+        return (int) ((numBytes + CHUNK_BYTES - 1) / CHUNK_BYTES);
+    }
+
+    /**
+     * Compute the size of the chunk at the given position.
+     *
+     * @param numBytes   the total number of bytes
+     * @param chunkIndex the position of the chunk
+     * @return the number of bytes held by the chunk
+     */
+    protected static int chunkSize(long numBytes, int chunkIndex) {
+        return (int) Math.min(CHUNK_BYTES, numBytes - chunkIndex * CHUNK_BYTES);
+    }
+
+    @Override
+    public boolean getBit(long index) {
+        final long wordIndex = index >>> 6;
+        final ByteBuffer chunk = this.chunks[(int) (wordIndex >>> CHUNK_WORDS_SHIFT)];
+        final int offset = (int) (wordIndex & CHUNK_WORDS_MASK) << 3;
+
+        return ((long) WORDS.get(chunk, offset) & (1L << index)) != 0;
+    }
+
+    @Override
+    public boolean setBit(long index) {
+        final long wordIndex = index >>> 6;
+        final ByteBuffer chunk = this.chunks[(int) (wordIndex >>> CHUNK_WORDS_SHIFT)];
+        final int offset = (int) (wordIndex & CHUNK_WORDS_MASK) << 3;
+        final long mask = 1L << index;
+
+        long word = (long) WORDS.get(chunk, offset);
+        while ((word & mask) == 0) {
+            long witness = (long) WORDS.compareAndExchange(chunk, offset, word, word | mask);
+            if (witness == word) {
+                return true;
+            }
+            word = witness;
+        }
+
+        return false;
+    }
+
+    @Override
+    public long getWord(long wordIndex) {
+        final ByteBuffer chunk = this.chunks[(int) (wordIndex >>> CHUNK_WORDS_SHIFT)];
+        return (long) WORDS.get(chunk, (int) (wordIndex & CHUNK_WORDS_MASK) << 3);
+    }
+
+    @Override
+    public boolean orWord(long wordIndex, long mask) {
+        final ByteBuffer chunk = this.chunks[(int) (wordIndex >>> CHUNK_WORDS_SHIFT)];
+        final int offset = (int) (wordIndex & CHUNK_WORDS_MASK) << 3;
+
+        long word = (long) WORDS.get(chunk, offset);
+        while ((word & mask) != mask) {
+            long witness = (long) WORDS.compareAndExchange(chunk, offset, word, word | mask);
+            if (witness == word) {
+                return true;
+            }
+            word = witness;
+        }
+
+        return false;
+    }
+
+    @Override
+    public boolean andWord(long wordIndex, long mask) {
+        final ByteBuffer chunk = this.chunks[(int) (wordIndex >>> CHUNK_WORDS_SHIFT)];
+        final int offset = (int) (wordIndex & CHUNK_WORDS_MASK) << 3;
+
+        long word = (long) WORDS.get(chunk, offset);
+        while ((word & ~mask) != 0) {
+            long witness = (long) WORDS.compareAndExchange(chunk, offset, word, word & mask);
+            if (witness == word) {
+                return true;
+            }
+            word = witness;
+        }
+
+        return false;
+    }
+
+    @Override
+    public long bitSize() {
+        return this.size;
+    }
+
+    @Override
+    public long wordCount() {
+        long numBytes = 0;
+        for (ByteBuffer chunk : this.chunks) {
+            numBytes += chunk.capacity();
+        }
+
+        return numBytes / Long.BYTES;
+    }
+
+    /**
+     * Write the chunks as they are, they already hold little-endian words.
+     */
+    @Override
+    public void writeWords(WritableByteChannel channel) throws IOException {
+        for (ByteBuffer chunk : this.chunks) {
+            Words.writeFully(channel, chunk.duplicate().clear());
+        }
+    }
+
+    /**
+     * Read the words straight into the chunks.
+     */
+    @Override
+    public void readWords(ReadableByteChannel channel) throws IOException {
+        for (ByteBuffer chunk : this.chunks) {
+            Words.readFully(channel, chunk.duplicate().clear());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        // do nothing
+    }
+
+}
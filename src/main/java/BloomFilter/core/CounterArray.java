@@ -0,0 +1,61 @@
+package BloomFilter.core;
+
+/**
+ * A {@link BitArray} made of small counters instead of bits, for bloom
+ * filters that support removal. A bit is considered set when its counter is
+ * not zero, and setting a bit increments its counter.
+ * <p>
+ * Counters saturate at {@link #maxCount()}: a saturated counter is never
+ * incremented nor decremented again, as its true count is unknown and
+ * decrementing it could make other values disappear from the filter.
+ */
+public interface CounterArray extends BitArray {
+
+    /**
+     * Get the counter at index
+     *
+     * @param index the index of the counter in the array
+     * @return the value of the counter
+     */
+    public int getCount(long index);
+
+    /**
+     * Increment the counter at index, unless it is saturated.
+     *
+     * @param index the index of the counter in the array
+     * @return <code>true</code> if the counter was zero before, <code>false</code>
+     * otherwise.
+     */
+    public boolean increment(long index);
+
+    /**
+     * Decrement the counter at index, unless it is zero or saturated.
+     *
+     * @param index the index of the counter in the array
+     * @return <code>true</code> if the counter went down to zero,
+     * <code>false</code> otherwise.
+     */
+    public boolean decrement(long index);
+
+    /**
+     * The value at which the counters saturate.
+     *
+     * @return the max value of a counter
+     */
+    public int maxCount();
+
+    /**
+     * Increments the counter at index.
+     *
+     * @see #increment(long)
+     */
+    @Override
+    public default boolean setBit(long index) {
+        return increment(index);
+    }
+
+    @Override
+    public default boolean getBit(long index) {
+        return getCount(index) != 0;
+    }
+}
@@ -0,0 +1,26 @@
+package BloomFilter.core;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link BitArray} implementation that keeps its bits off the Java heap in
+ * direct {@link ByteBuffer}s. This keeps multi-GB filters out of the way of
+ * the garbage collector. The memory is released once the array is no longer
+ * reachable.
+ */
+public class DirectBitArray extends ByteBufferBitArray {
+
+    public DirectBitArray(long numBits) {
+        super(allocate(byteSize(numBits)), byteSize(numBits) * Byte.SIZE);
+    }
+
+    private static ByteBuffer[] allocate(long numBytes) {
+        ByteBuffer[] chunks = new ByteBuffer[chunkCount(numBytes)];
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = ByteBuffer.allocateDirect(chunkSize(numBytes, i));
+        }
+
+        return chunks;
+    }
+
+}
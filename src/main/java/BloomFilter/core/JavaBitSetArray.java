@@ -1,11 +1,15 @@
 package BloomFilter.core;
 
 import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
 import java.util.BitSet;
 
 /**
  * A {@link BitArray} implementation that uses the standard Java {@link BitSet}
- * as the underlying implementation.
+ * as the underlying implementation. This implementation is not thread-safe,
+ * use {@link AtomicBitArray} when the filter is shared between threads.
  **/
 public class JavaBitSetArray implements BitArray {
 
@@ -13,27 +17,85 @@ public class JavaBitSetArray implements BitArray {
 
     final int size;
 
-    public JavaBitSetArray(int numBits) {
-        this.bitSet = new BitSet(numBits);
+    public JavaBitSetArray(long numBits) {
+        if (numBits > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("A java.util.BitSet cannot hold more than 2^31 bits");
+        }
+
+        this.bitSet = new BitSet((int) numBits);
         this.size = this.bitSet.size();
     }
 
     @Override
-    public boolean getBit(int index) {
-        return this.bitSet.get(index);
+    public boolean getBit(long index) {
+        return this.bitSet.get((int) index);
     }
 
     @Override
-    public boolean setBit(int index) {
-        this.bitSet.set(index);
+    public boolean setBit(long index) {
+        if (this.bitSet.get((int) index)) {
+            return false;
+        }
+
+        this.bitSet.set((int) index);
         return true;
     }
 
     @Override
-    public int bitSize() {
+    public long bitSize() {
         return this.size;
     }
 
+    @Override
+    public long getWord(long wordIndex) {
+        final int from = (int) (wordIndex << 6);
+
+        long word = 0;
+        for (int i = this.bitSet.nextSetBit(from); i >= 0 && i < from + Long.SIZE; i = this.bitSet.nextSetBit(i + 1)) {
+            word |= 1L << i;
+        }
+
+        return word;
+    }
+
+    @Override
+    public boolean andWord(long wordIndex, long mask) {
+        final int from = (int) (wordIndex << 6);
+
+        boolean bitsChanged = false;
+        for (int i = this.bitSet.nextSetBit(from); i >= 0 && i < from + Long.SIZE; i = this.bitSet.nextSetBit(i + 1)) {
+            if ((mask & (1L << i)) == 0) {
+                this.bitSet.clear(i);
+                bitsChanged = true;
+            }
+        }
+
+        return bitsChanged;
+    }
+
+    @Override
+    public long cardinality() {
+        return this.bitSet.cardinality();
+    }
+
+    @Override
+    public long wordCount() {
+        return this.size >>> 6;
+    }
+
+    @Override
+    public void writeWords(WritableByteChannel channel) throws IOException {
+        // the array stops at the last set bit, the missing words are zeros
+        Words.write(Arrays.copyOf(this.bitSet.toLongArray(), (int) wordCount()), channel);
+    }
+
+    @Override
+    public void readWords(ReadableByteChannel channel) throws IOException {
+        long[] words = new long[(int) wordCount()];
+        Words.read(words, channel);
+        this.bitSet.or(BitSet.valueOf(words));
+    }
+
     @Override
     public void close() throws IOException {
         // do nothing
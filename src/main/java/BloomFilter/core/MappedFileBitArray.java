@@ -0,0 +1,76 @@
+package BloomFilter.core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A {@link BitArray} implementation backed by a memory-mapped file. The file
+ * holds nothing but the raw words, so a filter created with the same
+ * expected insertions and false positive probability can simply re-open the
+ * file after a restart: the mapping is established in constant time and the
+ * pages are loaded lazily by the operating system as they are touched.
+ * <p>
+ * Changes are written back to the file by the operating system, and are
+ * forced to the storage device when the array is closed.
+ */
+public class MappedFileBitArray extends ByteBufferBitArray {
+
+    /**
+     * Create or re-open the bit array stored in the given file.
+     *
+     * @param file    the file that holds the bits
+     * @param numBits the number of bits needed
+     * @throws IOException              if the file cannot be created or mapped
+     * @throws IllegalArgumentException if the existing file does not have
+     *                                  the size needed for <code>numBits</code>
+     */
+    public MappedFileBitArray(Path file, long numBits) throws IOException {
+        super(map(file, byteSize(numBits)), byteSize(numBits) * Byte.SIZE);
+    }
+
+    /**
+     * Get a factory that maps the bit array onto the given file.
+     *
+     * @param file the file that holds the bits
+     * @return the factory to use when creating the bloom filter
+     */
+    public static BitArrayFactory factory(Path file) {
+        return numBits -> {
+            try {
+                return new MappedFileBitArray(file, numBits);
+            } catch (IOException e) {
+                throw new RuntimeException("Unable to map bit array file " + file, e);
+            }
+        };
+    }
+
+    private static ByteBuffer[] map(Path file, long numBytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            long existing = channel.size();
+            if (existing != 0 && existing != numBytes) {
+                throw new IllegalArgumentException("File " + file + " holds " + existing + " bytes, expected " + numBytes);
+            }
+
+            ByteBuffer[] chunks = new ByteBuffer[chunkCount(numBytes)];
+            for (int i = 0; i < chunks.length; i++) {
+                // mapping past the end of the file extends it
+                chunks[i] = channel.map(FileChannel.MapMode.READ_WRITE, i * CHUNK_BYTES, chunkSize(numBytes, i));
+            }
+
+            return chunks;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (ByteBuffer chunk : this.chunks) {
+            ((MappedByteBuffer) chunk).force();
+        }
+    }
+
+}
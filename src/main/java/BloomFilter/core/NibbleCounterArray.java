@@ -0,0 +1,205 @@
+package BloomFilter.core;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * A {@link CounterArray} of 4-bit counters packed sixteen to a
+ * <code>long</code> word. Counters saturate at 15, which with the optimal
+ * number of hash functions only happens with a negligible probability.
+ * <p>
+ * In concurrent mode the counters are updated with compare-and-set on the
+ * containing word, so that many threads can add to, remove from and query
+ * the same counting bloom filter without any external locking. Otherwise
+ * plain reads and writes are used, which is faster for a filter owned by a
+ * single thread.
+ */
+public class NibbleCounterArray implements CounterArray {
+
+    /**
+     * Number of bits in a counter
+     */
+    public static final int COUNTER_BITS = 4;
+
+    /**
+     * The value at which the counters saturate
+     */
+    public static final int MAX_COUNT = (1 << COUNTER_BITS) - 1;
+
+    /**
+     * Handle used to perform atomic operations on the elements of the word array
+     */
+    private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    /**
+     * The words holding the counters
+     */
+    final long[] words;
+
+    /**
+     * Number of counters available in this array
+     */
+    final long size;
+
+    /**
+     * Whether counters are updated with compare-and-set
+     */
+    final boolean concurrent;
+
+    public NibbleCounterArray(long numCounters) {
+        this(numCounters, false);
+    }
+
+    public NibbleCounterArray(long numCounters, boolean concurrent) {
+        if (numCounters < 0) {
+            throw new IllegalArgumentException("Number of counters cannot be negative");
+        }
+
+        long numWords = (numCounters + 15) >>> 4;
+        if (numWords > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Too many counters for an on-heap word array: " + numCounters);
+        }
+
+        this.words = new long[(int) numWords];
+        this.size = numWords << 4;
+        this.concurrent = concurrent;
+    }
+
+    private static int shift(long index) {
+        return ((int) index & 15) << 2;
+    }
+
+    private static int count(long word, int shift) {
+        return (int) (word >>> shift) & MAX_COUNT;
+    }
+
+    @Override
+    public int getCount(long index) {
+        return count(this.words[(int) (index >>> 4)], shift(index));
+    }
+
+    @Override
+    public boolean getBit(long index) {
+        return (this.words[(int) (index >>> 4)] & ((long) MAX_COUNT << shift(index))) != 0;
+    }
+
+    @Override
+    public boolean increment(long index) {
+        return update(index, 1) == 0;
+    }
+
+    @Override
+    public boolean decrement(long index) {
+        return update(index, -1) == 1;
+    }
+
+    /**
+     * Add the given delta to a counter, unless the counter is saturated or
+     * would go below zero.
+     *
+     * @return the value of the counter before the update
+     */
+    private int update(long index, int delta) {
+        final int wordIndex = (int) (index >>> 4);
+        final int shift = shift(index);
+
+        if (!this.concurrent) {
+            long word = this.words[wordIndex];
+            int count = count(word, shift);
+            if (count != MAX_COUNT && count + delta >= 0) {
+                this.words[wordIndex] = word + ((long) delta << shift);
+            }
+            return count;
+        }
+
+        long word = (long) WORDS.getVolatile(this.words, wordIndex);
+        while (true) {
+            int count = count(word, shift);
+            if (count == MAX_COUNT || count + delta < 0) {
+                return count;
+            }
+
+            long witness = (long) WORDS.compareAndExchange(this.words, wordIndex, word, word + ((long) delta << shift));
+            if (witness == word) {
+                return count;
+            }
+            word = witness;
+        }
+    }
+
+    /**
+     * Count the counters that are not zero.
+     *
+     * @return the number of bits set
+     */
+    @Override
+    public long cardinality() {
+        long cardinality = 0;
+        for (long word : this.words) {
+            // one bit per non-zero counter, at the lowest bit of the counter
+            cardinality += Long.bitCount((word | word >>> 1 | word >>> 2 | word >>> 3) & 0x1111111111111111L);
+        }
+
+        return cardinality;
+    }
+
+    /**
+     * Counters cannot be combined word by word.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public long getWord(long wordIndex) {
+        throw new UnsupportedOperationException("A counter array has no bit words");
+    }
+
+    /**
+     * Counters cannot be combined word by word.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public boolean orWord(long wordIndex, long mask) {
+        throw new UnsupportedOperationException("A counter array has no bit words");
+    }
+
+    @Override
+    public int maxCount() {
+        return MAX_COUNT;
+    }
+
+    /**
+     * The number of counters in this array, each of them standing for one
+     * bit of the filter. The memory used is four bits per counter.
+     *
+     * @return the number of counters
+     */
+    @Override
+    public long bitSize() {
+        return this.size;
+    }
+
+    @Override
+    public long wordCount() {
+        return this.words.length;
+    }
+
+    @Override
+    public void writeWords(WritableByteChannel channel) throws IOException {
+        Words.write(this.words, channel);
+    }
+
+    @Override
+    public void readWords(ReadableByteChannel channel) throws IOException {
+        Words.read(this.words, channel);
+    }
+
+    @Override
+    public void close() throws IOException {
+        // do nothing
+    }
+
+}
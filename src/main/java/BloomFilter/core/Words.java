@@ -0,0 +1,103 @@
+package BloomFilter.core;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Bulk transfer of word arrays to and from channels, used by the arrays of
+ * this package to implement {@link BitArray#writeWords(WritableByteChannel)}
+ * and {@link BitArray#readWords(ReadableByteChannel)}, and by the fingerprint
+ * tables of the cuckoo filters.
+ */
+public final class Words {
+
+    /**
+     * Size of the buffer used to move words between the heap and a channel
+     */
+    private static final int BUFFER_BYTES = 1 << 20;
+
+    private Words() {
+    }
+
+    /**
+     * Write the given words to the channel as little-endian longs, through a
+     * direct buffer so that the channel does not copy them again.
+     */
+    public static void write(long[] words, WritableByteChannel channel) throws IOException {
+        write(words, words.length, channel);
+    }
+
+    /**
+     * Write the first <code>length</code> words to the channel as
+     * little-endian longs.
+     */
+    public static void write(long[] words, int length, WritableByteChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bufferBytes(length)).order(ByteOrder.LITTLE_ENDIAN);
+        final int wordsPerBuffer = buffer.capacity() >>> 3;
+        for (int from = 0; from < length; from += wordsPerBuffer) {
+            int count = Math.min(wordsPerBuffer, length - from);
+            buffer.clear();
+            buffer.asLongBuffer().put(words, from, count);
+            buffer.limit(count << 3);
+            writeFully(channel, buffer);
+        }
+    }
+
+    /**
+     * Read little-endian longs from the channel into the given words.
+     */
+    public static void read(long[] words, ReadableByteChannel channel) throws IOException {
+        read(words, words.length, channel);
+    }
+
+    /**
+     * Read <code>length</code> little-endian longs from the channel into the
+     * first words.
+     */
+    public static void read(long[] words, int length, ReadableByteChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bufferBytes(length)).order(ByteOrder.LITTLE_ENDIAN);
+        final int wordsPerBuffer = buffer.capacity() >>> 3;
+        for (int from = 0; from < length; from += wordsPerBuffer) {
+            int count = Math.min(wordsPerBuffer, length - from);
+            buffer.clear().limit(count << 3);
+            readFully(channel, buffer);
+            buffer.flip();
+            buffer.asLongBuffer().get(words, from, count);
+        }
+    }
+
+    /**
+     * Size of the buffer to move the given number of words with. The size in
+     * bytes is computed as a <code>long</code>: arrays of 2^28 words and more
+     * hold 2 GiB and more.
+     */
+    static int bufferBytes(int length) {
+        return (int) Math.min(BUFFER_BYTES, Math.max(Long.BYTES, (long) length << 3));
+    }
+
+    /**
+     * Write all the remaining bytes of the buffer to the channel.
+     */
+    public static void writeFully(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Fill the remaining bytes of the buffer from the channel.
+     *
+     * @throws EOFException if the channel ends before the buffer is full
+     */
+    public static void readFully(ReadableByteChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("Channel ended " + buffer.remaining() + " bytes before the end of the words");
+            }
+        }
+    }
+}
@@ -1,47 +1,285 @@
 package BloomFilter.decompose;
 
-import java.io.ByteArrayOutputStream;
-import java.io.DataOutputStream;
-import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import BloomFilter.HashFunction;
 
 /**
- * An in-memory sink that uses a {@link ByteArrayOutputStream} to store
- * the incoming bytes.
+ * An in-memory sink that stores the incoming bytes in a growable byte-array.
+ * The sink is meant to be reused: {@link #reset()} empties it without
+ * releasing its storage, and the stored bytes are hashed in place with
+ * {@link #hash(HashFunction)}, so decomposing and hashing a value does not
+ * allocate once the storage has grown to the size of the largest value.
+ * <p>
+ * Multi-byte values are stored in little-endian order, the same order the
+ * {@link HashFunction} uses when hashing a <code>long</code> or a
+ * {@link CharSequence} directly.
  */
 public class ByteSink {
 
     /**
-     * The actual storage stream
+     * The actual storage
+     */
+    protected byte[] buffer;
+
+    /**
+     * Number of bytes currently stored
      */
-    protected ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    protected int size;
 
     /**
-     * Wrapper over the byte stream
+     * The two hashes computed by the <code>hashMultiple</code> methods,
+     * overwritten by each call
      */
-    protected DataOutputStream dataStream = new DataOutputStream(stream);
+    protected final long[] hashes = new long[2];
+
+    public ByteSink() {
+        this(64);
+    }
+
+    public ByteSink(int initialCapacity) {
+        this.buffer = new byte[Math.max(initialCapacity, Long.BYTES)];
+    }
 
     /**
-     * Get the byte-array of bytes currently stored
+     * Remove all the bytes currently stored, keeping the storage for reuse.
      *
-     * @return
+     * @return this sink
+     */
+    public ByteSink reset() {
+        this.size = 0;
+        return this;
+    }
+
+    /**
+     * Get the number of bytes currently stored
+     *
+     * @return the number of bytes
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Get a copy of the bytes currently stored
+     *
+     * @return the stored bytes
      */
     public byte[] getByteArray() {
-        return stream.toByteArray();
+        return Arrays.copyOf(this.buffer, this.size);
+    }
+
+    /**
+     * Hash the bytes currently stored, without copying them.
+     *
+     * @param hasher the hash function to use
+     * @return the hash
+     */
+    public long hash(HashFunction hasher) {
+        return hasher.hash(this.buffer, 0, this.size);
+    }
+
+    /**
+     * Compute the first two of the multiple hashes of the bytes currently
+     * stored, without copying them. The returned array belongs to this sink
+     * and is overwritten by the next call.
+     *
+     * @param hasher the hash function to use
+     * @return the two hashes
+     */
+    public long[] hashMultiple(HashFunction hasher) {
+        hasher.hashMultiple(this.buffer, 0, this.size, this.hashes);
+        return this.hashes;
+    }
+
+    /**
+     * Compute the first two of the multiple hashes of the given bytes, into
+     * the array of this sink. See {@link #hashMultiple(HashFunction)}.
+     *
+     * @param hasher the hash function to use
+     * @param bytes  the bytes to hash
+     * @return the two hashes
+     */
+    public long[] hashMultiple(HashFunction hasher, byte[] bytes) {
+        hasher.hashMultiple(bytes, 0, bytes.length, this.hashes);
+        return this.hashes;
+    }
+
+    /**
+     * Compute the first two of the multiple hashes of the 8 little-endian
+     * bytes of the given value, into the array of this sink. See
+     * {@link #hashMultiple(HashFunction)}.
+     *
+     * @param hasher the hash function to use
+     * @param value  the value to hash
+     * @return the two hashes
+     */
+    public long[] hashMultiple(HashFunction hasher, long value) {
+        hasher.hashMultiple(value, this.hashes);
+        return this.hashes;
+    }
+
+    /**
+     * Store the given byte in this sink.
+     *
+     * @param value the byte
+     * @return this sink
+     */
+    public ByteSink putByte(byte value) {
+        ensureCapacity(1);
+        this.buffer[this.size++] = value;
+        return this;
     }
 
     /**
      * Store the given bytes in this sink.
      *
-     * @param bytes
-     * @return
+     * @param bytes the bytes
+     * @return this sink
      */
     public ByteSink putBytes(byte[] bytes) {
-        try {
-            stream.write(bytes);
-        } catch (IOException e) {
-            throw new RuntimeException("Unable to store bytes inside the sink", e);
+        return putBytes(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Store a slice of the given bytes in this sink.
+     *
+     * @param bytes  the bytes
+     * @param offset the offset of the first byte to store
+     * @param length the number of bytes to store
+     * @return this sink
+     */
+    public ByteSink putBytes(byte[] bytes, int offset, int length) {
+        ensureCapacity(length);
+        System.arraycopy(bytes, offset, this.buffer, this.size, length);
+        this.size += length;
+        return this;
+    }
+
+    /**
+     * Store the 4 little-endian bytes of the given value in this sink.
+     *
+     * @param value the value
+     * @return this sink
+     */
+    public ByteSink putInt(int value) {
+        ensureCapacity(Integer.BYTES);
+        for (int i = 0; i < Integer.BYTES; i++) {
+            this.buffer[this.size++] = (byte) (value >>> (i << 3));
         }
+        return this;
+    }
 
+    /**
+     * Store the 8 little-endian bytes of the given value in this sink.
+     *
+     * @param value the value
+     * @return this sink
+     */
+    public ByteSink putLong(long value) {
+        ensureCapacity(Long.BYTES);
+        for (int i = 0; i < Long.BYTES; i++) {
+            this.buffer[this.size++] = (byte) (value >>> (i << 3));
+        }
+        return this;
+    }
+
+    /**
+     * Store the given characters in this sink as UTF-16LE, two bytes per
+     * <code>char</code>.
+     *
+     * @param chars the characters
+     * @return this sink
+     */
+    public ByteSink putChars(CharSequence chars) {
+        final int length = chars.length();
+        ensureCapacity(length << 1);
+        for (int i = 0; i < length; i++) {
+            char c = chars.charAt(i);
+            this.buffer[this.size++] = (byte) c;
+            this.buffer[this.size++] = (byte) (c >>> 8);
+        }
         return this;
     }
-}
\ No newline at end of file
+
+    /**
+     * Store the given characters in this sink encoded with the given
+     * {@link Charset}, producing the same bytes as {@link String#getBytes(Charset)}.
+     * UTF-8, ISO-8859-1 and US-ASCII are encoded directly into the sink,
+     * other charsets go through an intermediate byte-array.
+     *
+     * @param chars   the characters
+     * @param charset the charset to encode the characters with
+     * @return this sink
+     */
+    public ByteSink putString(CharSequence chars, Charset charset) {
+        if (StandardCharsets.UTF_8.equals(charset)) {
+            return putUtf8(chars);
+        }
+
+        if (StandardCharsets.ISO_8859_1.equals(charset)) {
+            return putSingleByte(chars, 0xFF);
+        }
+
+        if (StandardCharsets.US_ASCII.equals(charset)) {
+            return putSingleByte(chars, 0x7F);
+        }
+
+        return putBytes(chars.toString().getBytes(charset));
+    }
+
+    private ByteSink putSingleByte(CharSequence chars, int maxChar) {
+        final int length = chars.length();
+        ensureCapacity(length);
+        for (int i = 0; i < length; i++) {
+            char c = chars.charAt(i);
+            if (c > maxChar) {
+                // a surrogate pair is a single unmappable character
+                if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(chars.charAt(i + 1))) {
+                    i++;
+                }
+                c = '?';
+            }
+            this.buffer[this.size++] = (byte) c;
+        }
+        return this;
+    }
+
+    private ByteSink putUtf8(CharSequence chars) {
+        final int length = chars.length();
+        ensureCapacity(length * 3);
+        for (int i = 0; i < length; i++) {
+            char c = chars.charAt(i);
+            if (c < 0x80) {
+                this.buffer[this.size++] = (byte) c;
+            } else if (c < 0x800) {
+                this.buffer[this.size++] = (byte) (0xC0 | (c >> 6));
+                this.buffer[this.size++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(chars.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, chars.charAt(++i));
+                    this.buffer[this.size++] = (byte) (0xF0 | (codePoint >> 18));
+                    this.buffer[this.size++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                    this.buffer[this.size++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                    this.buffer[this.size++] = (byte) (0x80 | (codePoint & 0x3F));
+                } else {
+                    // unpaired surrogates cannot be encoded
+                    this.buffer[this.size++] = '?';
+                }
+            } else {
+                this.buffer[this.size++] = (byte) (0xE0 | (c >> 12));
+                this.buffer[this.size++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                this.buffer[this.size++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return this;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (this.size + extra > this.buffer.length) {
+            this.buffer = Arrays.copyOf(this.buffer, Math.max(this.buffer.length << 1, this.size + extra));
+        }
+    }
+}
@@ -7,29 +7,52 @@ import java.nio.charset.Charset;
  * by converting it to a {@link String} object using the
  * {@link Object#toString()} method.
  * To convert the {@link String} thus obtained into bytes, the default platform
- * {@link Charset} encoding is used.
+ * {@link Charset} encoding is used, unless another one is given.
  */
-public class DefaultDecomposer<Object> {
+public class DefaultDecomposer<Object> implements Decomposer<Object> {
 
     /**
      * The default platform encoding
      */
     private static final Charset DEFAULT_CHARSET = Charset.defaultCharset();
 
+    /**
+     * The encoding used to convert strings into bytes
+     */
+    private final Charset charset;
+
+    public DefaultDecomposer() {
+        this(DEFAULT_CHARSET);
+    }
+
+    public DefaultDecomposer(Charset charset) {
+        this.charset = charset;
+    }
+
+    /**
+     * Get the encoding used to convert strings into bytes
+     *
+     * @return the charset
+     */
+    public Charset getCharset() {
+        return this.charset;
+    }
+
     /**
      * Decompose the object
      */
+    @Override
     public void decompose(Object object, ByteSink sink) {
         if (object == null) {
             return;
         }
 
-        if (object instanceof String) {
-            sink.putBytes(((String) object).getBytes(DEFAULT_CHARSET));
+        if (object instanceof CharSequence) {
+            sink.putString((CharSequence) object, this.charset);
             return;
         }
 
-        sink.putBytes(object.toString().getBytes(DEFAULT_CHARSET));
+        sink.putString(object.toString(), this.charset);
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,122 @@
+package BloomFilter.hash;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Strategy to read little-endian values out of the different inputs that
+ * can be hashed, so that every hash algorithm is written only once. The
+ * strategies are stateless singletons, hence no object is allocated when
+ * hashing.
+ * <p>
+ * A {@link CharSequence} is read as if it had been encoded as UTF-16LE,
+ * two bytes per <code>char</code>, without doing the actual encoding.
+ */
+abstract class ByteAccess {
+
+    private static final VarHandle ARRAY_LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private static final VarHandle ARRAY_INT = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private static final VarHandle BUFFER_LONG = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private static final VarHandle BUFFER_INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * Reads from a <code>byte[]</code>
+     */
+    static final ByteAccess ARRAY = new ByteAccess() {
+        @Override
+        long getLong(Object input, int offset) {
+            return (long) ARRAY_LONG.get((byte[]) input, offset);
+        }
+
+        @Override
+        int getInt(Object input, int offset) {
+            return (int) ARRAY_INT.get((byte[]) input, offset);
+        }
+
+        @Override
+        int getByte(Object input, int offset) {
+            return ((byte[]) input)[offset] & 0xFF;
+        }
+    };
+
+    /**
+     * Reads from a {@link ByteBuffer} using absolute indexes, the position of
+     * the buffer is never changed
+     */
+    static final ByteAccess BUFFER = new ByteAccess() {
+        @Override
+        long getLong(Object input, int offset) {
+            return (long) BUFFER_LONG.get((ByteBuffer) input, offset);
+        }
+
+        @Override
+        int getInt(Object input, int offset) {
+            return (int) BUFFER_INT.get((ByteBuffer) input, offset);
+        }
+
+        @Override
+        int getByte(Object input, int offset) {
+            return ((ByteBuffer) input).get(offset) & 0xFF;
+        }
+    };
+
+    /**
+     * Reads from a {@link CharSequence}, offsets are in bytes
+     */
+    static final ByteAccess CHARS = new ByteAccess() {
+        @Override
+        long getLong(Object input, int offset) {
+            CharSequence chars = (CharSequence) input;
+            int index = offset >> 1;
+            return chars.charAt(index)
+                    | (long) chars.charAt(index + 1) << 16
+                    | (long) chars.charAt(index + 2) << 32
+                    | (long) chars.charAt(index + 3) << 48;
+        }
+
+        @Override
+        int getInt(Object input, int offset) {
+            CharSequence chars = (CharSequence) input;
+            int index = offset >> 1;
+            return chars.charAt(index) | chars.charAt(index + 1) << 16;
+        }
+
+        @Override
+        int getByte(Object input, int offset) {
+            char c = ((CharSequence) input).charAt(offset >> 1);
+            return (offset & 1) == 0 ? c & 0xFF : c >>> 8;
+        }
+    };
+
+    /**
+     * Read 8 bytes as a little-endian <code>long</code>.
+     *
+     * @param input  the input to read from
+     * @param offset the offset of the first byte
+     * @return the value read
+     */
+    abstract long getLong(Object input, int offset);
+
+    /**
+     * Read 4 bytes as a little-endian <code>int</code>.
+     *
+     * @param input  the input to read from
+     * @param offset the offset of the first byte
+     * @return the value read
+     */
+    abstract int getInt(Object input, int offset);
+
+    /**
+     * Read one unsigned byte.
+     *
+     * @param input  the input to read from
+     * @param offset the offset of the byte
+     * @return the value read, between 0 and 255
+     */
+    abstract int getByte(Object input, int offset);
+}
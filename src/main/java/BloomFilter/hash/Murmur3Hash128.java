@@ -0,0 +1,202 @@
+package BloomFilter.hash;
+
+import java.nio.ByteBuffer;
+
+import BloomFilter.HashFunction;
+
+/**
+ * The x64 128-bit variant of the MurmurHash3 function. This hash function is
+ * not single valued: {@link #hashMultiple(byte[])} returns both 64-bit halves
+ * of the hash, which a {@link BloomFilter.BloomFilter} uses as two
+ * independent hashes. This is what lets the probes of a filter with more than
+ * 2^31 bits reach every bit. The single valued methods return the first half,
+ * and the methods given an output array store both halves in it: neither
+ * allocates any object.
+ */
+public class Murmur3Hash128 extends HashFunction {
+
+    private static final long C1 = 0x87C37B91114253D5L;
+
+    private static final long C2 = 0x4CF5AD432745937FL;
+
+    /**
+     * The seed of the hash
+     */
+    private final int seed;
+
+    public Murmur3Hash128() {
+        this(0);
+    }
+
+    public Murmur3Hash128(int seed) {
+        this.seed = seed;
+    }
+
+    @Override
+    public int id() {
+        return getClass() == Murmur3Hash128.class ? MURMUR3_128_ID : UNKNOWN_ID;
+    }
+
+    @Override
+    public long seed() {
+        return this.seed;
+    }
+
+    @Override
+    public boolean isSingleValued() {
+        return false;
+    }
+
+    @Override
+    public long hash(byte[] bytes, int offset, int length) {
+        return hash(ByteAccess.ARRAY, bytes, offset, length, this.seed, null);
+    }
+
+    @Override
+    public long hash(ByteBuffer buffer) {
+        return hash(ByteAccess.BUFFER, buffer, buffer.position(), buffer.remaining(), this.seed, null);
+    }
+
+    @Override
+    public long hash(CharSequence chars) {
+        return hash(ByteAccess.CHARS, chars, 0, chars.length() << 1, this.seed, null);
+    }
+
+    @Override
+    public long[] hashMultiple(byte[] bytes) {
+        long[] hashes = new long[2];
+        hash(ByteAccess.ARRAY, bytes, 0, bytes.length, this.seed, hashes);
+        return hashes;
+    }
+
+    @Override
+    public long[] hashMultiple(byte[] bytes, int offset, int length) {
+        long[] hashes = new long[2];
+        hash(ByteAccess.ARRAY, bytes, offset, length, this.seed, hashes);
+        return hashes;
+    }
+
+    @Override
+    public void hashMultiple(byte[] bytes, int offset, int length, long[] out) {
+        hash(ByteAccess.ARRAY, bytes, offset, length, this.seed, out);
+    }
+
+    @Override
+    public long hash(long value) {
+        return hash(value, this.seed, null);
+    }
+
+    @Override
+    public long[] hashMultiple(long value) {
+        long[] hashes = new long[2];
+        hash(value, this.seed, hashes);
+        return hashes;
+    }
+
+    @Override
+    public void hashMultiple(long value, long[] out) {
+        hash(value, this.seed, out);
+    }
+
+    /**
+     * Compute the hash of the 8 little-endian bytes of a value, which only
+     * go through the tail of the algorithm.
+     *
+     * @param out if not <code>null</code>, receives both halves of the hash
+     * @return the first half of the hash
+     */
+    private static long hash(long value, int seed, long[] out) {
+        long h1 = seed & 0xFFFFFFFFL;
+        long h2 = h1;
+
+        h1 ^= mixK1(value);
+        return finish(h1, h2, Long.BYTES, out);
+    }
+
+    /**
+     * Compute the hash of the input.
+     *
+     * @param out if not <code>null</code>, receives both halves of the hash
+     * @return the first half of the hash
+     */
+    private static long hash(ByteAccess access, Object input, int offset, int length, int seed, long[] out) {
+        final int end = offset + length;
+        long h1 = seed & 0xFFFFFFFFL;
+        long h2 = h1;
+
+        while (offset <= end - 16) {
+            long k1 = access.getLong(input, offset);
+            long k2 = access.getLong(input, offset + 8);
+
+            h1 ^= mixK1(k1);
+            h1 = Long.rotateLeft(h1, 27);
+            h1 += h2;
+            h1 = h1 * 5 + 0x52DCE729;
+
+            h2 ^= mixK2(k2);
+            h2 = Long.rotateLeft(h2, 31);
+            h2 += h1;
+            h2 = h2 * 5 + 0x38495AB5;
+
+            offset += 16;
+        }
+
+        int remaining = end - offset;
+        if (remaining > 0) {
+            long k1 = 0;
+            long k2 = 0;
+            for (int i = remaining - 1; i >= 8; i--) {
+                k2 ^= (long) access.getByte(input, offset + i) << ((i - 8) << 3);
+            }
+            for (int i = Math.min(remaining, 8) - 1; i >= 0; i--) {
+                k1 ^= (long) access.getByte(input, offset + i) << (i << 3);
+            }
+            h1 ^= mixK1(k1);
+            h2 ^= mixK2(k2);
+        }
+
+        return finish(h1, h2, length, out);
+    }
+
+    private static long finish(long h1, long h2, int length, long[] out) {
+        h1 ^= length;
+        h2 ^= length;
+
+        h1 += h2;
+        h2 += h1;
+
+        h1 = fmix64(h1);
+        h2 = fmix64(h2);
+
+        h1 += h2;
+        h2 += h1;
+
+        if (out != null) {
+            out[0] = h1;
+            out[1] = h2;
+        }
+        return h1;
+    }
+
+    private static long mixK1(long k1) {
+        k1 *= C1;
+        k1 = Long.rotateLeft(k1, 31);
+        return k1 * C2;
+    }
+
+    private static long mixK2(long k2) {
+        k2 *= C2;
+        k2 = Long.rotateLeft(k2, 33);
+        return k2 * C1;
+    }
+
+    private static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xFF51AFD7ED558CCDL;
+        k ^= k >>> 33;
+        k *= 0xC4CEB9FE1A85EC53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
+}
@@ -0,0 +1,141 @@
+package BloomFilter.hash;
+
+import java.nio.ByteBuffer;
+
+import BloomFilter.HashFunction;
+
+/**
+ * The 64-bit xxHash function, a fast non-cryptographic hash with good
+ * avalanche behaviour. The two 32-bit halves of the hash are independent
+ * enough to be used for double hashing in a {@link BloomFilter.BloomFilter}.
+ * Hashing does not allocate any object.
+ */
+public class XxHash64 extends HashFunction {
+
+    private static final long PRIME64_1 = 0x9E3779B185EBCA87L;
+
+    private static final long PRIME64_2 = 0xC2B2AE3D27D4EB4FL;
+
+    private static final long PRIME64_3 = 0x165667B19E3779F9L;
+
+    private static final long PRIME64_4 = 0x85EBCA77C2B2AE63L;
+
+    private static final long PRIME64_5 = 0x27D4EB2F165667C5L;
+
+    /**
+     * The seed of the hash
+     */
+    private final long seed;
+
+    public XxHash64() {
+        this(0);
+    }
+
+    public XxHash64(long seed) {
+        this.seed = seed;
+    }
+
+    @Override
+    public int id() {
+        return getClass() == XxHash64.class ? XXHASH64_ID : UNKNOWN_ID;
+    }
+
+    @Override
+    public long seed() {
+        return this.seed;
+    }
+
+    @Override
+    public long hash(byte[] bytes, int offset, int length) {
+        return hash(ByteAccess.ARRAY, bytes, offset, length, this.seed);
+    }
+
+    @Override
+    public long hash(ByteBuffer buffer) {
+        return hash(ByteAccess.BUFFER, buffer, buffer.position(), buffer.remaining(), this.seed);
+    }
+
+    @Override
+    public long hash(CharSequence chars) {
+        return hash(ByteAccess.CHARS, chars, 0, chars.length() << 1, this.seed);
+    }
+
+    @Override
+    public long hash(long value) {
+        long hash = this.seed + PRIME64_5 + Long.BYTES;
+        hash ^= round(0, value);
+        hash = Long.rotateLeft(hash, 27) * PRIME64_1 + PRIME64_4;
+        return avalanche(hash);
+    }
+
+    private static long hash(ByteAccess access, Object input, int offset, int length, long seed) {
+        final int end = offset + length;
+        long hash;
+
+        if (length >= 32) {
+            long v1 = seed + PRIME64_1 + PRIME64_2;
+            long v2 = seed + PRIME64_2;
+            long v3 = seed;
+            long v4 = seed - PRIME64_1;
+
+            do {
+                v1 = round(v1, access.getLong(input, offset));
+                v2 = round(v2, access.getLong(input, offset + 8));
+                v3 = round(v3, access.getLong(input, offset + 16));
+                v4 = round(v4, access.getLong(input, offset + 24));
+                offset += 32;
+            } while (offset <= end - 32);
+
+            hash = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+            hash = mergeRound(hash, v1);
+            hash = mergeRound(hash, v2);
+            hash = mergeRound(hash, v3);
+            hash = mergeRound(hash, v4);
+        } else {
+            hash = seed + PRIME64_5;
+        }
+
+        hash += length;
+
+        while (offset <= end - 8) {
+            hash ^= round(0, access.getLong(input, offset));
+            hash = Long.rotateLeft(hash, 27) * PRIME64_1 + PRIME64_4;
+            offset += 8;
+        }
+
+        if (offset <= end - 4) {
+            hash ^= (access.getInt(input, offset) & 0xFFFFFFFFL) * PRIME64_1;
+            hash = Long.rotateLeft(hash, 23) * PRIME64_2 + PRIME64_3;
+            offset += 4;
+        }
+
+        while (offset < end) {
+            hash ^= access.getByte(input, offset) * PRIME64_5;
+            hash = Long.rotateLeft(hash, 11) * PRIME64_1;
+            offset++;
+        }
+
+        return avalanche(hash);
+    }
+
+    private static long avalanche(long hash) {
+        hash ^= hash >>> 33;
+        hash *= PRIME64_2;
+        hash ^= hash >>> 29;
+        hash *= PRIME64_3;
+        hash ^= hash >>> 32;
+        return hash;
+    }
+
+    private static long round(long acc, long input) {
+        acc += input * PRIME64_2;
+        acc = Long.rotateLeft(acc, 31);
+        return acc * PRIME64_1;
+    }
+
+    private static long mergeRound(long acc, long value) {
+        acc ^= round(0, value);
+        return acc * PRIME64_1 + PRIME64_4;
+    }
+
+}
@@ -0,0 +1,27 @@
+package ConcurrentSkipList;
+
+import java.util.Arrays;
+
+/**
+ * A {@link LockFreeSkipList} of <code>byte[]</code> keys, such as serialized or encoded keys.
+ * The keys are ordered by {@link Arrays#compareUnsigned(byte[], byte[])}: byte by byte as
+ * unsigned values, a key being before the longer keys it is a prefix of. This is the order of
+ * the encodings that preserve the order of their values, such as big-endian integers or
+ * UTF-8 strings, and the comparison is an intrinsic of the JVM that compares several bytes at
+ * a time.
+ * <p>
+ * The keys are compared by content, but are not copied: a key must not be modified once it
+ * was added.
+ */
+public class BytesSkipList extends LockFreeSkipList<byte[]> {
+
+    /**
+     * Initializes the skip list with a specified maximum number of elements, which determines
+     * the maximum level of the list, as for {@link SkipList#SkipList(int)}.
+     *
+     * @param maxElements the maximum number of elements the skip list is expected to hold
+     */
+    public BytesSkipList(int maxElements) {
+        super(maxElements, Arrays::compareUnsigned);
+    }
+}
@@ -0,0 +1,335 @@
+package ConcurrentSkipList;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A lock-free concurrent skip list, following the algorithm of Fraser and of Herlihy and
+ * Shavit. Nodes are linked with compare-and-set, and a node is removed by marking its forward
+ * pointers, from its top level down to the bottom one, then unlinking it:
+ * <ul>
+ * <li>a forward pointer is marked by replacing it with a {@link Marker} holding the same
+ * successor. A compare-and-set expecting a plain successor then fails on a marked pointer, so
+ * no node can be linked after a node that is being removed.</li>
+ * <li>the key belongs to the list while the bottom pointer of its node is not marked, the
+ * thread that marks it is the one whose removal succeeds.</li>
+ * <li>inserts and removes unlink the marked nodes they meet on their way, and start over
+ * from the head when a predecessor was marked meanwhile.</li>
+ * <li>searches never write, never retry and never wait: they step over the marked nodes
+ * instead of unlinking them.</li>
+ * </ul>
+ * An insert allocates its node and forward pointers, a remove one marker per level of its
+ * node, and a search nothing. The predecessors and successors of an update are kept in a
+ * buffer of the thread.
+ * <p>
+ * The keys are ordered by a {@link Comparator}, or by their natural ordering. The head node
+ * holds no key and the end of each level is a <code>null</code> pointer, so any key can be
+ * stored. {@link LongSkipList} is the same list for primitive <code>long</code> keys.
+ *
+ * @param <K> the type of the keys
+ */
+public class LockFreeSkipList<K> {
+
+    private static final VarHandle NEXT = MethodHandles.arrayElementVarHandle(Object[].class);
+
+    private static final float PROBABILITY = 0.5f;
+
+    /**
+     * Head node, before all the keys. The end of a level is a <code>null</code> pointer.
+     */
+    private final Node<K> head;
+
+    private final int maxLevel;
+
+    /**
+     * The predecessors and successors found by the last search of each writer thread
+     */
+    private final ThreadLocal<Node<K>[][]> fingers;
+
+    /**
+     * The ordering of the keys
+     */
+    private final Comparator<? super K> comparator;
+
+    /**
+     * Initializes the skip list with a specified maximum number of elements, which determines
+     * the maximum level of the list, as for {@link SkipList#SkipList(int)}. The keys are
+     * ordered by their natural ordering, and must be {@link Comparable}.
+     *
+     * @param maxElements the maximum number of elements the skip list is expected to hold
+     */
+    @SuppressWarnings("unchecked")
+    public LockFreeSkipList(int maxElements) {
+        this(maxElements, (Comparator<? super K>) Comparator.naturalOrder());
+    }
+
+    /**
+     * Initializes the skip list with a specified maximum number of elements, see
+     * {@link #LockFreeSkipList(int)}, and the ordering of its keys.
+     *
+     * @param maxElements the maximum number of elements the skip list is expected to hold
+     * @param comparator  the ordering of the keys
+     */
+    @SuppressWarnings("unchecked")
+    public LockFreeSkipList(int maxElements, Comparator<? super K> comparator) {
+        this.comparator = comparator;
+        this.maxLevel = Math.max(0, (int) (Math.log(maxElements) / Math.log(1 / PROBABILITY)));
+        this.head = new Node<>(null, this.maxLevel);
+        this.fingers = ThreadLocal.withInitial(() -> (Node<K>[][]) new Node<?>[][]{
+                new Node<?>[this.maxLevel + 1], new Node<?>[this.maxLevel + 1]});
+    }
+
+    /**
+     * Generates a random level for a new node, with the same geometric distribution as
+     * {@link SkipList#getRandomLevel()}.
+     *
+     * @return a randomly determined level for a new node
+     */
+    public int getRandomLevel() {
+        int level = 0;
+        while (ThreadLocalRandom.current().nextFloat() < PROBABILITY) {
+            level++;
+        }
+        return Math.min(level, maxLevel);
+    }
+
+    /**
+     * Finds the predecessors and successors of a key at each level, unlinking the marked nodes
+     * on the way. The search starts over from the head when a predecessor gets marked.
+     *
+     * @param key   the key to search for
+     * @param preds receives the last node before the key at each level
+     * @param succs receives the first node at or after the key at each level, or null
+     * @return true if the bottom level holds an unmarked node with the key
+     */
+    @SuppressWarnings("unchecked")
+    private boolean find(K key, Node<K>[] preds, Node<K>[] succs) {
+        retry:
+        while (true) {
+            Node<K> pred = head;
+            Node<K> curr = null;
+            for (int level = maxLevel; level >= 0; level--) {
+                Object ref = NEXT.getAcquire(pred.next, level);
+                if (ref instanceof Marker) {
+                    continue retry;
+                }
+                curr = (Node<K>) ref;
+                while (curr != null) {
+                    Object succ = NEXT.getAcquire(curr.next, level);
+                    while (succ instanceof Marker) {
+                        // curr is being removed, unlink it from this level
+                        Node<K> next = ((Marker<K>) succ).next;
+                        if (!NEXT.compareAndSet(pred.next, level, curr, next)) {
+                            continue retry;
+                        }
+                        curr = next;
+                        if (curr == null) {
+                            break;
+                        }
+                        succ = NEXT.getAcquire(curr.next, level);
+                    }
+                    if (curr == null || comparator.compare(curr.key, key) >= 0) {
+                        break;
+                    }
+                    pred = curr;
+                    curr = (Node<K>) succ;
+                }
+                preds[level] = pred;
+                succs[level] = curr;
+            }
+            return curr != null && comparator.compare(curr.key, key) == 0;
+        }
+    }
+
+    /**
+     * Adds a key to the skip list. The node is first linked at the bottom level, which adds
+     * the key to the list, then at the upper levels one at a time.
+     *
+     * @param key the key to add to the skip list
+     * @return true if the key was successfully added, false if the key already exists
+     */
+    public boolean add(K key) {
+        final int topLevel = getRandomLevel();
+        final Node<K>[][] finger = fingers.get();
+        final Node<K>[] preds = finger[0];
+        final Node<K>[] succs = finger[1];
+
+        while (true) {
+            if (find(key, preds, succs)) {
+                return false;
+            }
+
+            Node<K> node = new Node<>(key, topLevel);
+            for (int level = 0; level <= topLevel; level++) {
+                node.next[level] = succs[level];
+            }
+            // publishes the node and its forward pointers
+            if (!NEXT.compareAndSet(preds[0].next, 0, succs[0], node)) {
+                continue;
+            }
+
+            for (int level = 1; level <= topLevel; level++) {
+                while (!NEXT.compareAndSet(preds[level].next, level, succs[level], node)) {
+                    find(key, preds, succs);
+                    Object ref = NEXT.getAcquire(node.next, level);
+                    if (ref instanceof Marker || succs[level] == node
+                            || !NEXT.compareAndSet(node.next, level, ref, succs[level])) {
+                        // the node is being removed, or is already linked at this level
+                        return true;
+                    }
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Searches for a key in the skip list. The search is wait-free: it writes nothing and
+     * steps over the nodes that are being removed.
+     *
+     * @param key the key to search for in the skip list
+     * @return true if the key is found, false otherwise
+     */
+    @SuppressWarnings("unchecked")
+    public boolean search(K key) {
+        Node<K> pred = head;
+        Node<K> curr = null;
+        for (int level = maxLevel; level >= 0; level--) {
+            curr = successor(NEXT.getAcquire(pred.next, level));
+            while (curr != null) {
+                Object succ = NEXT.getAcquire(curr.next, level);
+                while (succ instanceof Marker) {
+                    curr = ((Marker<K>) succ).next;
+                    if (curr == null) {
+                        break;
+                    }
+                    succ = NEXT.getAcquire(curr.next, level);
+                }
+                if (curr == null || comparator.compare(curr.key, key) >= 0) {
+                    break;
+                }
+                pred = curr;
+                curr = (Node<K>) succ;
+            }
+        }
+        return curr != null && comparator.compare(curr.key, key) == 0;
+    }
+
+    /**
+     * Removes a key from the skip list. The forward pointers of its node are marked from the
+     * top level down, the key is removed by the thread that marks the bottom one, which then
+     * unlinks the node.
+     *
+     * @param key the key to remove from the skip list
+     * @return true if the key was successfully removed, false if the key was not found
+     */
+    @SuppressWarnings("unchecked")
+    public boolean remove(K key) {
+        final Node<K>[][] finger = fingers.get();
+        final Node<K>[] preds = finger[0];
+        final Node<K>[] succs = finger[1];
+
+        if (!find(key, preds, succs)) {
+            return false;
+        }
+        Node<K> victim = succs[0];
+
+        for (int level = victim.topLevel; level >= 1; level--) {
+            Object ref = NEXT.getAcquire(victim.next, level);
+            while (!(ref instanceof Marker)) {
+                NEXT.compareAndSet(victim.next, level, ref, new Marker<>((Node<K>) ref));
+                ref = NEXT.getAcquire(victim.next, level);
+            }
+        }
+
+        Object ref = NEXT.getAcquire(victim.next, 0);
+        while (!(ref instanceof Marker)) {
+            if (NEXT.compareAndSet(victim.next, 0, ref, new Marker<>((Node<K>) ref))) {
+                // unlink the node from all its levels
+                find(key, preds, succs);
+                return true;
+            }
+            ref = NEXT.getAcquire(victim.next, 0);
+        }
+        return false;
+    }
+
+    /**
+     * Get all the keys within range, in their order, as for {@link SkipList#range(Object, Object)}.
+     * The keys added or removed during the call may or may not be returned.
+     *
+     * @param startKey start key
+     * @param endKey   end key
+     * @return lists of value of elements
+     */
+    public Map<K, K> range(K startKey, K endKey) {
+        Map<K, K> rangeOutput = new TreeMap<>(comparator);
+        if (comparator.compare(startKey, endKey) > 0) {
+            return rangeOutput;
+        }
+
+        Node<K> pred = head;
+        for (int level = maxLevel; level >= 0; level--) {
+            Node<K> curr = successor(NEXT.getAcquire(pred.next, level));
+            while (curr != null && comparator.compare(curr.key, startKey) < 0) {
+                pred = curr;
+                curr = successor(NEXT.getAcquire(curr.next, level));
+            }
+        }
+
+        Node<K> curr = successor(NEXT.getAcquire(pred.next, 0));
+        while (curr != null && comparator.compare(curr.key, endKey) <= 0) {
+            Object succ = NEXT.getAcquire(curr.next, 0);
+            if (!(succ instanceof Marker) && comparator.compare(curr.key, startKey) >= 0) {
+                rangeOutput.put(curr.key, curr.key);
+            }
+            curr = successor(succ);
+        }
+        return rangeOutput;
+    }
+
+    /**
+     * The node a forward pointer leads to, marked or not
+     */
+    @SuppressWarnings("unchecked")
+    private static <K> Node<K> successor(Object ref) {
+        return ref instanceof Marker ? ((Marker<K>) ref).next : (Node<K>) ref;
+    }
+
+    /**
+     * A node of the lock-free skip list. Its forward pointers are either a successor node,
+     * <code>null</code> at the end of a level, or a {@link Marker} once the node is being
+     * removed.
+     */
+    private static final class Node<K> {
+
+        final K key;
+
+        final Object[] next;
+
+        final int topLevel;
+
+        Node(K key, int topLevel) {
+            this.key = key;
+            this.next = new Object[topLevel + 1];
+            this.topLevel = topLevel;
+        }
+    }
+
+    /**
+     * A marked forward pointer: the node holding it is removed from this level, and its
+     * successor is {@link #next}.
+     */
+    private static final class Marker<K> {
+
+        final Node<K> next;
+
+        Marker(Node<K> next) {
+            this.next = next;
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package ConcurrentSkipList;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The {@link LockFreeSkipList} specialized for primitive <code>long</code> keys, such as
+ * 64-bit ids. The keys are stored unboxed in the nodes and compared with
+ * {@link Long#compare(long, long)}, so a key takes 8 bytes in its node instead of a boxed
+ * {@link Long} or a {@link String}, and the comparisons read no other object. The algorithm is
+ * the same as that of {@link LockFreeSkipList}.
+ */
+public class LongSkipList {
+
+    private static final VarHandle NEXT = MethodHandles.arrayElementVarHandle(Object[].class);
+
+    private static final float PROBABILITY = 0.5f;
+
+    /**
+     * Head node, before all the keys. The end of a level is a <code>null</code> pointer.
+     */
+    private final Node head;
+
+    private final int maxLevel;
+
+    /**
+     * The predecessors and successors found by the last search of each writer thread
+     */
+    private final ThreadLocal<Node[][]> fingers;
+
+    /**
+     * Initializes the skip list with a specified maximum number of elements, which determines
+     * the maximum level of the list, as for {@link SkipList#SkipList(int)}.
+     *
+     * @param maxElements the maximum number of elements the skip list is expected to hold
+     */
+    public LongSkipList(int maxElements) {
+        this.maxLevel = Math.max(0, (int) (Math.log(maxElements) / Math.log(1 / PROBABILITY)));
+        this.head = new Node(0, this.maxLevel);
+        this.fingers = ThreadLocal.withInitial(() -> new Node[][]{new Node[this.maxLevel + 1], new Node[this.maxLevel + 1]});
+    }
+
+    /**
+     * Generates a random level for a new node, with the same geometric distribution as
+     * {@link LockFreeSkipList#getRandomLevel()}.
+     *
+     * @return a randomly determined level for a new node
+     */
+    public int getRandomLevel() {
+        int level = 0;
+        while (ThreadLocalRandom.current().nextFloat() < PROBABILITY) {
+            level++;
+        }
+        return Math.min(level, maxLevel);
+    }
+
+    /**
+     * Finds the predecessors and successors of a key at each level, unlinking the marked nodes
+     * on the way. The search starts over from the head when a predecessor gets marked.
+     *
+     * @param key   the key to search for
+     * @param preds receives the last node before the key at each level
+     * @param succs receives the first node at or after the key at each level, or null
+     * @return true if the bottom level holds an unmarked node with the key
+     */
+    private boolean find(long key, Node[] preds, Node[] succs) {
+        retry:
+        while (true) {
+            Node pred = head;
+            Node curr = null;
+            for (int level = maxLevel; level >= 0; level--) {
+                Object ref = NEXT.getAcquire(pred.next, level);
+                if (ref instanceof Marker) {
+                    continue retry;
+                }
+                curr = (Node) ref;
+                while (curr != null) {
+                    Object succ = NEXT.getAcquire(curr.next, level);
+                    while (succ instanceof Marker) {
+                        // curr is being removed, unlink it from this level
+                        Node next = ((Marker) succ).next;
+                        if (!NEXT.compareAndSet(pred.next, level, curr, next)) {
+                            continue retry;
+                        }
+                        curr = next;
+                        if (curr == null) {
+                            break;
+                        }
+                        succ = NEXT.getAcquire(curr.next, level);
+                    }
+                    if (curr == null || curr.key >= key) {
+                        break;
+                    }
+                    pred = curr;
+                    curr = (Node) succ;
+                }
+                preds[level] = pred;
+                succs[level] = curr;
+            }
+            return curr != null && curr.key == key;
+        }
+    }
+
+    /**
+     * Adds a key to the skip list. The node is first linked at the bottom level, which adds
+     * the key to the list, then at the upper levels one at a time.
+     *
+     * @param key the key to add to the skip list
+     * @return true if the key was successfully added, false if the key already exists
+     */
+    public boolean add(long key) {
+        final int topLevel = getRandomLevel();
+        final Node[][] finger = fingers.get();
+        final Node[] preds = finger[0];
+        final Node[] succs = finger[1];
+
+        while (true) {
+            if (find(key, preds, succs)) {
+                return false;
+            }
+
+            Node node = new Node(key, topLevel);
+            for (int level = 0; level <= topLevel; level++) {
+                node.next[level] = succs[level];
+            }
+            // publishes the node and its forward pointers
+            if (!NEXT.compareAndSet(preds[0].next, 0, succs[0], node)) {
+                continue;
+            }
+
+            for (int level = 1; level <= topLevel; level++) {
+                while (!NEXT.compareAndSet(preds[level].next, level, succs[level], node)) {
+                    find(key, preds, succs);
+                    Object ref = NEXT.getAcquire(node.next, level);
+                    if (ref instanceof Marker || succs[level] == node
+                            || !NEXT.compareAndSet(node.next, level, ref, succs[level])) {
+                        // the node is being removed, or is already linked at this level
+                        return true;
+                    }
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Searches for a key in the skip list. The search is wait-free: it writes nothing and
+     * steps over the nodes that are being removed.
+     *
+     * @param key the key to search for in the skip list
+     * @return true if the key is found, false otherwise
+     */
+    public boolean search(long key) {
+        Node pred = head;
+        Node curr = null;
+        for (int level = maxLevel; level >= 0; level--) {
+            curr = successor(NEXT.getAcquire(pred.next, level));
+            while (curr != null) {
+                Object succ = NEXT.getAcquire(curr.next, level);
+                while (succ instanceof Marker) {
+                    curr = ((Marker) succ).next;
+                    if (curr == null) {
+                        break;
+                    }
+                    succ = NEXT.getAcquire(curr.next, level);
+                }
+                if (curr == null || curr.key >= key) {
+                    break;
+                }
+                pred = curr;
+                curr = (Node) succ;
+            }
+        }
+        return curr != null && curr.key == key;
+    }
+
+    /**
+     * Removes a key from the skip list. The forward pointers of its node are marked from the
+     * top level down, the key is removed by the thread that marks the bottom one, which then
+     * unlinks the node.
+     *
+     * @param key the key to remove from the skip list
+     * @return true if the key was successfully removed, false if the key was not found
+     */
+    public boolean remove(long key) {
+        final Node[][] finger = fingers.get();
+        final Node[] preds = finger[0];
+        final Node[] succs = finger[1];
+
+        if (!find(key, preds, succs)) {
+            return false;
+        }
+        Node victim = succs[0];
+
+        for (int level = victim.topLevel; level >= 1; level--) {
+            Object ref = NEXT.getAcquire(victim.next, level);
+            while (!(ref instanceof Marker)) {
+                NEXT.compareAndSet(victim.next, level, ref, new Marker((Node) ref));
+                ref = NEXT.getAcquire(victim.next, level);
+            }
+        }
+
+        Object ref = NEXT.getAcquire(victim.next, 0);
+        while (!(ref instanceof Marker)) {
+            if (NEXT.compareAndSet(victim.next, 0, ref, new Marker((Node) ref))) {
+                // unlink the node from all its levels
+                find(key, preds, succs);
+                return true;
+            }
+            ref = NEXT.getAcquire(victim.next, 0);
+        }
+        return false;
+    }
+
+    /**
+     * Get all the keys within range, in ascending order. The keys added or removed during the
+     * call may or may not be returned.
+     *
+     * @param startKey start key, inclusive
+     * @param endKey   end key, inclusive
+     * @return the keys of the range
+     */
+    public long[] range(long startKey, long endKey) {
+        if (startKey > endKey) {
+            return new long[0];
+        }
+        long[] keys = new long[16];
+        int size = 0;
+
+        Node pred = head;
+        for (int level = maxLevel; level >= 0; level--) {
+            Node curr = successor(NEXT.getAcquire(pred.next, level));
+            while (curr != null && curr.key < startKey) {
+                pred = curr;
+                curr = successor(NEXT.getAcquire(curr.next, level));
+            }
+        }
+
+        Node curr = successor(NEXT.getAcquire(pred.next, 0));
+        while (curr != null && curr.key <= endKey) {
+            Object succ = NEXT.getAcquire(curr.next, 0);
+            if (!(succ instanceof Marker) && curr.key >= startKey) {
+                if (size == keys.length) {
+                    keys = Arrays.copyOf(keys, size << 1);
+                }
+                keys[size++] = curr.key;
+            }
+            curr = successor(succ);
+        }
+        return Arrays.copyOf(keys, size);
+    }
+
+    /**
+     * The node a forward pointer leads to, marked or not
+     */
+    private static Node successor(Object ref) {
+        return ref instanceof Marker ? ((Marker) ref).next : (Node) ref;
+    }
+
+    /**
+     * A node of the lock-free skip list. Its forward pointers are either a successor node,
+     * <code>null</code> at the end of a level, or a {@link Marker} once the node is being
+     * removed.
+     */
+    private static final class Node {
+
+        final long key;
+
+        final Object[] next;
+
+        final int topLevel;
+
+        Node(long key, int topLevel) {
+            this.key = key;
+            this.next = new Object[topLevel + 1];
+            this.topLevel = topLevel;
+        }
+    }
+
+    /**
+     * A marked forward pointer: the node holding it is removed from this level, and its
+     * successor is {@link #next}.
+     */
+    private static final class Marker {
+
+        final Node next;
+
+        Marker(Node next) {
+            this.next = next;
+        }
+    }
+}
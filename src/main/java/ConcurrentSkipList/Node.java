@@ -1,65 +1,126 @@
 package ConcurrentSkipList;
 
-import java.util.concurrent.locks.ReentrantLock;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.List;
-import java.util.ArrayList;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 
 /**
- * Represents a node in a concurrent skip list implementation. Each node holds a value and
- * references to its successors in the skip list. This class is designed to be thread-safe,
- * allowing concurrent modifications through the use of a ReentrantLock. It supports efficient
- * navigation and modification in a skip list data structure, catering to a concurrent environment.
+ * Represents a node in a concurrent skip list implementation. Each node holds a key and
+ * references to its successors in the skip list, the nodes of a map also hold the value of
+ * their key, see {@link ValueNode}. This class is designed to be thread-safe,
+ * allowing concurrent modifications through a lock held in the state of the node. It supports
+ * efficient navigation and modification in a skip list data structure, catering to a
+ * concurrent environment.
+ * <p>
+ * A node is two heap objects: the node itself and the array of its forward pointers. The
+ * lock, the marked flag and the fully linked flag are bits of a single <code>int</code>, so
+ * a node of level 0 takes about 48 bytes instead of the 150 of a node holding a list of
+ * pointers, a lock and two atomic flags. The value of a {@link ValueNode} takes 8 more bytes,
+ * which the nodes of a {@link SkipList} do without.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
  */
-public class Node {
+public class Node<K, V> {
+
+    private static final VarHandle NEXT = MethodHandles.arrayElementVarHandle(Node[].class);
+
+    private static final VarHandle STATE;
+
+    static {
+        try {
+            STATE = MethodHandles.lookup().findVarHandle(Node.class, "state", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
 
     /**
-     * The value stored in this node. It's public and final, indicating that once a node is
-     * created, its value cannot be changed, though its position in the skip list can be.
+     * Bit of {@link #state} set while a thread holds the lock of the node
      */
-    public final String value;
+    private static final int LOCKED = 1;
 
     /**
-     * List of pointers to the next node(s) in the skip list, supporting the layered structure
-     * of the skip list and allowing for efficient traversal and insertion operations.
+     * Bit of {@link #state} set once the node is marked for removal
      */
-    private final List<Node> next = new ArrayList<>();
+    private static final int MARKED = 1 << 1;
 
     /**
-     * A lock to ensure thread-safe operations on this node, crucial for the concurrent
-     * behavior of the skip list. It prevents simultaneous modifications that could lead
-     * to inconsistent states.
+     * Bit of {@link #state} set once the node is linked at all its levels
      */
-    private final ReentrantLock nodeLock = new ReentrantLock();
-    private final AtomicBoolean marked = new AtomicBoolean(false);
-    private final AtomicBoolean fullyLinked = new AtomicBoolean(false);
-    private final int topLevel;
+    private static final int FULLY_LINKED = 1 << 2;
 
-    public Node(String value, int level) {
-        this.value = value;
-        for (int i = 0; i <= level; i++) {
-            next.add(null);
-        }
-        this.topLevel = level;
+    /**
+     * Number of failed attempts to take the lock before yielding the processor
+     */
+    private static final int SPINS = 64;
+
+    /**
+     * The key stored in this node. It's public and final, indicating that once a node is
+     * created, its key cannot be changed, though its position in the skip list can be.
+     */
+    public final K key;
+
+    /**
+     * The pointers to the next node at each level, supporting the layered structure of the
+     * skip list. The array has one element per level of the node, read and written with
+     * acquire and release semantics so that the readers that take no lock see the nodes they
+     * reach fully initialized.
+     */
+    private final Node<K, V>[] next;
+
+    /**
+     * The lock and flags of the node, see {@link #LOCKED}, {@link #MARKED} and
+     * {@link #FULLY_LINKED}
+     */
+    private volatile int state;
+
+    @SuppressWarnings("unchecked")
+    public Node(K key, int level) {
+        this.key = key;
+        this.next = (Node<K, V>[]) new Node<?, ?>[level + 1];
     }
 
     /**
-     * Locks this node to prevent concurrent modifications, ensuring thread-safe operations
-     * on its contents and links. This method should be used before performing any operation
-     * that modifies the node or its connections.
+     * Retrieves the value of the key of this node. Readers take no lock, they read the latest
+     * value written.
+     *
+     * @return the value, or null for a node that holds no value
      */
-    public void lock() {
-        nodeLock.lock();
+    public V getValue() {
+        return null;
     }
 
     /**
-     * Retrieves the ReentrantLock object associated with this node. This allows for custom
-     * lock management strategies outside of the node's predefined methods.
+     * Replaces the value of the key of this node. The caller must hold the lock of the node,
+     * so that the value of a node being removed is never updated.
      *
-     * @return the ReentrantLock for this node
+     * @param value the new value
+     * @throws UnsupportedOperationException if the node holds no value
+     */
+    public void setValue(V value) {
+        throw new UnsupportedOperationException("The node holds no value");
+    }
+
+    /**
+     * Locks this node to prevent concurrent modifications, ensuring thread-safe operations
+     * on its contents and links. This method should be used before performing any operation
+     * that modifies the node or its connections. The lock is not reentrant: a thread must not
+     * lock a node it already holds.
      */
-    public ReentrantLock getNodeLock() {
-        return nodeLock;
+    public void lock() {
+        int spins = 0;
+        while (true) {
+            int current = state;
+            if ((current & LOCKED) == 0 && STATE.compareAndSet(this, current, current | LOCKED)) {
+                return;
+            }
+            if (++spins < SPINS) {
+                Thread.onSpinWait();
+            } else {
+                spins = 0;
+                Thread.yield();
+            }
+        }
     }
 
     /**
@@ -67,7 +128,7 @@ public class Node {
      * after completing an operation that required exclusive access to the node.
      */
     public void unlock() {
-        nodeLock.unlock();
+        STATE.getAndBitwiseAnd(this, ~LOCKED);
     }
 
     /**
@@ -77,7 +138,7 @@ public class Node {
      * @return true if the node is marked for removal, false otherwise
      */
     public boolean isMarked() {
-        return marked.get();
+        return (state & MARKED) != 0;
     }
 
     /**
@@ -87,7 +148,7 @@ public class Node {
      * @param value true to mark the node for removal, false otherwise
      */
     public void setMarked(boolean value) {
-        marked.set(value);
+        setFlag(MARKED, value);
     }
 
     /**
@@ -97,7 +158,7 @@ public class Node {
      * @return true if the node is fully integrated into the skip list, false otherwise
      */
     public boolean isFullyLinked() {
-        return fullyLinked.get();
+        return (state & FULLY_LINKED) != 0;
     }
 
     /**
@@ -107,7 +168,18 @@ public class Node {
      * @param value true to mark the node as fully linked, false otherwise
      */
     public void setFullyLinked(boolean value) {
-        fullyLinked.set(value);
+        setFlag(FULLY_LINKED, value);
+    }
+
+    /**
+     * Set or clear a flag of the state, leaving the lock and the other flag as they are
+     */
+    private void setFlag(int flag, boolean value) {
+        if (value) {
+            STATE.getAndBitwiseOr(this, flag);
+        } else {
+            STATE.getAndBitwiseAnd(this, ~flag);
+        }
     }
 
     /**
@@ -117,7 +189,7 @@ public class Node {
      * @return the top level of this node in the skip list
      */
     public int getTopLevel() {
-        return topLevel;
+        return next.length - 1;
     }
 
     /**
@@ -127,9 +199,10 @@ public class Node {
      * @param level the level to retrieve the next node from
      * @return the next node at the specified level, or null if no such node exists
      */
-    public Node getNext(int level) {
-        if (level >= 0 && level < next.size()) {
-            return next.get(level);
+    @SuppressWarnings("unchecked")
+    public Node<K, V> getNext(int level) {
+        if (level >= 0 && level < next.length) {
+            return (Node<K, V>) NEXT.getAcquire(next, level);
         }
         return null;
     }
@@ -141,8 +214,7 @@ public class Node {
      * @param level the level to set the next node on
      * @param node  the node to set as next at the specified level
      */
-    public void setNext(int level, Node node) {
-        next.set(level, node);
+    public void setNext(int level, Node<K, V> node) {
+        NEXT.setRelease(next, level, node);
     }
 }
-
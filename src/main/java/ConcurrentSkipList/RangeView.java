@@ -0,0 +1,80 @@
+package ConcurrentSkipList;
+
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.stream.Stream;
+
+/**
+ * A lazily evaluated view of the keys or entries of a {@link SkipListMap} within a range, in
+ * ascending or descending order. Nothing is read until the view is iterated, and an iteration
+ * reads the nodes of the skip list one at a time, so reading the first elements of a large
+ * range costs the same as reading a small one.
+ * <p>
+ * The iterators and spliterators are weakly consistent: they never throw a
+ * {@link java.util.ConcurrentModificationException}, return each element at most once, and
+ * may or may not return the elements added or removed after they were created. A view is
+ * immutable, the methods that narrow it return a new view.
+ *
+ * @param <E> the type of the elements
+ */
+public interface RangeView<E> extends Iterable<E> {
+
+    /**
+     * Get the same elements in the reverse order. An ascending iteration follows the bottom
+     * level of the skip list, a descending one searches the predecessor of each element from
+     * the top level, so each step takes O(log n).
+     *
+     * @return the reversed view
+     * @throws IllegalStateException if the view is skipped or limited
+     */
+    RangeView<E> descending();
+
+    /**
+     * Get the view without its first elements, as an offset for pagination.
+     *
+     * @param n the number of elements to skip
+     * @return the view of the remaining elements
+     */
+    RangeView<E> skip(long n);
+
+    /**
+     * Get at most the first elements of the view, as the size of a page.
+     *
+     * @param n the max number of elements
+     * @return the view of the first elements
+     */
+    RangeView<E> limit(long n);
+
+    /**
+     * Iterates over the elements of the view, reading the skip list as it goes.
+     *
+     * @return a weakly consistent iterator
+     */
+    @Override
+    Iterator<E> iterator();
+
+    /**
+     * Get a spliterator over the elements of the view. An ascending view with no skip and no
+     * limit splits at the nodes of the upper levels of the skip list, which roughly halve the
+     * range, so that a large range can be read by a parallel stream. The other views only
+     * split in batches, as a {@link java.util.Spliterators#spliteratorUnknownSize} does.
+     *
+     * @return a weakly consistent spliterator
+     */
+    @Override
+    Spliterator<E> spliterator();
+
+    /**
+     * Get a sequential stream of the elements of the view.
+     *
+     * @return the stream
+     */
+    Stream<E> stream();
+
+    /**
+     * Get a parallel stream of the elements of the view, see {@link #spliterator()}.
+     *
+     * @return the stream
+     */
+    Stream<E> parallelStream();
+}
@@ -0,0 +1,982 @@
+package ConcurrentSkipList;
+
+import java.util.AbstractMap;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Implements a concurrent ordered map on a skip list. A skip list is a probabilistic data
+ * structure that allows for average time complexity of O(log n) for search, insertion, and
+ * deletion operations. This implementation is thread-safe, using the lazy fine-grained locking
+ * algorithm of Herlihy, Lev, Luchangco and Shavit:
+ * <ul>
+ * <li>an insert locks the predecessors of the new node, checks that they are still linked to
+ * its successors, then links the node at all its levels and marks it fully linked.</li>
+ * <li>a remove locks the node and marks it, which removes its key from the map, then locks its
+ * predecessors and unlinks it.</li>
+ * <li>lookups take no lock: a key is in the map if its node is fully linked and not marked.</li>
+ * </ul>
+ * The value of a key is stored in its node and updated in place under the lock of the node, so
+ * an update of an existing key never relinks it, and a lookup reads the value in the same
+ * search that finds the key. Values cannot be <code>null</code>.
+ * <p>
+ * The keys are ordered by a {@link Comparator}, or by their natural ordering. The head and
+ * tail nodes are sentinels that hold no key: the head is before all the keys and the tail
+ * after all of them, whatever the keys are. {@link SkipList} is the set of the keys of such a
+ * map.
+ * <p>
+ * The keys and entries are read in order through lazy {@link RangeView}s, bounded or not, see
+ * {@link #entries()}, {@link #headMap(Object, boolean)}, {@link #tailMap(Object, boolean)} and
+ * {@link #subMap(Object, boolean, Object, boolean)}.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+public class SkipListMap<K, V> {
+
+    /**
+     * Head node
+     */
+    private final Node<K, V> head;
+
+    /**
+     * Tail node
+     */
+    private final Node<K, V> tail;
+    private static final float PROBABILITY = 0.5f;
+    private final int maxLevel;
+
+    /**
+     * The ordering of the keys
+     */
+    private final Comparator<? super K> comparator;
+
+    /**
+     * The number of keys, counted when a node is fully linked or marked
+     */
+    private final LongAdder size = new LongAdder();
+
+    /**
+     * The value of all the keys when the map is the set of its keys, whose nodes then hold no
+     * value, or null
+     */
+    private final V sharedValue;
+
+    /**
+     * Initializes the skip list with a specified maximum number of elements, which determines
+     * the maximum level of the list for efficient operation based on the logarithm of the maximum
+     * elements. It prepares the list with initial head and tail nodes spanning all levels to
+     * facilitate the insertion and deletion processes.
+     * The keys are ordered by their natural ordering, and must be {@link Comparable}.
+     *
+     * @param maxElements the maximum number of elements the skip list is expected to hold
+     */
+    @SuppressWarnings("unchecked")
+    public SkipListMap(int maxElements) {
+        this(maxElements, (Comparator<? super K>) Comparator.naturalOrder());
+    }
+
+    /**
+     * Initializes the skip list with a specified maximum number of elements, see
+     * {@link #SkipListMap(int)}, and the ordering of its keys.
+     *
+     * @param maxElements the maximum number of elements the skip list is expected to hold
+     * @param comparator  the ordering of the keys
+     */
+    public SkipListMap(int maxElements, Comparator<? super K> comparator) {
+        this(maxElements, comparator, null);
+    }
+
+    /**
+     * Initializes a map whose keys all have the same value, see
+     * {@link #SkipListMap(int, Comparator)}. Its nodes hold no value, which saves 8 bytes per
+     * key to the sets of keys such as {@link SkipList}.
+     *
+     * @param maxElements the maximum number of elements the skip list is expected to hold
+     * @param comparator  the ordering of the keys
+     * @param sharedValue the value of all the keys, or null for a map with a value per key
+     */
+    SkipListMap(int maxElements, Comparator<? super K> comparator, V sharedValue) {
+        this.comparator = comparator;
+        this.sharedValue = sharedValue;
+        maxLevel = Math.max(0, (int) (Math.log(maxElements) / Math.log(1 / PROBABILITY)));
+        head = new Node<>(null, maxLevel);
+        tail = new Node<>(null, maxLevel);
+        for (int i = 0; i <= maxLevel; i++) {
+            head.setNext(i, tail);
+        }
+    }
+
+    /**
+     * Get the ordering of the keys
+     *
+     * @return the comparator of the keys
+     */
+    public Comparator<? super K> comparator() {
+        return comparator;
+    }
+
+    /**
+     * Compares a key with the key of a node, the tail being after all the keys. The head is
+     * never compared, the searches start after it.
+     */
+    private int compare(K key, Node<K, V> node) {
+        return node == tail ? -1 : comparator.compare(key, node.key);
+    }
+
+    /**
+     * Searches for the position of a key within the skip list, updating the provided arrays of
+     * predecessors and successors at each level. This method is primarily used by the updates
+     * and lookups to locate a key while keeping track of its potential neighbors for efficient
+     * modification of the list structure.
+     *
+     * @param key          the key to search for in the skip list
+     * @param predecessors an array to be populated with the preceding nodes at each level for the key
+     * @param successors   an array to be populated with the succeeding nodes at each level for the key
+     * @return the highest level at which the key was found, or -1 if not found
+     */
+    public int find(K key, Node<K, V>[] predecessors, Node<K, V>[] successors) {
+        int found = -1;
+        Node<K, V> prev = head;
+
+        for (int level = maxLevel; level >= 0; level--) {
+            Node<K, V> curr = prev.getNext(level);
+
+            int comparison;
+            while ((comparison = compare(key, curr)) > 0) {
+                prev = curr;
+                curr = prev.getNext(level);
+            }
+
+            if (found == -1 && comparison == 0) {
+                found = level;
+            }
+
+            predecessors[level] = prev;
+            successors[level] = curr;
+        }
+
+        return found;
+    }
+
+    /**
+     * Finds the node of a key, without recording the predecessors and successors.
+     *
+     * @return the node holding the key, marked or not, or null if there is none
+     */
+    private Node<K, V> findNode(K key) {
+        Node<K, V> prev = head;
+        for (int level = maxLevel; level >= 0; level--) {
+            Node<K, V> curr = prev.getNext(level);
+            int comparison;
+            while ((comparison = compare(key, curr)) > 0) {
+                prev = curr;
+                curr = prev.getNext(level);
+            }
+            if (comparison == 0) {
+                return curr;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Generates a random level for a new node being inserted into the skip list. The level is
+     * determined probabilistically to maintain the balance and efficiency of the skip list's
+     * layered structure. This method uses a geometric distribution with a predefined probability
+     * to ensure the logarithmic complexity of operations.
+     *
+     * @return a randomly determined level for a new node
+     */
+    public int getRandomLevel() {
+        int level = 0;
+        while (ThreadLocalRandom.current().nextFloat() < 0.5) {
+            level++;
+        }
+        return Math.min(level, maxLevel);
+    }
+
+    /**
+     * Returns the value of a key. The lookup takes no lock.
+     *
+     * @param key the key to look for
+     * @return the value of the key, or null if the key is not in the map
+     */
+    public V get(K key) {
+        Node<K, V> node = findNode(key);
+        if (node == null || !node.isFullyLinked() || node.isMarked()) {
+            return null;
+        }
+        return valueOf(node);
+    }
+
+    /**
+     * Checks if a key is in the map. The lookup takes no lock: the key is present if its node
+     * is fully linked and not marked for removal.
+     *
+     * @param key the key to look for
+     * @return true if the key is found, false otherwise
+     */
+    public boolean containsKey(K key) {
+        Node<K, V> node = findNode(key);
+        return node != null && node.isFullyLinked() && !node.isMarked();
+    }
+
+    /**
+     * Associates a value with a key. The value of an existing key is replaced in place, under
+     * the lock of its node.
+     *
+     * @param key   the key
+     * @param value the value, not null
+     * @return the previous value of the key, or null if the key was not in the map
+     */
+    public V put(K key, V value) {
+        Objects.requireNonNull(value);
+        return insert(key, value, false);
+    }
+
+    /**
+     * Associates a value with a key, if the key is not in the map.
+     *
+     * @param key   the key
+     * @param value the value, not null
+     * @return the current value of the key, or null if the key was added
+     */
+    public V putIfAbsent(K key, V value) {
+        Objects.requireNonNull(value);
+        return insert(key, value, true);
+    }
+
+    /**
+     * Adds a key with its value, or updates the value of an existing key unless
+     * <code>onlyIfAbsent</code> is set.
+     *
+     * @return the value of the existing key, or null if the key was added
+     */
+    private V insert(K key, V value, boolean onlyIfAbsent) {
+        int topLevel = getRandomLevel();
+
+        Node<K, V>[] preds = newNodes();
+        Node<K, V>[] succs = newNodes();
+
+        while (true) {
+            int found = find(key, preds, succs);
+            if (found != -1) {
+                Node<K, V> nodeFound = succs[found];
+                if (!nodeFound.isMarked()) {
+                    while (!nodeFound.isFullyLinked()) {
+                        Thread.onSpinWait();
+                    }
+                    if (onlyIfAbsent) {
+                        return valueOf(nodeFound);
+                    }
+                    nodeFound.lock();
+                    try {
+                        if (!nodeFound.isMarked()) {
+                            V previous = valueOf(nodeFound);
+                            setValue(nodeFound, value);
+                            return previous;
+                        }
+                    } finally {
+                        nodeFound.unlock();
+                    }
+                }
+                // the node is being removed, wait for it to be unlinked
+                continue;
+            }
+
+            int highestLocked = -1;
+            try {
+                boolean valid = true;
+                for (int level = 0; valid && (level <= topLevel); level++) {
+                    Node<K, V> pred = preds[level];
+                    Node<K, V> succ = succs[level];
+                    // the predecessors of consecutive levels are often the same node
+                    if (level == 0 || pred != preds[level - 1]) {
+                        pred.lock();
+                    }
+                    highestLocked = level;
+                    valid = !pred.isMarked() && !succ.isMarked() && pred.getNext(level) == succ;
+                }
+
+                if (!valid) {
+                    continue;
+                }
+
+                Node<K, V> newNode = newNode(key, value, topLevel);
+                for (int level = 0; level <= topLevel; level++) {
+                    newNode.setNext(level, succs[level]);
+                }
+                for (int level = 0; level <= topLevel; level++) {
+                    preds[level].setNext(level, newNode);
+                }
+                newNode.setFullyLinked(true);
+                size.increment();
+                return null;
+            } finally {
+                unlockPredecessors(preds, highestLocked);
+            }
+        }
+    }
+
+    /**
+     * Updates the value of a key that is in the map. The function is called under the lock of
+     * the node of the key, so it must be short and must not update this map. If it returns
+     * null, the key is removed.
+     *
+     * @param key               the key
+     * @param remappingFunction computes the new value from the key and its current value
+     * @return the new value of the key, or null if the key is not in the map or was removed
+     */
+    public V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        Node<K, V>[] preds = newNodes();
+        Node<K, V>[] succs = newNodes();
+
+        int found = find(key, preds, succs);
+        if (found == -1) {
+            return null;
+        }
+        Node<K, V> node = succs[found];
+        if (!node.isFullyLinked() || node.getTopLevel() != found) {
+            return null;
+        }
+
+        node.lock();
+        if (node.isMarked()) {
+            node.unlock();
+            return null;
+        }
+        V newValue;
+        try {
+            newValue = remappingFunction.apply(key, valueOf(node));
+            if (newValue != null) {
+                setValue(node, newValue);
+            }
+        } catch (RuntimeException | Error e) {
+            node.unlock();
+            throw e;
+        }
+        if (newValue != null) {
+            node.unlock();
+            return newValue;
+        }
+
+        node.setMarked(true);
+        size.decrement();
+        unlink(key, node, preds, succs);
+        return null;
+    }
+
+    /**
+     * Removes a key from the map. The method first locates the key using the find method
+     * to get its predecessors and successors, then adjusts the pointers to exclude the key from
+     * the list. If the key is not found, the method returns null, indicating failure to remove.
+     *
+     * @param key the key to remove
+     * @return the value of the key, or null if the key was not found
+     */
+    public V remove(K key) {
+        return remove(key, null, false);
+    }
+
+    /**
+     * Removes a key from the map if it has the given value.
+     *
+     * @param key   the key to remove
+     * @param value the expected value of the key
+     * @return true if the key was removed, false if it was not found or had another value
+     */
+    public boolean remove(K key, V value) {
+        return value != null && remove(key, value, true) != null;
+    }
+
+    /**
+     * Removes a key, only if it has the expected value when <code>checkValue</code> is set.
+     *
+     * @return the value of the key, or null if nothing was removed
+     */
+    private V remove(K key, V expected, boolean checkValue) {
+        Node<K, V>[] preds = newNodes();
+        Node<K, V>[] succs = newNodes();
+
+        int found = find(key, preds, succs);
+        if (found == -1) {
+            return null;
+        }
+        Node<K, V> victim = succs[found];
+        if (!victim.isFullyLinked() || victim.getTopLevel() != found || victim.isMarked()) {
+            return null;
+        }
+
+        victim.lock();
+        V value = valueOf(victim);
+        if (victim.isMarked() || (checkValue && !expected.equals(value))) {
+            victim.unlock();
+            return null;
+        }
+        victim.setMarked(true);
+        size.decrement();
+        unlink(key, victim, preds, succs);
+        return value;
+    }
+
+    /**
+     * Unlinks a node that the caller locked and marked, which removed its key from the map.
+     * The predecessors are locked and checked, and searched again until they still point to
+     * the node. The node is unlocked once unlinked.
+     *
+     * @param preds the predecessors of the node, as found before it was marked
+     * @param succs the successors buffer for the searches
+     */
+    private void unlink(K key, Node<K, V> victim, Node<K, V>[] preds, Node<K, V>[] succs) {
+        final int topLevel = victim.getTopLevel();
+        while (true) {
+            int highestLocked = -1;
+            try {
+                boolean valid = true;
+                for (int level = 0; valid && (level <= topLevel); level++) {
+                    Node<K, V> pred = preds[level];
+                    if (level == 0 || pred != preds[level - 1]) {
+                        pred.lock();
+                    }
+                    highestLocked = level;
+                    valid = !pred.isMarked() && pred.getNext(level) == victim;
+                }
+
+                if (valid) {
+                    for (int level = topLevel; level >= 0; level--) {
+                        preds[level].setNext(level, victim.getNext(level));
+                    }
+                    victim.unlock();
+                    return;
+                }
+            } finally {
+                unlockPredecessors(preds, highestLocked);
+            }
+            find(key, preds, succs);
+        }
+    }
+
+    /**
+     * Creates the node of a key, holding its value unless all the keys have the same one
+     */
+    private Node<K, V> newNode(K key, V value, int level) {
+        if (sharedValue != null) {
+            checkSharedValue(value);
+            return new Node<>(key, level);
+        }
+        return new ValueNode<>(key, value, level);
+    }
+
+    private V valueOf(Node<K, V> node) {
+        return sharedValue != null ? sharedValue : node.getValue();
+    }
+
+    /**
+     * Replaces the value of a key, which must be the shared value if the nodes hold no value
+     */
+    private void setValue(Node<K, V> node, V value) {
+        if (sharedValue == null) {
+            node.setValue(value);
+        } else {
+            checkSharedValue(value);
+        }
+    }
+
+    private void checkSharedValue(V value) {
+        if (!sharedValue.equals(value)) {
+            throw new UnsupportedOperationException("All the keys of this map have the value " + sharedValue);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Node<K, V>[] newNodes() {
+        return (Node<K, V>[]) new Node<?, ?>[maxLevel + 1];
+    }
+
+    /**
+     * Unlocks the predecessors locked from level 0 to the given level, each node once.
+     */
+    private static void unlockPredecessors(Node<?, ?>[] preds, int highestLocked) {
+        for (int level = 0; level <= highestLocked; level++) {
+            if (level == 0 || preds[level] != preds[level - 1]) {
+                preds[level].unlock();
+            }
+        }
+    }
+
+    /**
+     * Get the number of keys. Under concurrent updates the count is approximate, it includes
+     * the updates that are in progress or not.
+     *
+     * @return the number of keys
+     */
+    public long size() {
+        return Math.max(0, size.sum());
+    }
+
+    /**
+     * Get all the entries within range, in the order of the keys. The range is read with
+     * {@link #subMap(Object, boolean, Object, boolean)}, which reads it lazily instead.
+     *
+     * @param startKey start key
+     * @param endKey   end key
+     * @return the keys of the range and their values
+     */
+    public Map<K, V> range(K startKey, K endKey) {
+        // ordered by the comparator, which also works for keys without equals and hashCode
+        Map<K, V> rangeOutput = new TreeMap<>(comparator);
+        for (Map.Entry<K, V> entry : subMap(startKey, true, endKey, true)) {
+            rangeOutput.put(entry.getKey(), entry.getValue());
+        }
+        return rangeOutput;
+    }
+
+    /**
+     * Get a lazy view of all the entries, in the order of the keys. The entries are snapshots:
+     * they hold the value of their key when they were read, and cannot be updated.
+     *
+     * @return the entries of the map
+     */
+    public RangeView<Map.Entry<K, V>> entries() {
+        return new Range<>(null, false, null, false, this::entry, null);
+    }
+
+    /**
+     * Get a lazy view of the entries whose keys are before a key, see {@link #entries()}.
+     *
+     * @param toKey     the upper bound
+     * @param inclusive whether the entry of the bound is in the view
+     * @return the entries before the bound
+     */
+    public RangeView<Map.Entry<K, V>> headMap(K toKey, boolean inclusive) {
+        return new Range<>(null, false, Objects.requireNonNull(toKey), inclusive, this::entry, null);
+    }
+
+    /**
+     * Get a lazy view of the entries whose keys are after a key, see {@link #entries()}.
+     *
+     * @param fromKey   the lower bound
+     * @param inclusive whether the entry of the bound is in the view
+     * @return the entries after the bound
+     */
+    public RangeView<Map.Entry<K, V>> tailMap(K fromKey, boolean inclusive) {
+        return new Range<>(Objects.requireNonNull(fromKey), inclusive, null, false, this::entry, null);
+    }
+
+    /**
+     * Get a lazy view of the entries whose keys are between two keys, see {@link #entries()}.
+     * The view is empty if the lower bound is after the upper one.
+     *
+     * @param fromKey       the lower bound
+     * @param fromInclusive whether the entry of the lower bound is in the view
+     * @param toKey         the upper bound
+     * @param toInclusive   whether the entry of the upper bound is in the view
+     * @return the entries between the bounds
+     */
+    public RangeView<Map.Entry<K, V>> subMap(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive) {
+        return new Range<>(Objects.requireNonNull(fromKey), fromInclusive, Objects.requireNonNull(toKey),
+                toInclusive, this::entry, null);
+    }
+
+    /**
+     * Get a lazy view of the keys between two optional bounds, in their order. A null bound
+     * leaves that side of the range open.
+     *
+     * @param fromKey       the lower bound, or null
+     * @param fromInclusive whether the lower bound is in the view
+     * @param toKey         the upper bound, or null
+     * @param toInclusive   whether the upper bound is in the view
+     * @return the keys between the bounds
+     */
+    RangeView<K> keys(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive) {
+        return new Range<>(fromKey, fromInclusive, toKey, toInclusive, node -> node.key, comparator);
+    }
+
+    private Map.Entry<K, V> entry(Node<K, V> node) {
+        return new AbstractMap.SimpleImmutableEntry<>(node.key, valueOf(node));
+    }
+
+    /**
+     * Checks if a node holds a key of the map: it is fully linked and not marked
+     */
+    private static boolean isLive(Node<?, ?> node) {
+        return node.isFullyLinked() && !node.isMarked();
+    }
+
+    /**
+     * Finds the first key after a bound.
+     *
+     * @param fromKey   the lower bound, or null for the first key of the map
+     * @param inclusive whether the node of the bound can be returned
+     * @return the first live node after the bound, or null if there is none
+     */
+    private Node<K, V> ceilingNode(K fromKey, boolean inclusive) {
+        Node<K, V> prev = head;
+        Node<K, V> curr = head.getNext(0);
+        if (fromKey != null) {
+            for (int level = maxLevel; level >= 0; level--) {
+                curr = prev.getNext(level);
+                int comparison;
+                while ((comparison = compare(fromKey, curr)) > 0 || (comparison == 0 && !inclusive)) {
+                    prev = curr;
+                    curr = prev.getNext(level);
+                }
+            }
+        }
+        // start from the node found after the bound: reading the successor of prev again could
+        // return a key inserted meanwhile before the bound
+        while (curr != tail && !isLive(curr)) {
+            curr = curr.getNext(0);
+        }
+        return curr == tail ? null : curr;
+    }
+
+    /**
+     * Finds the last key before a bound. The predecessors of a node are not linked backwards,
+     * so this is a search from the head, started over before the nodes being removed.
+     *
+     * @param toKey     the upper bound, or null for the last key of the map
+     * @param inclusive whether the node of the bound can be returned
+     * @return the last live node before the bound, or null if there is none
+     */
+    private Node<K, V> floorNode(K toKey, boolean inclusive) {
+        while (true) {
+            Node<K, V> prev = head;
+            for (int level = maxLevel; level >= 0; level--) {
+                Node<K, V> curr = prev.getNext(level);
+                while (curr != tail) {
+                    int comparison = toKey == null ? 1 : compare(toKey, curr);
+                    if (comparison < 0 || (comparison == 0 && !inclusive)) {
+                        break;
+                    }
+                    prev = curr;
+                    curr = prev.getNext(level);
+                }
+            }
+            if (prev == head) {
+                return null;
+            }
+            if (isLive(prev)) {
+                return prev;
+            }
+            toKey = prev.key;
+            inclusive = false;
+        }
+    }
+
+    /**
+     * Follows the bottom level from a node to the next live node. A removed node keeps its
+     * forward pointers, so an iteration can go on from a node removed meanwhile.
+     *
+     * @return the next live node, or null at the end of the map
+     */
+    private Node<K, V> nextNode(Node<K, V> node) {
+        Node<K, V> next = node.getNext(0);
+        while (next != tail && !isLive(next)) {
+            next = next.getNext(0);
+        }
+        return next == tail ? null : next;
+    }
+
+    /**
+     * Finds a key to split a range at: the first key after the lower bound at the highest
+     * level where it is before the upper bound. The nodes of a level are about twice as far
+     * apart as those of the level below, so the key is roughly in the middle of a long range.
+     *
+     * @param fromKey the first key of the range
+     * @param toKey   the upper bound of the range, or null
+     * @return a key after the first one and before the bound, or null if the range is too short
+     */
+    private K splitKey(K fromKey, K toKey) {
+        Node<K, V> prev = head;
+        for (int level = maxLevel; level >= 1; level--) {
+            Node<K, V> curr = prev.getNext(level);
+            while (compare(fromKey, curr) >= 0) {
+                prev = curr;
+                curr = prev.getNext(level);
+            }
+            if (curr != tail && (toKey == null || compare(toKey, curr) > 0)) {
+                return curr.key;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks if a key is past an upper bound, which is null for no bound
+     */
+    private boolean afterTo(K key, K toKey, boolean inclusive) {
+        if (toKey == null) {
+            return false;
+        }
+        int comparison = comparator.compare(key, toKey);
+        return comparison > 0 || (comparison == 0 && !inclusive);
+    }
+
+    /**
+     * A view of the map between two optional bounds. Its elements are taken from the live nodes
+     * of the range, in ascending or descending order, then skipped and limited.
+     */
+    private final class Range<E> implements RangeView<E> {
+
+        private final K fromKey;
+        private final boolean fromInclusive;
+        private final K toKey;
+        private final boolean toInclusive;
+        private final boolean descending;
+
+        /**
+         * Number of elements skipped at the start of the view
+         */
+        private final long skip;
+
+        /**
+         * Max number of elements of the view, {@link Long#MAX_VALUE} for no limit
+         */
+        private final long limit;
+
+        /**
+         * Reads the element of a node
+         */
+        private final Function<Node<K, V>, E> element;
+
+        /**
+         * The ordering of the elements if they are the keys, or null
+         */
+        private final Comparator<? super K> keyOrder;
+
+        Range(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive,
+              Function<Node<K, V>, E> element, Comparator<? super K> keyOrder) {
+            this(fromKey, fromInclusive, toKey, toInclusive, false, 0, Long.MAX_VALUE, element, keyOrder);
+        }
+
+        private Range(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive, boolean descending,
+                      long skip, long limit, Function<Node<K, V>, E> element, Comparator<? super K> keyOrder) {
+            this.fromKey = fromKey;
+            this.fromInclusive = fromInclusive;
+            this.toKey = toKey;
+            this.toInclusive = toInclusive;
+            this.descending = descending;
+            this.skip = skip;
+            this.limit = limit;
+            this.element = element;
+            this.keyOrder = keyOrder;
+        }
+
+        @Override
+        public RangeView<E> descending() {
+            if (skip != 0 || limit != Long.MAX_VALUE) {
+                throw new IllegalStateException("Cannot reverse a skipped or limited view");
+            }
+            return new Range<>(fromKey, fromInclusive, toKey, toInclusive, !descending, 0, Long.MAX_VALUE,
+                    element, keyOrder);
+        }
+
+        @Override
+        public RangeView<E> skip(long n) {
+            if (n < 0) {
+                throw new IllegalArgumentException("Negative skip: " + n);
+            }
+            long newSkip = skip + n < 0 ? Long.MAX_VALUE : skip + n;
+            long newLimit = limit == Long.MAX_VALUE ? limit : Math.max(0, limit - n);
+            return new Range<>(fromKey, fromInclusive, toKey, toInclusive, descending, newSkip, newLimit,
+                    element, keyOrder);
+        }
+
+        @Override
+        public RangeView<E> limit(long n) {
+            if (n < 0) {
+                throw new IllegalArgumentException("Negative limit: " + n);
+            }
+            return new Range<>(fromKey, fromInclusive, toKey, toInclusive, descending, skip, Math.min(limit, n),
+                    element, keyOrder);
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            return new RangeIterator();
+        }
+
+        @Override
+        public Spliterator<E> spliterator() {
+            if (descending || skip != 0 || limit != Long.MAX_VALUE) {
+                int characteristics = characteristics();
+                if (keyOrder != Comparator.naturalOrder()) {
+                    // the batches split from this spliterator would report the natural ordering
+                    characteristics &= ~Spliterator.SORTED;
+                }
+                return Spliterators.spliteratorUnknownSize(iterator(), characteristics);
+            }
+            return new RangeSpliterator(first(), toKey, toInclusive, size());
+        }
+
+        @Override
+        public Stream<E> stream() {
+            return StreamSupport.stream(spliterator(), false);
+        }
+
+        @Override
+        public Stream<E> parallelStream() {
+            return StreamSupport.stream(spliterator(), true);
+        }
+
+        private int characteristics() {
+            int characteristics = Spliterator.DISTINCT | Spliterator.NONNULL | Spliterator.CONCURRENT
+                    | Spliterator.ORDERED;
+            // a descending view is ordered, but not sorted by the comparator
+            return keyOrder != null && !descending ? characteristics | Spliterator.SORTED : characteristics;
+        }
+
+        private boolean beforeFrom(K key) {
+            if (fromKey == null) {
+                return false;
+            }
+            int comparison = comparator.compare(key, fromKey);
+            return comparison < 0 || (comparison == 0 && !fromInclusive);
+        }
+
+        /**
+         * The first node of the view in its order, before the skip, or null
+         */
+        private Node<K, V> first() {
+            Node<K, V> node = descending ? floorNode(toKey, toInclusive) : ceilingNode(fromKey, fromInclusive);
+            return node == null || !contains(node) ? null : node;
+        }
+
+        /**
+         * The node after the given one in the order of the view, or null
+         */
+        private Node<K, V> advance(Node<K, V> node) {
+            Node<K, V> next = descending ? floorNode(node.key, false) : nextNode(node);
+            return next == null || !contains(next) ? null : next;
+        }
+
+        /**
+         * Checks the bound that a node found from the other bound can be past
+         */
+        private boolean contains(Node<K, V> node) {
+            return descending ? !beforeFrom(node.key) : !afterTo(node.key, toKey, toInclusive);
+        }
+
+        /**
+         * Iterates over the view, one node ahead so that {@link #hasNext()} is exact
+         */
+        private final class RangeIterator implements Iterator<E> {
+
+            private Node<K, V> next;
+
+            private long remaining = limit;
+
+            RangeIterator() {
+                next = remaining == 0 ? null : first();
+                for (long i = 0; i < skip && next != null; i++) {
+                    next = advance(next);
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public E next() {
+                Node<K, V> node = next;
+                if (node == null) {
+                    throw new NoSuchElementException();
+                }
+                next = --remaining == 0 ? null : advance(node);
+                return element.apply(node);
+            }
+        }
+
+        /**
+         * Reads an ascending range along the bottom level. A split gives away the first part of
+         * the range, up to a key found by {@link #splitKey(Object, Object)}.
+         */
+        private final class RangeSpliterator implements Spliterator<E> {
+
+            /**
+             * Next node to read, or null once done
+             */
+            private Node<K, V> current;
+
+            /**
+             * Upper bound of the keys read, or null
+             */
+            private final K fence;
+            private final boolean fenceInclusive;
+
+            private long estimate;
+
+            RangeSpliterator(Node<K, V> current, K fence, boolean fenceInclusive, long estimate) {
+                this.current = current;
+                this.fence = fence;
+                this.fenceInclusive = fenceInclusive;
+                this.estimate = estimate;
+            }
+
+            @Override
+            public boolean tryAdvance(Consumer<? super E> action) {
+                Node<K, V> node = current;
+                if (node == null || afterTo(node.key, fence, fenceInclusive)) {
+                    current = null;
+                    return false;
+                }
+                current = nextNode(node);
+                action.accept(element.apply(node));
+                return true;
+            }
+
+            @Override
+            public Spliterator<E> trySplit() {
+                Node<K, V> node = current;
+                if (node == null) {
+                    return null;
+                }
+                K split = splitKey(node.key, fence);
+                if (split == null) {
+                    return null;
+                }
+                estimate >>>= 1;
+                current = ceilingNode(split, true);
+                return new RangeSpliterator(node, split, false, estimate);
+            }
+
+            @Override
+            public long estimateSize() {
+                return estimate;
+            }
+
+            @Override
+            public int characteristics() {
+                return Range.this.characteristics();
+            }
+
+            @Override
+            public Comparator<? super E> getComparator() {
+                if (keyOrder == null) {
+                    throw new IllegalStateException();
+                }
+                @SuppressWarnings("unchecked")
+                Comparator<? super E> order = (Comparator<? super E>) keyOrder;
+                // null stands for the natural ordering
+                return order == Comparator.naturalOrder() ? null : order;
+            }
+        }
+    }
+}
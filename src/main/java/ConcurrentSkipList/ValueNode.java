@@ -0,0 +1,30 @@
+package ConcurrentSkipList;
+
+/**
+ * A node of a {@link SkipListMap} that holds the value of its key, see {@link Node}.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+final class ValueNode<K, V> extends Node<K, V> {
+
+    /**
+     * The value of the key, replaced in place under the lock of the node
+     */
+    private volatile V value;
+
+    ValueNode(K key, V value, int level) {
+        super(key, level);
+        this.value = value;
+    }
+
+    @Override
+    public V getValue() {
+        return value;
+    }
+
+    @Override
+    public void setValue(V value) {
+        this.value = value;
+    }
+}
@@ -2,7 +2,7 @@ package CuckooFilter;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.locks.ReentrantLock;
 
 /**
@@ -13,7 +13,7 @@ import java.util.concurrent.locks.ReentrantLock;
  */
 public class Bucket {
     private static final int DEFAULT_BUCKET_SIZE = 4;
-    private final List<String> bucket;
+    private final List<Integer> bucket;
     private final ReentrantLock lock = new ReentrantLock();
     private final int capacity = DEFAULT_BUCKET_SIZE;
 
@@ -28,7 +28,7 @@ public class Bucket {
      * @param fingerprint the fingerprint to insert into the bucket
      * @return true if the insertion is successful, false if the bucket is full
      */
-    public boolean insert(String fingerprint) {
+    public boolean insert(int fingerprint) {
         lock.lock();
         try {
             if (bucket.size() >= capacity) {
@@ -48,10 +48,10 @@ public class Bucket {
      * @param fingerprint the fingerprint to delete from the bucket
      * @return true if the fingerprint was found and deleted, false otherwise
      */
-    public boolean delete(String fingerprint) {
+    public boolean delete(int fingerprint) {
         lock.lock();
         try {
-            return bucket.remove(fingerprint);
+            return bucket.remove(Integer.valueOf(fingerprint));
         } finally {
             lock.unlock();
         }
@@ -64,8 +64,13 @@ public class Bucket {
      * @param fingerprint the fingerprint to find within the bucket
      * @return the index of the fingerprint if found, -1 if not found
      */
-    public int getFingerprintIndex(String fingerprint) {
-        return bucket.indexOf(fingerprint);
+    public int getFingerprintIndex(int fingerprint) {
+        lock.lock();
+        try {
+            return bucket.indexOf(fingerprint);
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -75,12 +80,11 @@ public class Bucket {
      * @param fingerprint the fingerprint to swap into the bucket
      * @return the fingerprint that was replaced in the swap process
      */
-    public String swap(String fingerprint) {
+    public int swap(int fingerprint) {
         lock.lock();
         try {
-            Random rand = new Random();
-            int index = rand.nextInt(bucket.size());
-            String temp = bucket.get(index);
+            int index = ThreadLocalRandom.current().nextInt(bucket.size());
+            int temp = bucket.get(index);
             bucket.set(index, fingerprint);
             return temp;
         } finally {
@@ -95,7 +99,56 @@ public class Bucket {
      * @param fingerprint the fingerprint to check for
      * @return true if the fingerprint is present, false otherwise
      */
-    public boolean contains(String fingerprint) {
+    public boolean contains(int fingerprint) {
         return getFingerprintIndex(fingerprint) > -1;
     }
-}
\ No newline at end of file
+
+    /**
+     * Retrieves the fingerprint stored at a given position of the bucket.
+     *
+     * @param slot the position in the bucket
+     * @return the fingerprint, or 0 if there is no fingerprint at this position
+     */
+    public int get(int slot) {
+        lock.lock();
+        try {
+            return slot < bucket.size() ? bucket.get(slot) : 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stores a fingerprint at a given position of the bucket, or appends it if
+     * the position is past the fingerprints of the bucket. Storing 0 removes
+     * the fingerprint at this position.
+     *
+     * @param slot        the position in the bucket
+     * @param fingerprint the fingerprint to store
+     */
+    public void set(int slot, int fingerprint) {
+        lock.lock();
+        try {
+            if (slot >= bucket.size()) {
+                if (fingerprint != 0) {
+                    bucket.add(fingerprint);
+                }
+            } else if (fingerprint == 0) {
+                bucket.remove(slot);
+            } else {
+                bucket.set(slot, fingerprint);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Retrieves the number of fingerprints stored in the bucket.
+     *
+     * @return the number of fingerprints
+     */
+    public int size() {
+        return bucket.size();
+    }
+}
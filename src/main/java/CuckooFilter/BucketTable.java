@@ -0,0 +1,79 @@
+package CuckooFilter;
+
+/**
+ * A {@link FingerprintTable} made of one {@link Bucket} object per bucket,
+ * each holding its fingerprints in a list guarded by its own lock. This is
+ * the original layout of the filter, it takes far more memory than a
+ * {@link PackedTable}.
+ */
+public class BucketTable implements FingerprintTable {
+
+    private final Bucket[] buckets;
+
+    private final int fingerprintBits;
+
+    public BucketTable(int numBuckets, int fingerprintBits) {
+        if (fingerprintBits < 1 || fingerprintBits > Integer.SIZE) {
+            throw new IllegalArgumentException("Fingerprint size must be between 1 and 32 bits: " + fingerprintBits);
+        }
+
+        this.buckets = new Bucket[numBuckets];
+        for (int i = 0; i < numBuckets; i++) {
+            this.buckets[i] = new Bucket();
+        }
+        this.fingerprintBits = fingerprintBits;
+    }
+
+    @Override
+    public int numBuckets() {
+        return this.buckets.length;
+    }
+
+    @Override
+    public int fingerprintBits() {
+        return this.fingerprintBits;
+    }
+
+    @Override
+    public int get(int bucket, int slot) {
+        return this.buckets[bucket].get(slot);
+    }
+
+    @Override
+    public void set(int bucket, int slot, int fingerprint) {
+        this.buckets[bucket].set(slot, fingerprint);
+    }
+
+    @Override
+    public boolean contains(int bucket, int fingerprint) {
+        return this.buckets[bucket].contains(fingerprint);
+    }
+
+    @Override
+    public boolean insert(int bucket, int fingerprint) {
+        return this.buckets[bucket].insert(fingerprint);
+    }
+
+    @Override
+    public boolean delete(int bucket, int fingerprint) {
+        return this.buckets[bucket].delete(fingerprint);
+    }
+
+    @Override
+    public TableLayout layout() {
+        return TableLayout.BUCKETS;
+    }
+
+    /**
+     * Rough estimate: the array slot, the bucket with its lock and list, and
+     * a boxed integer per fingerprint.
+     */
+    @Override
+    public long sizeInBytes() {
+        long size = 16 + 4L * this.buckets.length;
+        for (Bucket bucket : this.buckets) {
+            size += 16 + 48 + 40 + 16L * bucket.size();
+        }
+        return size;
+    }
+}
@@ -0,0 +1,250 @@
+package CuckooFilter;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.util.BitSet;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A cuckoo filter for many readers and several writers, following the design
+ * of libcuckoo. The buckets are split in stripes, each with a version counter
+ * that writers use as a lock, see {@link VersionStripes}:
+ * <ul>
+ * <li>readers are optimistic: they read the versions of the stripes of their
+ * two buckets, read the buckets, then check that the versions did not
+ * change, and only read again when a writer updated one of their two stripes
+ * meanwhile. Unlike the readers of libcuckoo they are not wait-free: after
+ * {@link #OPTIMISTIC_READS} failed attempts, a reader locks the two stripes
+ * as a writer would, so that a stream of writers cannot keep it retrying
+ * forever.</li>
+ * <li>writers only lock the stripes of the buckets they update, so writers of
+ * different buckets run in parallel.</li>
+ * <li>when both buckets of an item are full, the shortest cuckoo path is
+ * searched without any lock, then the fingerprints of the path are moved one
+ * at a time from its end, each move locking its two buckets. A fingerprint is
+ * copied to its new bucket before being removed from the old one, so readers
+ * never miss a fingerprint that is being moved.</li>
+ * </ul>
+ * The fingerprints are stored in a {@link PackedTable}. This filter has no stash, an insert
+ * fails when no path frees a slot for the item.
+ */
+public class ConcurrentCuckooFilter extends CuckooFilter {
+
+    /**
+     * Max number of path searches for a single insert, before giving up
+     */
+    private static final int MAX_ATTEMPTS = 8;
+
+    /**
+     * Max number of lock-free reads of the buckets of an item, before reading them under the
+     * locks of their stripes
+     */
+    static final int OPTIMISTIC_READS = 16;
+
+    private final VersionStripes stripes;
+
+    /**
+     * The path search of each writer thread
+     */
+    private final ThreadLocal<CuckooPath> paths = ThreadLocal.withInitial(CuckooPath::new);
+
+    private final LongAdder size = new LongAdder();
+
+    /**
+     * Creates a concurrent cuckoo filter.
+     *
+     * @param capacity        the number of items the filter should hold
+     * @param fingerprintBits the size of a fingerprint in bits, 8, 12, 16 or 32
+     */
+    public ConcurrentCuckooFilter(int capacity, int fingerprintBits) {
+        super(capacity, fingerprintBits, TableLayout.PACKED);
+        this.stripes = new VersionStripes(this.table.numBuckets());
+    }
+
+    /**
+     * Inserts an item into the cuckoo filter, moving other fingerprints along
+     * the shortest cuckoo path if both buckets of the item are full.
+     *
+     * @param hash the hash of the item to insert
+     * @return true if the item was successfully inserted, false if no path
+     * could free a slot for the item
+     */
+    @Override
+    boolean insert(long hash) {
+        int fingerprint = getFingerprint(hash);
+        int index1 = getIndex1(hash);
+        int index2 = getAlternateIndex(fingerprint, index1);
+
+        int moves = 0;
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            if (insertLocked(fingerprint, index1, index2)) {
+                recordEvictionPathLength(moves);
+                return true;
+            }
+
+            CuckooPath path = this.paths.get();
+            if (!path.search(this.table, this.bucketMask, index1, index2)) {
+                return false;
+            }
+            moves += moveAlong(path);
+        }
+
+        return false;
+    }
+
+    private boolean insertLocked(int fingerprint, int index1, int index2) {
+        final int stripe1 = this.stripes.stripe(index1);
+        final int stripe2 = this.stripes.stripe(index2);
+
+        this.stripes.lock(stripe1, stripe2);
+        try {
+            if (this.table.insert(index1, fingerprint) || this.table.insert(index2, fingerprint)) {
+                // counted under the locks, so that a snapshot sees the count of its table
+                this.size.increment();
+                return true;
+            }
+            return false;
+        } finally {
+            this.stripes.unlock(stripe1, stripe2);
+        }
+    }
+
+    /**
+     * Move the fingerprints of the path, from its end to its start. Each move
+     * checks that the fingerprint can still go to the next bucket of the
+     * path, the path being searched without locks. The moves stop at the
+     * first one that cannot be done, the insert then searches a new path.
+     *
+     * @return the number of fingerprints moved
+     */
+    private int moveAlong(CuckooPath path) {
+        int moves = 0;
+        for (int position = path.length() - 1; position >= 0; position--) {
+            final int from = path.bucket(position);
+            final int slot = path.slot(position);
+            final int to = path.bucket(position + 1);
+            final int fromStripe = this.stripes.stripe(from);
+            final int toStripe = this.stripes.stripe(to);
+
+            this.stripes.lock(fromStripe, toStripe);
+            try {
+                int fingerprint = this.table.get(from, slot);
+                if (fingerprint == 0) {
+                    // the slot was freed meanwhile, nothing to move
+                    continue;
+                }
+                if (getAlternateIndex(fingerprint, from) != to || !this.table.insert(to, fingerprint)) {
+                    return moves;
+                }
+                this.table.set(from, slot, 0);
+                moves++;
+            } finally {
+                this.stripes.unlock(fromStripe, toStripe);
+            }
+        }
+        return moves;
+    }
+
+    /**
+     * Removes one copy of an item from the cuckoo filter.
+     *
+     * @param hash the hash of the item to remove
+     * @return true if the item was found and removed, false otherwise
+     */
+    @Override
+    boolean delete(long hash) {
+        int fingerprint = getFingerprint(hash);
+        int index1 = getIndex1(hash);
+        int index2 = getAlternateIndex(fingerprint, index1);
+        final int stripe1 = this.stripes.stripe(index1);
+        final int stripe2 = this.stripes.stripe(index2);
+
+        this.stripes.lock(stripe1, stripe2);
+        try {
+            if (this.table.delete(index1, fingerprint) || this.table.delete(index2, fingerprint)) {
+                this.size.decrement();
+                return true;
+            }
+        } finally {
+            this.stripes.unlock(stripe1, stripe2);
+        }
+
+        return false;
+    }
+
+    /**
+     * Checks whether an item is present in the cuckoo filter, without taking
+     * any lock. The two buckets of the item are read again if a writer
+     * updated them during the read, and read under the locks of their stripes
+     * after {@link #OPTIMISTIC_READS} attempts.
+     *
+     * @param hash the hash of the item to check
+     * @return true if the item is possibly in the filter, false if the item is definitely not in the filter
+     */
+    @Override
+    boolean contains(long hash) {
+        int fingerprint = getFingerprint(hash);
+        int index1 = getIndex1(hash);
+        int index2 = getAlternateIndex(fingerprint, index1);
+        final int stripe1 = this.stripes.stripe(index1);
+        final int stripe2 = this.stripes.stripe(index2);
+
+        for (int attempt = 0; attempt < OPTIMISTIC_READS; attempt++) {
+            long version1 = this.stripes.readVersion(stripe1);
+            long version2 = this.stripes.readVersion(stripe2);
+            if (((version1 | version2) & 1) == 0) {
+                boolean found = this.table.containsEither(index1, index2, fingerprint);
+                if (this.stripes.validate(stripe1, version1) && this.stripes.validate(stripe2, version2)) {
+                    return found;
+                }
+            }
+            Thread.onSpinWait();
+        }
+
+        this.stripes.lock(stripe1, stripe2);
+        try {
+            return this.table.containsEither(index1, index2, fingerprint);
+        } finally {
+            this.stripes.unlock(stripe1, stripe2);
+        }
+    }
+
+    /**
+     * Checks the items of the batch one at a time, each lookup validating the
+     * versions of its own buckets.
+     */
+    @Override
+    void containsAll(long[] hashes, BitSet batch, BitSet result) {
+        for (int j = batch.nextSetBit(0); j >= 0; j = batch.nextSetBit(j + 1)) {
+            if (contains(hashes[j])) {
+                result.set(j);
+            }
+        }
+    }
+
+    /**
+     * Writes the filter, see {@link CuckooFilter#writeTo(WritableByteChannel, boolean)}. The
+     * writers of this filter lock stripes instead of the lock of the filter, so all the stripes
+     * are locked while the table is written: the snapshot is consistent. The updates wait for
+     * the write to complete, as do the lookups once they ran out of optimistic reads.
+     */
+    @Override
+    public void writeTo(WritableByteChannel channel, boolean checksum) throws IOException {
+        this.stripes.lockAll();
+        try {
+            CuckooFormat.write(this, channel, checksum);
+        } finally {
+            this.stripes.unlockAll();
+        }
+    }
+
+    /**
+     * Returns the number of items in the filter.
+     *
+     * @return the number of items
+     */
+    @Override
+    public long size() {
+        return this.size.sum();
+    }
+}
@@ -0,0 +1,219 @@
+package CuckooFilter;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * A cuckoo filter that counts its items, a multiset. A plain {@link CuckooFilter} stores a
+ * new copy of the fingerprint for every insert of the same item, so a heavy hitter fills its
+ * two buckets after 8 inserts and makes the inserts of its neighbours fail at a low load.
+ * <p>
+ * This filter bounds the copies of a fingerprint kept in the table to
+ * <code>maxDuplicates</code>. The inserts beyond the bound only increment a counter in a
+ * small side table, keyed by the fingerprint and its pair of buckets, so the duplicates of
+ * an item never take more slots. Deletes decrement that counter first, and only remove a
+ * copy from the table once it drops to zero, so an item stays in the filter until it was
+ * deleted as many times as it was inserted. {@link #count(String)} gives the number of
+ * inserts of an item minus its deletes.
+ * <p>
+ * As for membership, two items with the same fingerprint and the same buckets cannot be told
+ * apart, their counts are then added.
+ */
+public class CountingCuckooFilter extends CuckooFilter {
+
+    /**
+     * Default number of copies of a fingerprint kept in the table
+     */
+    public static final int DEFAULT_MAX_DUPLICATES = 1;
+
+    /**
+     * Max number of copies of a fingerprint kept in the table, the others are counted in
+     * {@link #overflow}
+     */
+    private final int maxDuplicates;
+
+    /**
+     * The copies beyond {@link #maxDuplicates}, per fingerprint and pair of buckets, see
+     * {@link #overflowKey(int, int, int)}. Guarded by the lock of the filter.
+     */
+    private final OverflowCounts overflow = new OverflowCounts();
+
+    /**
+     * The sum of the counts of {@link #overflow}
+     */
+    private volatile long overflowSize;
+
+    /**
+     * Creates a counting cuckoo filter keeping a single copy of each fingerprint in the table.
+     *
+     * @param capacity        the number of distinct items the filter should hold
+     * @param fingerprintBits the size of a fingerprint in bits
+     * @param layout          the layout of the fingerprint table
+     */
+    public CountingCuckooFilter(int capacity, int fingerprintBits, TableLayout layout) {
+        this(capacity, fingerprintBits, layout, DEFAULT_MAX_DUPLICATES);
+    }
+
+    /**
+     * Creates a counting cuckoo filter.
+     *
+     * @param capacity        the number of distinct items the filter should hold
+     * @param fingerprintBits the size of a fingerprint in bits
+     * @param layout          the layout of the fingerprint table
+     * @param maxDuplicates   the max number of copies of a fingerprint kept in the table,
+     *                        between 1 and the 8 slots of the two buckets of an item
+     */
+    public CountingCuckooFilter(int capacity, int fingerprintBits, TableLayout layout, int maxDuplicates) {
+        super(capacity, fingerprintBits, layout);
+        if (maxDuplicates < 1 || maxDuplicates > 2 * FingerprintTable.SLOTS_PER_BUCKET) {
+            throw new IllegalArgumentException("Max duplicates must be between 1 and "
+                    + 2 * FingerprintTable.SLOTS_PER_BUCKET + ": " + maxDuplicates);
+        }
+        this.maxDuplicates = maxDuplicates;
+    }
+
+    /**
+     * Inserts an item, storing its fingerprint in the table while it holds fewer than
+     * <code>maxDuplicates</code> copies, and counting it in the side table otherwise.
+     *
+     * @param hash the hash of the item to insert
+     * @return true if the item was inserted, false if the table is full
+     */
+    @Override
+    boolean insert(long hash) {
+        int fingerprint = getFingerprint(hash);
+        int index1 = getIndex1(hash);
+        int index2 = getAlternateIndex(fingerprint, index1);
+
+        lock.lock();
+        try {
+            if (copies(fingerprint, index1, index2) < maxDuplicates) {
+                return super.insert(hash);
+            }
+            overflow.increment(overflowKey(fingerprint, index1, index2));
+            overflowSize++;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes one insert of an item, from the side table first so that the table keeps a
+     * copy of the fingerprint while the item has other inserts.
+     *
+     * @param hash the hash of the item to remove
+     * @return true if the item was found and removed, false otherwise
+     */
+    @Override
+    boolean delete(long hash) {
+        int fingerprint = getFingerprint(hash);
+        int index1 = getIndex1(hash);
+        int index2 = getAlternateIndex(fingerprint, index1);
+
+        lock.lock();
+        try {
+            if (!overflow.decrement(overflowKey(fingerprint, index1, index2))) {
+                return super.delete(hash);
+            }
+            overflowSize--;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns how many times an item was inserted and not deleted. As with
+     * {@link #contains(String)}, the count includes the inserts of the items that have the same
+     * fingerprint and buckets.
+     *
+     * @param item the item to count
+     * @return the number of inserts of the item minus its deletes, 0 if it is not in the filter
+     */
+    public long count(String item) {
+        long hash = HASHER.hash(item);
+        int fingerprint = getFingerprint(hash);
+        int index1 = getIndex1(hash);
+        int index2 = getAlternateIndex(fingerprint, index1);
+
+        lock.lock();
+        try {
+            int copies = copies(fingerprint, index1, index2);
+            return copies == 0 ? 0 : copies + overflow.get(overflowKey(fingerprint, index1, index2));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of inserts minus the number of deletes, duplicates included.
+     *
+     * @return the number of items
+     */
+    @Override
+    public long size() {
+        return super.size() + overflowSize;
+    }
+
+    /**
+     * Returns the ratio of the slots of the table that hold an item. The duplicates counted in
+     * the side table take no slot.
+     *
+     * @return the load factor, between 0 and 1
+     */
+    @Override
+    public double loadFactor() {
+        return (double) (super.size() - getStashSize()) / ((long) table.numBuckets() * FingerprintTable.SLOTS_PER_BUCKET);
+    }
+
+    /**
+     * Returns the number of distinct fingerprints whose duplicates overflowed the table.
+     *
+     * @return the number of entries of the side table
+     */
+    public int getOverflowEntries() {
+        lock.lock();
+        try {
+            return overflow.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes the filter, see {@link CuckooFilter#writeTo(WritableByteChannel, boolean)}. The
+     * format has no room for the side table, so only a filter whose duplicates all fit in the
+     * table can be written.
+     *
+     * @throws IllegalStateException if some duplicates are counted in the side table
+     */
+    @Override
+    public void writeTo(WritableByteChannel channel, boolean checksum) throws IOException {
+        lock.lock();
+        try {
+            if (!overflow.isEmpty()) {
+                throw new IllegalStateException("Cannot write the " + overflow.size() + " overflowing duplicates");
+            }
+            super.writeTo(channel, checksum);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Counts the copies of a fingerprint in its two buckets and in the stash.
+     */
+    private int copies(int fingerprint, int index1, int index2) {
+        int copies = table.count(index1, fingerprint) + stashCount(fingerprint, index1, index2);
+        return index2 == index1 ? copies : copies + table.count(index2, fingerprint);
+    }
+
+    /**
+     * The key of a fingerprint in the side table. The alternate bucket of the alternate bucket
+     * is the first one, so the smallest of the two identifies the pair.
+     */
+    private static long overflowKey(int fingerprint, int index1, int index2) {
+        return (long) Math.min(index1, index2) << 32 | (fingerprint & 0xFFFFFFFFL);
+    }
+}
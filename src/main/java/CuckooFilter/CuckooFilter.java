@@ -1,128 +1,338 @@
 package CuckooFilter;
 
-import java.io.*;
-import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
-import java.util.Random;
+import java.io.IOException;
+import java.lang.invoke.VarHandle;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.ReentrantLock;
 
+import BloomFilter.HashFunction;
+import BloomFilter.hash.XxHash64;
+
 /**
  * Implements a Cuckoo Filter, a space-efficient probabilistic data structure that is used
  * to test whether an element is a member of a set. False positive matches are possible, but
  * false negatives are not. It provides high insertion and query performances with a low
  * rate of false positives. This class supports operations for adding, deleting, and checking
  * the presence of elements in the filter.
+ * <p>
+ * Each item is hashed once with a 64-bit hash: the high half gives the first
+ * bucket index and the low half the fingerprint. As in the original paper,
+ * the alternate bucket of a fingerprint is the current bucket XOR a hash of
+ * the fingerprint, so it can be computed without the item when the
+ * fingerprint is kicked out of its bucket. The number of buckets is a power
+ * of two, which makes this operation its own inverse.
  */
 public class CuckooFilter {
-    private Bucket[] buckets;
-    private int fingerprintSize;
-    private long count;
+    final FingerprintTable table;
+    private int fingerprintBits;
+    private volatile long count;
     private int capacity;
-    private ReentrantLock lock = new ReentrantLock();
+    final ReentrantLock lock = new ReentrantLock();
     private static final int DEFAULT_BUCKET_SIZE = 4;
-    private static final int MAX_CUCKOO_COUNT = 500;
-    private final Random random = new Random();
-    private MessageDigest messageDigest;
-
-    public CuckooFilter(int capacity, int fingerprintSize) throws NoSuchAlgorithmException {
-        this.capacity = getNextPow2(capacity) / DEFAULT_BUCKET_SIZE;
-        this.fingerprintSize = fingerprintSize;
-        this.buckets = new Bucket[this.capacity];
-        this.count = 0;
+    final int bucketMask;
+
+    /**
+     * Number of victims the stash can hold
+     */
+    static final int STASH_SIZE = 4;
+
+    /**
+     * Fingerprints that found no room in the table, and their first bucket
+     */
+    final int[] stashFingerprints = new int[STASH_SIZE];
+    final int[] stashIndexes = new int[STASH_SIZE];
+    volatile int stashSize;
+
+    /**
+     * Counts the relocations of fingerprints, between buckets or between the stash and the
+     * table. It is odd while a relocation is in progress. The readers take no lock, they check
+     * it did not change during their probe, see {@link #contains(long)}. Written under the lock.
+     */
+    private volatile int relocations;
+
+    /**
+     * Number of relocations started and not ended, so that a relocation can be nested in an
+     * update that counts as one. Used under the lock.
+     */
+    private int relocationDepth;
+
+    /**
+     * Whether the updates of the table rewrite whole buckets, and count as relocations, see
+     * {@link FingerprintTable#rewritesBuckets()}
+     */
+    private final boolean rewritesBuckets;
+
+    /**
+     * The search of the eviction paths, used under the lock
+     */
+    private final CuckooPath path = new CuckooPath();
+
+    /**
+     * Number of inserts per length of their eviction path
+     */
+    private final LongAdder[] evictionPathLengths = new LongAdder[CuckooPath.MAX_DEPTH + 1];
+
+    /**
+     * The hash function of the items, stateless and allocation free
+     */
+    static final HashFunction HASHER = new XxHash64();
+
+    /**
+     * MurmurHash2 multiplier used to hash a fingerprint into a bucket offset
+     */
+    private static final int FINGERPRINT_MULTIPLIER = 0x5BD1E995;
+
+    /**
+     * Number of items whose buckets are computed before being probed, in a
+     * batch lookup
+     */
+    private static final int PROBE_BATCH = 16;
+
+    /**
+     * Creates a cuckoo filter with the original layout of one {@link Bucket}
+     * object per bucket.
+     *
+     * @param capacity        the number of items the filter should hold
+     * @param fingerprintSize the size of a fingerprint in bytes, at most 4
+     */
+    public CuckooFilter(int capacity, int fingerprintSize) {
+        this(capacity, Math.min(fingerprintSize, Integer.BYTES) * Byte.SIZE, TableLayout.BUCKETS);
+    }
 
-        for (int i = 0; i < this.capacity; i++) {
-            this.buckets[i] = new Bucket();
+    /**
+     * Creates a cuckoo filter with the given table layout. With the
+     * {@link TableLayout#PACKED} layout a fingerprint takes exactly
+     * <code>fingerprintBits</code> bits, with the {@link TableLayout#SEMI_SORTED}
+     * layout one bit less.
+     *
+     * @param capacity        the number of items the filter should hold
+     * @param fingerprintBits the size of a fingerprint in bits
+     * @param layout          the layout of the fingerprint table
+     */
+    public CuckooFilter(int capacity, int fingerprintBits, TableLayout layout) {
+        // the table checks the fingerprint size it supports
+        this(layout.create(Math.max(1, getNextPow2(capacity) / DEFAULT_BUCKET_SIZE), fingerprintBits));
+    }
+
+    /**
+     * Creates a cuckoo filter over the given table, whose number of buckets is a power of two.
+     *
+     * @param table the fingerprint table
+     */
+    CuckooFilter(FingerprintTable table) {
+        this.capacity = table.numBuckets();
+        this.bucketMask = this.capacity - 1;
+        this.fingerprintBits = table.fingerprintBits();
+        this.table = table;
+        this.rewritesBuckets = table.rewritesBuckets();
+        this.count = 0;
+        for (int i = 0; i < evictionPathLengths.length; i++) {
+            evictionPathLengths[i] = new LongAdder();
         }
-        this.messageDigest = MessageDigest.getInstance("SHA-256");
     }
 
     /**
-     * Inserts an item into the cuckoo filter. This operation might trigger a series of
-     * rehashing and relocations within the filter's buckets if the initial locations are occupied.
+     * Inserts an item into the cuckoo filter. If both buckets of the item are occupied, the
+     * shortest eviction path that frees a slot in one of them is searched breadth-first, and
+     * the fingerprints along the path are relocated. If there is no such path, the item goes
+     * to a small stash of victims.
      *
      * @param item the item to insert into the filter
      * @return true if the item was successfully inserted, false if the filter cannot accommodate
      *         the item without exceeding the maximum load factor
      */
     public boolean insert(String item) {
-        String fp = getFingerprint(item);
-        int i1 = getIndex1(item);
-        int i2 = getIndex2(fp, i1);
+        return insert(HASHER.hash(item));
+    }
+
+    /**
+     * Inserts an item given its hash, see {@link #insert(String)}.
+     */
+    boolean insert(long hash) {
+        int fp = getFingerprint(hash);
+        int i1 = getIndex1(hash);
+        int i2 = getAlternateIndex(fp, i1);
 
         lock.lock();
+        beginUpdate();
         try {
             if (_insert(fp, i1) || _insert(fp, i2)) {
+                recordEvictionPathLength(0);
                 return true;
             }
 
-            // Reinsertion, kick out some fingerprints
-            int i = random.nextBoolean() ? i1 : i2;
-            for (int n = 0; n < MAX_CUCKOO_COUNT; n++) {
-                fp = buckets[i].swap(fp);  // swap method should return the fingerprint
-                i = getAlternateIndex(fp, i);
-                if (_insert(fp, i)) {
-                    return true;
-                }
+            // Relocate the fingerprints along the shortest eviction path
+            if (path.search(table, bucketMask, i1, i2) && moveAlong(path)
+                    && (_insert(fp, i1) || _insert(fp, i2))) {
+                recordEvictionPathLength(path.length());
+                return true;
+            }
+
+            if (stashSize < STASH_SIZE) {
+                stashFingerprints[stashSize] = fp;
+                stashIndexes[stashSize] = i1;
+                stashSize++;
+                count++;
+                return true;
             }
         } finally {
+            endUpdate();
             lock.unlock();
         }
         return false;
     }
 
-    private boolean _insert(String fp, int index) {
-        if (buckets[index].insert(fp)) {
+    private boolean _insert(int fp, int index) {
+        if (table.insert(index, fp)) {
             count++;
             return true;
         }
         return false;
     }
 
-    private static int getNextPow2(int n) {
-        return Integer.highestOneBit(n) << 1;
+    /**
+     * Relocates the fingerprints of an eviction path, from its end to its start. A fingerprint
+     * is copied to its alternate bucket before it is removed, so it is never lost.
+     *
+     * @param path the path to follow
+     * @return true if all the fingerprints were relocated, false otherwise
+     */
+    private boolean moveAlong(CuckooPath path) {
+        beginRelocation();
+        try {
+            for (int position = path.length() - 1; position >= 0; position--) {
+                int from = path.bucket(position);
+                int slot = path.slot(position);
+                int fingerprint = table.get(from, slot);
+                if (getAlternateIndex(fingerprint, from) != path.bucket(position + 1)
+                        || !table.insert(path.bucket(position + 1), fingerprint)) {
+                    return false;
+                }
+                table.set(from, slot, 0);
+            }
+            return true;
+        } finally {
+            endRelocation();
+        }
     }
 
-    private byte[] getHash(byte[] data) {
-        messageDigest.update(data);
-        return messageDigest.digest();
+    /**
+     * Starts a relocation, the writes that follow cannot be seen before the counter is odd.
+     * A relocation nested in another one leaves the counter as it is.
+     */
+    private void beginRelocation() {
+        if (relocationDepth++ == 0) {
+            relocations++;
+            VarHandle.storeStoreFence();
+        }
     }
 
-    private String getFingerprint(String data) {
-        String hash = new String(getHash(data.getBytes(StandardCharsets.UTF_8)));
-        // Ensure the fingerprint size does not exceed the hash length
-        int size = Math.min(fingerprintSize, hash.length());
-        return hash.substring(0, size);
+    private void endRelocation() {
+        if (--relocationDepth == 0) {
+            relocations++;
+        }
     }
 
-    public static byte[] objectToBytes(Object obj) throws IOException {
-        if (!(obj instanceof Serializable)) {
-            throw new IllegalArgumentException("The provided object does not implement Serializable");
+    /**
+     * Starts an insert or a delete, which is a relocation for the readers when the table
+     * rewrites whole buckets.
+     */
+    private void beginUpdate() {
+        if (rewritesBuckets) {
+            beginRelocation();
         }
-        try (ByteArrayOutputStream bos = new ByteArrayOutputStream();
-             ObjectOutputStream oos = new ObjectOutputStream(bos)) {
-            oos.writeObject(obj);
-            oos.flush();
-            return bos.toByteArray();
+    }
+
+    private void endUpdate() {
+        if (rewritesBuckets) {
+            endRelocation();
         }
     }
-    private int getIndex1(String data) {
-        return Math.abs(data.hashCode()) % capacity;
+
+    void recordEvictionPathLength(int length) {
+        evictionPathLengths[Math.min(length, CuckooPath.MAX_DEPTH)].increment();
     }
 
-    private int getIndex2(String fingerprint, int index1) {
-        return Math.abs(index1 ^ fingerprint.hashCode()) % capacity;
+    /**
+     * Moves the victims of the stash back to the table, once deletes have freed some slots.
+     */
+    private void drainStash() {
+        beginRelocation();
+        try {
+            for (int i = stashSize - 1; i >= 0; i--) {
+                int fp = stashFingerprints[i];
+                int index1 = stashIndexes[i];
+                if (table.insert(index1, fp) || table.insert(getAlternateIndex(fp, index1), fp)) {
+                    removeFromStash(i);
+                }
+            }
+        } finally {
+            endRelocation();
+        }
+    }
+
+    /**
+     * Removes a victim from the stash, the last one taking its place. A reader scanning the
+     * stash meanwhile could miss the moved victim, so the caller must count a relocation.
+     */
+    private void removeFromStash(int i) {
+        int last = stashSize - 1;
+        stashFingerprints[i] = stashFingerprints[last];
+        stashIndexes[i] = stashIndexes[last];
+        stashSize = last;
+    }
+
+    private boolean stashContains(int fingerprint, int index1, int index2) {
+        return stashIndexOf(fingerprint, index1, index2) >= 0;
+    }
+
+    /**
+     * Counts the copies of a fingerprint in the stash, among the victims of the given buckets.
+     */
+    int stashCount(int fingerprint, int index1, int index2) {
+        int copies = 0;
+        for (int i = 0; i < stashSize; i++) {
+            if (stashFingerprints[i] == fingerprint && (stashIndexes[i] == index1 || stashIndexes[i] == index2)) {
+                copies++;
+            }
+        }
+        return copies;
     }
-    private int getIndex1(byte[] data) {
-        return Math.abs(fromBytes(getHash(data))) % capacity;
+
+    private int stashIndexOf(int fingerprint, int index1, int index2) {
+        for (int i = 0; i < stashSize; i++) {
+            if (stashFingerprints[i] == fingerprint && (stashIndexes[i] == index1 || stashIndexes[i] == index2)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int getNextPow2(int n) {
+        return Integer.highestOneBit(n) << 1;
     }
 
-    private int getIndex2(byte[] fingerprint, int index1) {
-        return Math.abs(index1 ^ fromBytes(getHash(fingerprint))) % capacity;
+    int getFingerprint(long hash) {
+        // Keep the fingerprint size, zero marks an empty slot
+        int fingerprint = fingerprintBits == Integer.SIZE ? (int) hash : (int) hash & ((1 << fingerprintBits) - 1);
+        return fingerprint == 0 ? 1 : fingerprint;
     }
 
-    private int getAlternateIndex(String fingerprint, int index) {
-        return getIndex2(fingerprint, index);
+    int getIndex1(long hash) {
+        return (int) (hash >>> 32) & bucketMask;
+    }
+
+    int getAlternateIndex(int fingerprint, int index) {
+        return alternateIndex(fingerprint, index, bucketMask);
+    }
+
+    static int alternateIndex(int fingerprint, int index, int bucketMask) {
+        return (index ^ (fingerprint * FINGERPRINT_MULTIPLIER)) & bucketMask;
     }
 
     /**
@@ -133,17 +343,38 @@ public class CuckooFilter {
      * @return true if the item was found and removed, false otherwise
      */
     public boolean delete(String item) {
-        String fingerprint = getFingerprint(item);
-        int index1 = getIndex1(item);
+        return delete(HASHER.hash(item));
+    }
+
+    /**
+     * Removes an item given its hash, see {@link #delete(String)}.
+     */
+    boolean delete(long hash) {
+        int fingerprint = getFingerprint(hash);
+        int index1 = getIndex1(hash);
         int index2 = getAlternateIndex(fingerprint, index1);
 
         lock.lock();
+        beginUpdate();
         try {
-            if (buckets[index1].delete(fingerprint) || buckets[index2].delete(fingerprint)) {
+            if (table.delete(index1, fingerprint) || table.delete(index2, fingerprint)) {
+                count--;
+                if (stashSize != 0) {
+                    drainStash();
+                }
+                return true;
+            }
+
+            int stashIndex = stashIndexOf(fingerprint, index1, index2);
+            if (stashIndex >= 0) {
+                beginRelocation();
+                removeFromStash(stashIndex);
+                endRelocation();
                 count--;
                 return true;
             }
         } finally {
+            endUpdate();
             lock.unlock();
         }
 
@@ -151,25 +382,6 @@ public class CuckooFilter {
     }
 
 
-    private static byte[] serialize(Object obj) {
-        ByteArrayOutputStream bos = new ByteArrayOutputStream();
-        try (ObjectOutput out = new ObjectOutputStream(bos)) {
-            out.writeObject(obj);
-            return bos.toByteArray();
-        } catch (IOException e) {
-            throw new RuntimeException("Serialization error", e);
-        }
-    }
-
-    private static int fromBytes(byte[] bytes) {
-        int result = 0;
-        for (int i = 0; i < Integer.BYTES; i++) {
-            result <<= 8;
-            result |= (bytes[i] & 0xFF);
-        }
-        return result;
-    }
-
     /**
      * Checks whether an item is present in the cuckoo filter. Note that due to the probabilistic
      * nature of the filter, this method may return true for items that have not been inserted,
@@ -180,14 +392,235 @@ public class CuckooFilter {
      */
 
     public boolean contains(String item) {
-        String fingerprint = getFingerprint(item);
-        int index1 = getIndex1(item);
+        return contains(HASHER.hash(item));
+    }
+
+    /**
+     * Checks an item given its hash, see {@link #contains(String)}. The buckets and the stash
+     * are probed without the lock. A fingerprint relocated during the probe could be missed,
+     * read from its new place before it was written and from its old place after it was
+     * cleared, so a miss is checked again under the lock if a relocation happened meanwhile.
+     * Relocations are rare, and the stash is almost always empty.
+     */
+    boolean contains(long hash) {
+        int fingerprint = getFingerprint(hash);
+        int index1 = getIndex1(hash);
         int index2 = getAlternateIndex(fingerprint, index1);
 
-        Bucket bucket1 = this.buckets[index1];
-        Bucket bucket2 = this.buckets[index2];
+        int before = relocations;
+        if (probe(fingerprint, index1, index2)) {
+            return true;
+        }
+        return !unchangedSince(before) && probeLocked(fingerprint, index1, index2);
+    }
+
+    private boolean probe(int fingerprint, int index1, int index2) {
+        return table.containsEither(index1, index2, fingerprint)
+                || (stashSize != 0 && stashContains(fingerprint, index1, index2));
+    }
+
+    private boolean probeLocked(int fingerprint, int index1, int index2) {
+        lock.lock();
+        try {
+            return probe(fingerprint, index1, index2);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Checks that no relocation started or ended since the counter was read, the probes made
+     * in between being read before the counter again.
+     */
+    private boolean unchangedSince(int before) {
+        VarHandle.loadLoadFence();
+        return (before & 1) == 0 && relocations == before;
+    }
+
+    /**
+     * Checks which of the given items are present in the cuckoo filter. The whole batch is
+     * hashed first, then the buckets of the items are computed and probed a few items at a
+     * time, so that the reads of the buckets of different items overlap instead of waiting
+     * for each other. See {@link #contains(String)}, <code>null</code> items are never
+     * contained.
+     *
+     * @param items  the items to check
+     * @param result receives a set bit at the position of every item that is possibly in the
+     *               filter, its previous content is cleared
+     */
+    public void containsAll(List<String> items, BitSet result) {
+        long[] hashes = new long[items.size()];
+        BitSet batch = new BitSet(items.size());
+        for (int j = 0; j < hashes.length; j++) {
+            String item = items.get(j);
+            if (item != null) {
+                hashes[j] = HASHER.hash(item);
+                batch.set(j);
+            }
+        }
+
+        result.clear();
+        containsAll(hashes, batch, result);
+    }
+
+    /**
+     * Checks the items of the batch given their hashes, see {@link #containsAll(List, BitSet)}.
+     *
+     * @param hashes the hashes of the items
+     * @param batch  the positions of the hashes to check
+     * @param result receives a set bit at the position of every item that is possibly in the filter
+     */
+    void containsAll(long[] hashes, BitSet batch, BitSet result) {
+        final int[] positions = new int[PROBE_BATCH];
+        final int[] fingerprints = new int[PROBE_BATCH];
+        final int[] indexes1 = new int[PROBE_BATCH];
+        final int[] indexes2 = new int[PROBE_BATCH];
+
+        int j = batch.nextSetBit(0);
+        while (j >= 0) {
+            int n = 0;
+            for (; n < PROBE_BATCH && j >= 0; n++, j = batch.nextSetBit(j + 1)) {
+                positions[n] = j;
+                fingerprints[n] = getFingerprint(hashes[j]);
+                indexes1[n] = getIndex1(hashes[j]);
+                indexes2[n] = getAlternateIndex(fingerprints[n], indexes1[n]);
+            }
+
+            int before = relocations;
+            for (int k = 0; k < n; k++) {
+                if (probe(fingerprints[k], indexes1[k], indexes2[k])) {
+                    result.set(positions[k]);
+                }
+            }
+            if (!unchangedSince(before)) {
+                for (int k = 0; k < n; k++) {
+                    if (!result.get(positions[k]) && probeLocked(fingerprints[k], indexes1[k], indexes2[k])) {
+                        result.set(positions[k]);
+                    }
+                }
+            }
+        }
+    }
 
-        return bucket1.contains(fingerprint) || bucket2.contains(fingerprint);
+    /**
+     * Returns the number of inserts per length of their eviction path: element <code>l</code> is
+     * the number of inserts that relocated <code>l</code> fingerprints, the first element being
+     * the inserts that found room in one of their buckets. Inserts that went to the stash are not
+     * counted.
+     *
+     * @return the histogram of the eviction path lengths
+     */
+    public long[] getEvictionPathLengths() {
+        long[] histogram = new long[evictionPathLengths.length];
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] = evictionPathLengths[i].sum();
+        }
+        return histogram;
+    }
+
+    /**
+     * Returns the number of items held in the stash, because no eviction path could free a slot
+     * for them. A filter whose stash fills up is close to its maximum load.
+     *
+     * @return the number of items in the stash
+     */
+    public int getStashSize() {
+        return stashSize;
+    }
+
+    /**
+     * Returns the number of items in the filter, including the ones in the stash.
+     *
+     * @return the number of items
+     */
+    public long size() {
+        return count;
+    }
+
+    /**
+     * Returns the ratio of the slots of the table that hold an item.
+     *
+     * @return the load factor, between 0 and 1
+     */
+    public double loadFactor() {
+        return (double) (size() - stashSize) / ((long) table.numBuckets() * FingerprintTable.SLOTS_PER_BUCKET);
+    }
+
+    /**
+     * Returns the approximate memory used by the fingerprint table.
+     *
+     * @return the number of bytes used by the table
+     */
+    public long sizeInBytes() {
+        return table.sizeInBytes();
+    }
+
+    /**
+     * Writes the filter to the given channel, followed by a checksum. See
+     * {@link #writeTo(WritableByteChannel, boolean)}.
+     *
+     * @param channel the channel to write to
+     * @throws IOException if the filter cannot be written
+     */
+    public void writeTo(WritableByteChannel channel) throws IOException {
+        writeTo(channel, true);
+    }
+
+    /**
+     * Writes the filter to the given channel: a header with the layout and the size of the
+     * table, the number of items and the stash, then the words of the table, written in bulk
+     * for the packed layouts. The filter can be read back with
+     * {@link #readFrom(ReadableByteChannel)}, or mapped with {@link #map(Path)}. Inserts and
+     * deletes wait for the write to complete.
+     *
+     * @param channel  the channel to write to
+     * @param checksum whether to write a CRC32C of the filter after the words
+     * @throws IOException if the filter cannot be written
+     */
+    public void writeTo(WritableByteChannel channel, boolean checksum) throws IOException {
+        lock.lock();
+        try {
+            CuckooFormat.write(this, channel, checksum);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reads a filter written by {@link #writeTo(WritableByteChannel)} into a new table of the
+     * same layout, checking its checksum if any.
+     *
+     * @param channel the channel to read from
+     * @return the filter
+     * @throws IOException if the filter cannot be read, or its checksum does not match
+     */
+    public static CuckooFilter readFrom(ReadableByteChannel channel) throws IOException {
+        return CuckooFormat.read(channel);
+    }
+
+    /**
+     * Opens a read-only filter over a file written by {@link #writeTo(WritableByteChannel)}.
+     * The table is memory-mapped and lookups decode the fingerprints straight from the mapped
+     * pages: the filter is open in constant time, whatever its size, and its table takes no
+     * heap. The checksum is not verified, since that would read the whole file. Inserts and
+     * deletes throw an {@link UnsupportedOperationException}.
+     *
+     * @param file the file holding the filter
+     * @return the read-only filter
+     * @throws IOException if the file cannot be read or mapped
+     */
+    public static CuckooFilter map(Path file) throws IOException {
+        return CuckooFormat.map(file);
+    }
+
+    /**
+     * Restores the number of items and the stash of a filter that was read.
+     */
+    void restore(long count, int[] fingerprints, int[] indexes, int size) {
+        System.arraycopy(fingerprints, 0, stashFingerprints, 0, STASH_SIZE);
+        System.arraycopy(indexes, 0, stashIndexes, 0, STASH_SIZE);
+        this.count = count;
+        this.stashSize = size;
     }
 
     /**
@@ -201,7 +634,8 @@ public class CuckooFilter {
     public String toString() {
         return "CuckooFilter{" +
                 "capacity=" + capacity +
-                ", fingerprintSize=" + fingerprintSize + " byte(s)" +
+                ", fingerprintBits=" + fingerprintBits + " bit(s)" +
+                ", sizeInBytes=" + table.sizeInBytes() +
                 '}';
     }
 }
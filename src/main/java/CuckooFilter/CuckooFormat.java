@@ -0,0 +1,340 @@
+package CuckooFilter;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channel;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+import BloomFilter.core.Words;
+
+/**
+ * The binary format of a serialized {@link CuckooFilter}. All the values are
+ * little-endian:
+ * <pre>
+ * int    magic, "CKOF"
+ * byte   version
+ * byte   flags, bit 0 set when a checksum follows the words
+ * byte   layout of the table, see the constants of this class
+ * byte   number of bits of a fingerprint
+ * int    number of buckets
+ * int    number of fingerprints in the stash
+ * long   number of items in the filter
+ * long   number of words that follow the header
+ * int    id of the hash function, see {@link BloomFilter.HashFunction#id()}
+ * int    reserved, 0
+ * long   seed of the hash function
+ * int[]  the fingerprint and the first bucket of each victim of the stash
+ * long[] the words of the table, see {@link FingerprintTable#writeWords}
+ * int    CRC32C of all the previous bytes, if the flag is set
+ * </pre>
+ * The header takes a whole number of words, so that the words of the table
+ * can be mapped and read in place. It is checked before the table is
+ * allocated, the checksum only covers the words once they are read.
+ */
+final class CuckooFormat {
+
+    /**
+     * "CKOF" read as a little-endian int
+     */
+    static final int MAGIC = 0x464F4B43;
+
+    static final byte VERSION = 1;
+
+    static final int FLAG_CHECKSUM = 1;
+
+    static final int BUCKETS = 0;
+
+    static final int PACKED = 1;
+
+    static final int SEMI_SORTED = 2;
+
+    /**
+     * Size of the header, up to the words
+     */
+    static final int HEADER_BYTES = 48 + 2 * Integer.BYTES * CuckooFilter.STASH_SIZE;
+
+    private CuckooFormat() {
+    }
+
+    static void write(CuckooFilter filter, WritableByteChannel channel, boolean checksum) throws IOException {
+        FingerprintTable table = filter.table;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC)
+                .put(VERSION)
+                .put((byte) (checksum ? FLAG_CHECKSUM : 0))
+                .put((byte) layoutId(table.layout()))
+                .put((byte) table.fingerprintBits())
+                .putInt(table.numBuckets())
+                .putInt(filter.stashSize)
+                .putLong(filter.size())
+                .putLong(table.wordCount())
+                .putInt(CuckooFilter.HASHER.id())
+                .putInt(0)
+                .putLong(CuckooFilter.HASHER.seed());
+        for (int i = 0; i < CuckooFilter.STASH_SIZE; i++) {
+            header.putInt(filter.stashFingerprints[i]).putInt(filter.stashIndexes[i]);
+        }
+        header.flip();
+
+        ChecksumChannel crc = checksum ? new ChecksumChannel(channel) : null;
+        WritableByteChannel target = checksum ? crc : channel;
+        Words.writeFully(target, header);
+        table.writeWords(target);
+
+        if (checksum) {
+            ByteBuffer trailer = ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            trailer.putInt((int) crc.crc.getValue()).flip();
+            Words.writeFully(channel, trailer);
+        }
+    }
+
+    static CuckooFilter read(ReadableByteChannel channel) throws IOException {
+        ByteBuffer header = readHeader(channel);
+        Header fields = new Header(header);
+        if (channel instanceof SeekableByteChannel) {
+            SeekableByteChannel file = (SeekableByteChannel) channel;
+            if (file.size() - file.position() < fields.wordCount * Long.BYTES) {
+                throw new EOFException("Serialized cuckoo filter is truncated, " + fields.wordCount + " words expected");
+            }
+        }
+
+        CuckooFilter filter;
+        try {
+            filter = new CuckooFilter(fields.layout.create(fields.numBuckets, fields.fingerprintBits));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Corrupted header, " + e.getMessage(), e);
+        }
+        if (filter.table.wordCount() != fields.wordCount) {
+            throw new IOException("The filter holds " + fields.wordCount + " words, the table holds "
+                    + filter.table.wordCount());
+        }
+
+        ChecksumChannel crc = fields.checksum ? new ChecksumChannel(channel) : null;
+        if (fields.checksum) {
+            crc.crc.update(header.array());
+        }
+        filter.table.readWords(fields.checksum ? crc : channel);
+
+        if (fields.checksum) {
+            int expected = (int) crc.crc.getValue();
+            ByteBuffer trailer = ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            Words.readFully(channel, trailer);
+            if (trailer.getInt(0) != expected) {
+                throw new IOException("Checksum mismatch, the serialized cuckoo filter is corrupted");
+            }
+        }
+
+        fields.restore(filter);
+        return filter;
+    }
+
+    static CuckooFilter map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            Header fields = new Header(readHeader(channel));
+
+            long expectedSize = HEADER_BYTES + fields.wordCount * Long.BYTES + (fields.checksum ? Integer.BYTES : 0);
+            if (channel.size() != expectedSize) {
+                throw new IOException("File " + file + " holds " + channel.size() + " bytes, expected " + expectedSize);
+            }
+
+            // the mapping stays valid once the channel is closed
+            CuckooFilter filter = new CuckooFilter(new MappedTable(channel, HEADER_BYTES, fields.wordCount,
+                    fields.numBuckets, fields.fingerprintBits, fields.layout));
+            fields.restore(filter);
+            return filter;
+        }
+    }
+
+    private static ByteBuffer readHeader(ReadableByteChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        Words.readFully(channel, header);
+        return header.flip();
+    }
+
+    private static int layoutId(TableLayout layout) {
+        switch (layout) {
+            case BUCKETS:
+                return BUCKETS;
+            case PACKED:
+                return PACKED;
+            case SEMI_SORTED:
+                return SEMI_SORTED;
+            default:
+                throw new IllegalArgumentException("Unknown table layout " + layout);
+        }
+    }
+
+    private static TableLayout layout(int id) throws IOException {
+        switch (id) {
+            case BUCKETS:
+                return TableLayout.BUCKETS;
+            case PACKED:
+                return TableLayout.PACKED;
+            case SEMI_SORTED:
+                return TableLayout.SEMI_SORTED;
+            default:
+                throw new IOException("Unknown cuckoo table layout " + id);
+        }
+    }
+
+    /**
+     * Check that a layout supports a fingerprint size, as its table would
+     */
+    private static void checkFingerprintBits(TableLayout layout, int fingerprintBits) throws IOException {
+        boolean supported;
+        switch (layout) {
+            case PACKED:
+                supported = fingerprintBits == 8 || fingerprintBits == 12 || fingerprintBits == 16 || fingerprintBits == 32;
+                break;
+            case SEMI_SORTED:
+                supported = fingerprintBits >= 5 && fingerprintBits <= 16;
+                break;
+            default:
+                supported = fingerprintBits >= 1 && fingerprintBits <= Integer.SIZE;
+                break;
+        }
+        if (!supported) {
+            throw new IOException("Invalid fingerprint size " + fingerprintBits + " for the " + layout + " layout");
+        }
+    }
+
+    /**
+     * The number of words of a table, as written by its layout
+     */
+    private static long expectedWordCount(TableLayout layout, int numBuckets, int fingerprintBits) {
+        long bucketBits = layout == TableLayout.SEMI_SORTED
+                ? SemiSortedTable.bucketBits(fingerprintBits)
+                : (long) FingerprintTable.SLOTS_PER_BUCKET * fingerprintBits;
+        return (numBuckets * bucketBits + Long.SIZE - 1) >>> 6;
+    }
+
+    /**
+     * The fields of a header, checked against what this version can read and
+     * against each other, so that a corrupted header is reported before any
+     * table is allocated.
+     */
+    private static final class Header {
+
+        final boolean checksum;
+
+        final TableLayout layout;
+
+        final int fingerprintBits;
+
+        final int numBuckets;
+
+        final int stashSize;
+
+        final long count;
+
+        final long wordCount;
+
+        final int[] stashFingerprints = new int[CuckooFilter.STASH_SIZE];
+
+        final int[] stashIndexes = new int[CuckooFilter.STASH_SIZE];
+
+        Header(ByteBuffer header) throws IOException {
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Not a serialized cuckoo filter");
+            }
+            byte version = header.get();
+            if (version != VERSION) {
+                throw new IOException("Unsupported cuckoo filter format version " + version);
+            }
+            this.checksum = (header.get() & FLAG_CHECKSUM) != 0;
+            this.layout = layout(header.get());
+            this.fingerprintBits = header.get();
+            this.numBuckets = header.getInt();
+            this.stashSize = header.getInt();
+            this.count = header.getLong();
+            this.wordCount = header.getLong();
+            int hasherId = header.getInt();
+            header.getInt();
+            long seed = header.getLong();
+
+            if (hasherId != CuckooFilter.HASHER.id() || seed != CuckooFilter.HASHER.seed()) {
+                throw new IOException("Unsupported hash function " + hasherId + " with seed " + seed);
+            }
+            if (this.numBuckets <= 0 || Integer.bitCount(this.numBuckets) != 1) {
+                throw new IOException("The number of buckets must be a power of two: " + this.numBuckets);
+            }
+            checkFingerprintBits(this.layout, this.fingerprintBits);
+            long expectedWords = expectedWordCount(this.layout, this.numBuckets, this.fingerprintBits);
+            if (this.wordCount != expectedWords) {
+                throw new IOException("The filter holds " + this.wordCount + " words, " + this.numBuckets
+                        + " buckets take " + expectedWords);
+            }
+            if (this.stashSize < 0 || this.stashSize > CuckooFilter.STASH_SIZE) {
+                throw new IOException("Invalid stash size " + this.stashSize);
+            }
+            if (this.count < this.stashSize) {
+                throw new IOException("Invalid number of items " + this.count);
+            }
+
+            for (int i = 0; i < CuckooFilter.STASH_SIZE; i++) {
+                this.stashFingerprints[i] = header.getInt();
+                this.stashIndexes[i] = header.getInt();
+                if (i < this.stashSize && (this.stashFingerprints[i] == 0
+                        || this.stashIndexes[i] < 0 || this.stashIndexes[i] >= this.numBuckets)) {
+                    throw new IOException("Invalid victim " + this.stashFingerprints[i] + " in bucket " + this.stashIndexes[i]);
+                }
+            }
+        }
+
+        void restore(CuckooFilter filter) {
+            filter.restore(this.count, this.stashFingerprints, this.stashIndexes, this.stashSize);
+        }
+    }
+
+    /**
+     * A channel that updates a CRC32C with all the bytes that go through it.
+     */
+    private static final class ChecksumChannel implements ReadableByteChannel, WritableByteChannel {
+
+        final CRC32C crc = new CRC32C();
+
+        private final Channel channel;
+
+        ChecksumChannel(Channel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            int position = dst.position();
+            int read = ((ReadableByteChannel) this.channel).read(dst);
+            if (read > 0) {
+                this.crc.update(dst.duplicate().limit(position + read).position(position));
+            }
+            return read;
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            int position = src.position();
+            int written = ((WritableByteChannel) this.channel).write(src);
+            if (written > 0) {
+                this.crc.update(src.duplicate().limit(position + written).position(position));
+            }
+            return written;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return this.channel.isOpen();
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.channel.close();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package CuckooFilter;
+
+/**
+ * Breadth-first search of the shortest cuckoo path that frees a slot in one
+ * of the two buckets of an item. A path is a chain of buckets where the
+ * fingerprint in a chosen slot of each bucket can move to the next bucket,
+ * its alternate one, and the last bucket has an empty slot. Moving the
+ * fingerprints from the end of the path to its start frees a slot in the
+ * first bucket, with every fingerprint moved exactly once.
+ * <p>
+ * The search visits at most {@link #MAX_NODES} buckets, which bounds the
+ * cost of an insert. The arrays of the search are reused from one search to
+ * the next, an instance must not be shared between threads.
+ */
+final class CuckooPath {
+
+    /**
+     * Max length of a path, in number of moves
+     */
+    static final int MAX_DEPTH = 5;
+
+    /**
+     * Max number of buckets visited by a search
+     */
+    static final int MAX_NODES = 2 + 2 * (4 + 16 + 64 + 256);
+
+    private final int[] nodeBuckets = new int[MAX_NODES];
+
+    private final int[] nodeParents = new int[MAX_NODES];
+
+    private final int[] nodeSlots = new int[MAX_NODES];
+
+    private final int[] nodeDepths = new int[MAX_NODES];
+
+    private final int[] buckets = new int[MAX_DEPTH + 1];
+
+    private final int[] slots = new int[MAX_DEPTH];
+
+    private int length;
+
+    /**
+     * Search a path from one of the two given buckets.
+     *
+     * @param table      the table to search
+     * @param bucketMask the mask of the bucket indexes
+     * @param bucket1    the first bucket of the item
+     * @param bucket2    the second bucket of the item
+     * @return true if a path was found, false otherwise
+     */
+    boolean search(FingerprintTable table, int bucketMask, int bucket1, int bucket2) {
+        int head = 0;
+        int tail = 0;
+        tail = addNode(tail, bucket1, -1, -1, 0);
+        tail = addNode(tail, bucket2, -1, -1, 0);
+
+        while (head < tail) {
+            final int node = head++;
+            final int bucket = this.nodeBuckets[node];
+            final int depth = this.nodeDepths[node];
+
+            for (int slot = 0; slot < FingerprintTable.SLOTS_PER_BUCKET; slot++) {
+                int fingerprint = table.get(bucket, slot);
+                if (fingerprint == 0) {
+                    // only the start buckets can have an empty slot here, after a concurrent delete
+                    setPath(node, -1);
+                    return true;
+                }
+
+                int alternate = CuckooFilter.alternateIndex(fingerprint, bucket, bucketMask);
+                if (hasEmptySlot(table, alternate)) {
+                    setPath(node, slot);
+                    this.buckets[this.length] = alternate;
+                    return true;
+                }
+
+                if (depth + 1 < MAX_DEPTH && tail < MAX_NODES) {
+                    tail = addNode(tail, alternate, node, slot, depth + 1);
+                }
+            }
+        }
+
+        this.length = 0;
+        return false;
+    }
+
+    private int addNode(int tail, int bucket, int parent, int slot, int depth) {
+        this.nodeBuckets[tail] = bucket;
+        this.nodeParents[tail] = parent;
+        this.nodeSlots[tail] = slot;
+        this.nodeDepths[tail] = depth;
+        return tail + 1;
+    }
+
+    /**
+     * Unwind the chain of parents of a node into the path, optionally
+     * followed by a move out of the given slot of the node.
+     */
+    private void setPath(int node, int lastSlot) {
+        int moves = this.nodeDepths[node] + (lastSlot >= 0 ? 1 : 0);
+        this.length = moves;
+
+        int position = this.nodeDepths[node];
+        if (lastSlot >= 0) {
+            this.slots[position] = lastSlot;
+        }
+        for (int current = node; current >= 0; current = this.nodeParents[current]) {
+            this.buckets[position] = this.nodeBuckets[current];
+            if (position > 0) {
+                this.slots[position - 1] = this.nodeSlots[current];
+            }
+            position--;
+        }
+    }
+
+    private static boolean hasEmptySlot(FingerprintTable table, int bucket) {
+        for (int slot = 0; slot < FingerprintTable.SLOTS_PER_BUCKET; slot++) {
+            if (table.get(bucket, slot) == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The number of moves of the path found
+     */
+    int length() {
+        return this.length;
+    }
+
+    /**
+     * The bucket at a position of the path, from 0 to {@link #length()}
+     */
+    int bucket(int position) {
+        return this.buckets[position];
+    }
+
+    /**
+     * The slot whose fingerprint moves out of the bucket at a position of the
+     * path, from 0 to {@link #length()} exclusive
+     */
+    int slot(int position) {
+        return this.slots[position];
+    }
+}
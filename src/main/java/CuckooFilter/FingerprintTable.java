@@ -0,0 +1,273 @@
+package CuckooFilter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+import BloomFilter.core.Words;
+
+/**
+ * The storage of the fingerprints of a {@link CuckooFilter}. The table is
+ * made of buckets of {@link #SLOTS_PER_BUCKET} slots, each slot holding one
+ * fingerprint of {@link #fingerprintBits()} bits. Fingerprints are never
+ * zero, a slot holding zero is empty.
+ */
+public interface FingerprintTable {
+
+    /**
+     * Number of slots in a bucket
+     */
+    int SLOTS_PER_BUCKET = 4;
+
+    /**
+     * Get the number of buckets in the table
+     *
+     * @return the number of buckets
+     */
+    int numBuckets();
+
+    /**
+     * Get the size of a fingerprint
+     *
+     * @return the number of bits of a fingerprint
+     */
+    int fingerprintBits();
+
+    /**
+     * Get the fingerprint stored in a slot
+     *
+     * @param bucket the index of the bucket
+     * @param slot   the index of the slot in the bucket
+     * @return the fingerprint, or zero if the slot is empty
+     */
+    int get(int bucket, int slot);
+
+    /**
+     * Store a fingerprint in a slot
+     *
+     * @param bucket      the index of the bucket
+     * @param slot        the index of the slot in the bucket
+     * @param fingerprint the fingerprint, or zero to empty the slot
+     */
+    void set(int bucket, int slot, int fingerprint);
+
+    /**
+     * Checks if a fingerprint is stored in a bucket.
+     *
+     * @param bucket      the index of the bucket
+     * @param fingerprint the fingerprint to look for
+     * @return true if the fingerprint is present, false otherwise
+     */
+    default boolean contains(int bucket, int fingerprint) {
+        for (int slot = 0; slot < SLOTS_PER_BUCKET; slot++) {
+            if (get(bucket, slot) == fingerprint) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if a fingerprint is stored in either of the two buckets of an
+     * item.
+     *
+     * @param bucket1     the index of the first bucket
+     * @param bucket2     the index of the second bucket
+     * @param fingerprint the fingerprint to look for
+     * @return true if the fingerprint is present, false otherwise
+     */
+    default boolean containsEither(int bucket1, int bucket2, int fingerprint) {
+        return contains(bucket1, fingerprint) || contains(bucket2, fingerprint);
+    }
+
+    /**
+     * Counts the copies of a fingerprint stored in a bucket.
+     *
+     * @param bucket      the index of the bucket
+     * @param fingerprint the fingerprint to count
+     * @return the number of slots holding the fingerprint
+     */
+    default int count(int bucket, int fingerprint) {
+        int copies = 0;
+        for (int slot = 0; slot < SLOTS_PER_BUCKET; slot++) {
+            if (get(bucket, slot) == fingerprint) {
+                copies++;
+            }
+        }
+        return copies;
+    }
+
+    /**
+     * Stores a fingerprint in the first empty slot of a bucket.
+     *
+     * @param bucket      the index of the bucket
+     * @param fingerprint the fingerprint to store
+     * @return true if the fingerprint was stored, false if the bucket is full
+     */
+    default boolean insert(int bucket, int fingerprint) {
+        for (int slot = 0; slot < SLOTS_PER_BUCKET; slot++) {
+            if (get(bucket, slot) == 0) {
+                set(bucket, slot, fingerprint);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes one copy of a fingerprint from a bucket.
+     *
+     * @param bucket      the index of the bucket
+     * @param fingerprint the fingerprint to remove
+     * @return true if the fingerprint was found and removed, false otherwise
+     */
+    default boolean delete(int bucket, int fingerprint) {
+        for (int slot = 0; slot < SLOTS_PER_BUCKET; slot++) {
+            if (get(bucket, slot) == fingerprint) {
+                set(bucket, slot, 0);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Replaces the fingerprint stored in a slot, as done when kicking a
+     * fingerprint out of its bucket.
+     *
+     * @param bucket      the index of the bucket
+     * @param slot        the index of the slot in the bucket
+     * @param fingerprint the fingerprint to store
+     * @return the fingerprint that was replaced
+     */
+    default int swap(int bucket, int slot, int fingerprint) {
+        int previous = get(bucket, slot);
+        set(bucket, slot, fingerprint);
+        return previous;
+    }
+
+    /**
+     * Whether storing or removing a fingerprint may rewrite the other slots of its bucket, as
+     * the sorted buckets of a {@link SemiSortedTable} do. A reader taking no lock could then
+     * miss a fingerprint that stays in the bucket, so a {@link CuckooFilter} over such a table
+     * counts all its updates as relocations.
+     *
+     * @return true if an update may rewrite the other fingerprints of its bucket
+     */
+    default boolean rewritesBuckets() {
+        return false;
+    }
+
+    /**
+     * Get the approximate memory used by the table
+     *
+     * @return the number of bytes used
+     */
+    long sizeInBytes();
+
+    /**
+     * Get the layout of the table, which tells how its words are encoded
+     *
+     * @return the layout
+     */
+    TableLayout layout();
+
+    /**
+     * Get the number of 64-bit words written by
+     * {@link #writeWords(WritableByteChannel)}. By default, the fingerprints
+     * are written back to back as in a {@link PackedTable}.
+     *
+     * @return the number of words
+     */
+    default long wordCount() {
+        return ((long) numBuckets() * SLOTS_PER_BUCKET * fingerprintBits() + Long.SIZE - 1) >>> 6;
+    }
+
+    /**
+     * Write the fingerprints as {@link #wordCount()} little-endian words. By
+     * default, they are read one slot at a time and packed back to back as in
+     * a {@link PackedTable}. Tables that already hold words write them in bulk.
+     *
+     * @param channel the channel to write to
+     * @throws IOException if the words cannot be written
+     */
+    default void writeWords(WritableByteChannel channel) throws IOException {
+        final int bits = fingerprintBits();
+        final long mask = (1L << bits) - 1;
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+
+        long word = 0;
+        int filled = 0;
+        for (int bucket = 0; bucket < numBuckets(); bucket++) {
+            for (int slot = 0; slot < SLOTS_PER_BUCKET; slot++) {
+                long fingerprint = get(bucket, slot) & mask;
+                word |= fingerprint << filled;
+                filled += bits;
+                if (filled >= Long.SIZE) {
+                    if (!buffer.hasRemaining()) {
+                        Words.writeFully(channel, buffer.flip());
+                        buffer.clear();
+                    }
+                    buffer.putLong(word);
+                    filled -= Long.SIZE;
+                    // the high bits of the fingerprint that did not fit in the word
+                    word = filled == 0 ? 0 : fingerprint >>> (bits - filled);
+                }
+            }
+        }
+        if (filled > 0) {
+            if (!buffer.hasRemaining()) {
+                Words.writeFully(channel, buffer.flip());
+                buffer.clear();
+            }
+            buffer.putLong(word);
+        }
+        Words.writeFully(channel, buffer.flip());
+    }
+
+    /**
+     * Read the words written by {@link #writeWords(WritableByteChannel)} into
+     * this empty table. By default, the fingerprints are unpacked and
+     * inserted one at a time.
+     *
+     * @param channel the channel to read from
+     * @throws IOException if the words cannot be read
+     */
+    default void readWords(ReadableByteChannel channel) throws IOException {
+        final int bits = fingerprintBits();
+        final long mask = (1L << bits) - 1;
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+        long remainingWords = wordCount();
+        buffer.flip();
+
+        long word = 0;
+        int used = Long.SIZE;
+        for (int bucket = 0; bucket < numBuckets(); bucket++) {
+            for (int slot = 0; slot < SLOTS_PER_BUCKET; slot++) {
+                final int left = Long.SIZE - used;
+                long fingerprint;
+                if (left >= bits) {
+                    fingerprint = word >>> used & mask;
+                    used += bits;
+                } else {
+                    // the low bits of the fingerprint end the word, its high bits start the next one
+                    long low = left == 0 ? 0 : word >>> used;
+                    if (!buffer.hasRemaining()) {
+                        buffer.clear().limit((int) Math.min(buffer.capacity(), remainingWords * Long.BYTES));
+                        Words.readFully(channel, buffer);
+                        buffer.flip();
+                    }
+                    word = buffer.getLong();
+                    remainingWords--;
+                    fingerprint = (low | word << left) & mask;
+                    used = bits - left;
+                }
+                if (fingerprint != 0) {
+                    insert(bucket, (int) fingerprint);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package CuckooFilter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+import BloomFilter.core.Words;
+
+/**
+ * A read-only {@link FingerprintTable} over the words of a serialized filter,
+ * memory-mapped from its file. The fingerprints are decoded straight from the
+ * mapped pages, in the encoding of the layout the table was written with, so
+ * opening the table takes no time and no heap whatever its size: the pages
+ * are loaded by the operating system as lookups touch them.
+ * <p>
+ * A buffer can map at most 2^31 bytes, so the words are mapped in chunks of
+ * 1 GiB. Any update throws an {@link UnsupportedOperationException}.
+ */
+final class MappedTable implements FingerprintTable {
+
+    /**
+     * Number of words mapped by each chunk, as a power of two
+     */
+    private static final int CHUNK_WORDS_SHIFT = 27;
+
+    private static final long CHUNK_WORDS_MASK = (1L << CHUNK_WORDS_SHIFT) - 1;
+
+    private final ByteBuffer[] chunks;
+
+    private final long wordCount;
+
+    private final int numBuckets;
+
+    private final int fingerprintBits;
+
+    private final TableLayout layout;
+
+    /**
+     * Number of bits read for a lookup: a fingerprint, or a whole bucket for
+     * the {@link TableLayout#SEMI_SORTED} layout
+     */
+    private final int entryBits;
+
+    private final long entryMask;
+
+    /**
+     * Number of low bits of a semi-sorted fingerprint
+     */
+    private final int lowBits;
+
+    /**
+     * Map the words of a table.
+     *
+     * @param channel         the file, open for reading
+     * @param position        the position of the first word in the file
+     * @param wordCount       the number of words
+     * @param numBuckets      the number of buckets
+     * @param fingerprintBits the number of bits of a fingerprint
+     * @param layout          the layout the words were written with
+     * @throws IOException if the file cannot be mapped
+     */
+    MappedTable(FileChannel channel, long position, long wordCount, int numBuckets, int fingerprintBits,
+                TableLayout layout) throws IOException {
+        this.chunks = new ByteBuffer[(int) ((wordCount + CHUNK_WORDS_MASK) >>> CHUNK_WORDS_SHIFT)];
+        for (int i = 0; i < this.chunks.length; i++) {
+            long firstWord = (long) i << CHUNK_WORDS_SHIFT;
+            long numBytes = Math.min(CHUNK_WORDS_MASK + 1, wordCount - firstWord) * Long.BYTES;
+            this.chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, position + firstWord * Long.BYTES, numBytes)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        this.wordCount = wordCount;
+        this.numBuckets = numBuckets;
+        this.fingerprintBits = fingerprintBits;
+        this.layout = layout;
+        if (layout == TableLayout.SEMI_SORTED) {
+            this.entryBits = SemiSortedTable.bucketBits(fingerprintBits);
+            this.lowBits = fingerprintBits - 4;
+        } else {
+            this.entryBits = fingerprintBits;
+            this.lowBits = 0;
+        }
+        this.entryMask = (1L << this.entryBits) - 1;
+    }
+
+    private long word(long wordIndex) {
+        return this.chunks[(int) (wordIndex >>> CHUNK_WORDS_SHIFT)].getLong((int) (wordIndex & CHUNK_WORDS_MASK) << 3);
+    }
+
+    /**
+     * Read the entry, fingerprint or bucket, at the given position
+     */
+    private long entry(long index) {
+        final long bit = index * this.entryBits;
+        final long wordIndex = bit >>> 6;
+        final int offset = (int) bit & 63;
+
+        long value = word(wordIndex) >>> offset;
+        if (offset + this.entryBits > Long.SIZE) {
+            value |= word(wordIndex + 1) << (Long.SIZE - offset);
+        }
+        return value & this.entryMask;
+    }
+
+    @Override
+    public int numBuckets() {
+        return this.numBuckets;
+    }
+
+    @Override
+    public int fingerprintBits() {
+        return this.fingerprintBits;
+    }
+
+    @Override
+    public int get(int bucket, int slot) {
+        if (this.layout == TableLayout.SEMI_SORTED) {
+            return SemiSortedTable.fingerprint(entry(bucket), slot, this.lowBits);
+        }
+        return (int) entry((long) bucket * SLOTS_PER_BUCKET + slot);
+    }
+
+    @Override
+    public boolean contains(int bucket, int fingerprint) {
+        if (this.layout == TableLayout.SEMI_SORTED) {
+            return SemiSortedTable.bucketContains(entry(bucket), fingerprint, this.lowBits);
+        }
+        return FingerprintTable.super.contains(bucket, fingerprint);
+    }
+
+    @Override
+    public void set(int bucket, int slot, int fingerprint) {
+        throw new UnsupportedOperationException("The mapped table is read-only");
+    }
+
+    @Override
+    public boolean insert(int bucket, int fingerprint) {
+        throw new UnsupportedOperationException("The mapped table is read-only");
+    }
+
+    @Override
+    public boolean delete(int bucket, int fingerprint) {
+        throw new UnsupportedOperationException("The mapped table is read-only");
+    }
+
+    /**
+     * The mapped pages are not on the heap
+     */
+    @Override
+    public long sizeInBytes() {
+        return 0;
+    }
+
+    @Override
+    public TableLayout layout() {
+        return this.layout;
+    }
+
+    @Override
+    public long wordCount() {
+        return this.wordCount;
+    }
+
+    @Override
+    public void writeWords(WritableByteChannel channel) throws IOException {
+        for (ByteBuffer chunk : this.chunks) {
+            Words.writeFully(channel, chunk.duplicate());
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package CuckooFilter;
+
+/**
+ * The counts of the duplicates of a {@link CountingCuckooFilter} that overflowed its table, as
+ * an open addressing table of primitive <code>long</code> keys and <code>int</code> counts.
+ * A hot key is counted without boxing its key or its count and without allocating an entry,
+ * which a <code>HashMap&lt;Long, Integer&gt;</code> would do on every insert.
+ * <p>
+ * Keys are probed linearly and removed by shifting the following keys back, so the table has
+ * no tombstones. A key is never 0, which marks the empty slots: the keys hold a fingerprint,
+ * which is never 0. Not thread-safe, the filter uses it under its lock.
+ */
+final class OverflowCounts {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private long[] keys = new long[INITIAL_CAPACITY];
+
+    private int[] counts = new int[INITIAL_CAPACITY];
+
+    private int size;
+
+    /**
+     * Returns the count of a key.
+     *
+     * @param key the key, not 0
+     * @return the count, 0 if the key is absent
+     */
+    int get(long key) {
+        int slot = find(key);
+        return slot >= 0 ? counts[slot] : 0;
+    }
+
+    /**
+     * Adds one to the count of a key, adding the key if it is absent.
+     *
+     * @param key the key, not 0
+     */
+    void increment(long key) {
+        int mask = keys.length - 1;
+        int slot = index(key, mask);
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                counts[slot]++;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        counts[slot] = 1;
+        if (++size << 1 > keys.length) {
+            resize();
+        }
+    }
+
+    /**
+     * Subtracts one from the count of a key, removing the key once its count drops to 0.
+     *
+     * @param key the key, not 0
+     * @return true if the key was present, false otherwise
+     */
+    boolean decrement(long key) {
+        int slot = find(key);
+        if (slot < 0) {
+            return false;
+        }
+        if (--counts[slot] == 0) {
+            removeAt(slot);
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of keys.
+     *
+     * @return the number of keys
+     */
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    private int find(long key) {
+        int mask = keys.length - 1;
+        for (int slot = index(key, mask); keys[slot] != 0; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Empties a slot, then moves back the following keys of the run that can take it, so
+     * that no key is left after an empty slot on its probe sequence.
+     */
+    private void removeAt(int hole) {
+        int mask = keys.length - 1;
+        for (int slot = (hole + 1) & mask; keys[slot] != 0; slot = (slot + 1) & mask) {
+            int home = index(keys[slot], mask);
+            // the key can move back if the hole is between its home slot and its slot
+            if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+                keys[hole] = keys[slot];
+                counts[hole] = counts[slot];
+                hole = slot;
+            }
+        }
+        keys[hole] = 0;
+        counts[hole] = 0;
+        size--;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = new long[oldKeys.length << 1];
+        counts = new int[oldKeys.length << 1];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = index(oldKeys[i], mask);
+                while (keys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+    }
+
+    /**
+     * The home slot of a key. The bucket index is in the high half of the key and the
+     * fingerprint in the low half, so both halves are mixed.
+     */
+    private static int index(long key, int mask) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+}
@@ -0,0 +1,216 @@
+package CuckooFilter;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+import BloomFilter.core.Words;
+
+/**
+ * A {@link FingerprintTable} that packs the fingerprints in a single
+ * <code>long[]</code>, with no space between them. A bucket of 4 fingerprints
+ * of 8, 12, 16 or 32 bits takes 32, 48, 64 or 128 bits, so reading a bucket
+ * takes one or two word reads. This is what lets a filter of 1B items with
+ * 16-bit fingerprints fit in about 2 GiB.
+ * <p>
+ * Lookups compare the fingerprint against the 4 slots of a bucket at once
+ * (SWAR): the bucket is XORed with the fingerprint repeated in every slot,
+ * and a slot that became zero is detected with the "has zero byte" trick,
+ * generalized to slots of any size.
+ * <p>
+ * Words are read and written with opaque accesses, so that the optimistic
+ * readers of a {@link ConcurrentCuckooFilter} always read the latest words.
+ * Updates are not atomic, concurrent writers must hold the lock of the
+ * buckets they update.
+ */
+public class PackedTable implements FingerprintTable {
+
+    private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    /**
+     * The words holding the fingerprints
+     */
+    final long[] words;
+
+    final int numBuckets;
+
+    final int fingerprintBits;
+
+    /**
+     * Mask of the bits of a fingerprint
+     */
+    final long fingerprintMask;
+
+    /**
+     * Number of bits of a bucket read as one word, all the slots for
+     * fingerprints up to 16 bits, and half of them for 32-bit fingerprints
+     */
+    private final int laneBits;
+
+    /**
+     * Mask of the bits of the slots of a word read by {@link #lanes(long)}
+     */
+    private final long lanesMask;
+
+    /**
+     * The lowest bit of every slot of a word read by {@link #lanes(long)}
+     */
+    private final long lowBits;
+
+    /**
+     * The highest bit of every slot of a word read by {@link #lanes(long)}
+     */
+    private final long highBits;
+
+    public PackedTable(int numBuckets, int fingerprintBits) {
+        if (fingerprintBits != 8 && fingerprintBits != 12 && fingerprintBits != 16 && fingerprintBits != 32) {
+            throw new IllegalArgumentException("Fingerprint size must be 8, 12, 16 or 32 bits: " + fingerprintBits);
+        }
+
+        long numWords = ((long) numBuckets * SLOTS_PER_BUCKET * fingerprintBits + Long.SIZE - 1) >>> 6;
+        if (numWords > Integer.MAX_VALUE - 9) {
+            throw new IllegalArgumentException("Too many buckets for a packed table: " + numBuckets);
+        }
+
+        // one more word so that a fingerprint crossing the last word can always be read as two words
+        this.words = new long[(int) numWords + 1];
+        this.numBuckets = numBuckets;
+        this.fingerprintBits = fingerprintBits;
+        this.fingerprintMask = (1L << fingerprintBits) - 1;
+
+        final int slotsPerLane = fingerprintBits == Integer.SIZE ? 2 : SLOTS_PER_BUCKET;
+        this.laneBits = slotsPerLane * fingerprintBits;
+        this.lanesMask = this.laneBits == Long.SIZE ? -1L : (1L << this.laneBits) - 1;
+        long low = 0;
+        for (int slot = 0; slot < slotsPerLane; slot++) {
+            low |= 1L << (slot * fingerprintBits);
+        }
+        this.lowBits = low;
+        this.highBits = low << (fingerprintBits - 1);
+    }
+
+    @Override
+    public int numBuckets() {
+        return this.numBuckets;
+    }
+
+    @Override
+    public int fingerprintBits() {
+        return this.fingerprintBits;
+    }
+
+    @Override
+    public int get(int bucket, int slot) {
+        final long bit = ((long) bucket * SLOTS_PER_BUCKET + slot) * this.fingerprintBits;
+        final int wordIndex = (int) (bit >>> 6);
+        final int offset = (int) bit & 63;
+
+        long value = (long) WORDS.getOpaque(this.words, wordIndex) >>> offset;
+        if (offset + this.fingerprintBits > Long.SIZE) {
+            value |= (long) WORDS.getOpaque(this.words, wordIndex + 1) << (Long.SIZE - offset);
+        }
+        return (int) (value & this.fingerprintMask);
+    }
+
+    @Override
+    public boolean contains(int bucket, int fingerprint) {
+        return match(bucket, broadcast(fingerprint)) != 0;
+    }
+
+    /**
+     * Checks both buckets with no branch between them, so that the reads of
+     * the two buckets can overlap.
+     */
+    @Override
+    public boolean containsEither(int bucket1, int bucket2, int fingerprint) {
+        final long pattern = broadcast(fingerprint);
+        return (match(bucket1, pattern) | match(bucket2, pattern)) != 0;
+    }
+
+    /**
+     * Repeat a fingerprint in every slot of a word read by {@link #lanes(long)}
+     */
+    private long broadcast(int fingerprint) {
+        return (fingerprint & this.fingerprintMask) * this.lowBits;
+    }
+
+    /**
+     * Get a non-zero value if one of the slots of the bucket holds the
+     * fingerprint repeated in the given pattern
+     */
+    private long match(int bucket, long pattern) {
+        final long bit = (long) bucket * SLOTS_PER_BUCKET * this.fingerprintBits;
+        long found = zeroSlots(lanes(bit) ^ pattern);
+        if (this.laneBits != SLOTS_PER_BUCKET * this.fingerprintBits) {
+            found |= zeroSlots(lanes(bit + this.laneBits) ^ pattern);
+        }
+        return found;
+    }
+
+    /**
+     * Read the slots starting at the given bit, as many as fit in
+     * {@link #laneBits} bits
+     */
+    private long lanes(long bit) {
+        final int wordIndex = (int) (bit >>> 6);
+        final int offset = (int) bit & 63;
+
+        long value = (long) WORDS.getOpaque(this.words, wordIndex) >>> offset;
+        if (offset + this.laneBits > Long.SIZE) {
+            value |= (long) WORDS.getOpaque(this.words, wordIndex + 1) << (Long.SIZE - offset);
+        }
+        return value & this.lanesMask;
+    }
+
+    /**
+     * Get a non-zero value if one of the slots of the word is zero. A borrow
+     * can only mark a slot above one that is really zero, so the result is
+     * exact for the question "is any slot zero".
+     */
+    private long zeroSlots(long lanes) {
+        return (lanes - this.lowBits) & ~lanes & this.highBits;
+    }
+
+    @Override
+    public void set(int bucket, int slot, int fingerprint) {
+        final long bit = ((long) bucket * SLOTS_PER_BUCKET + slot) * this.fingerprintBits;
+        final int wordIndex = (int) (bit >>> 6);
+        final int offset = (int) bit & 63;
+        final long value = fingerprint & this.fingerprintMask;
+
+        WORDS.setOpaque(this.words, wordIndex, (this.words[wordIndex] & ~(this.fingerprintMask << offset)) | (value << offset));
+        if (offset + this.fingerprintBits > Long.SIZE) {
+            final int shift = Long.SIZE - offset;
+            WORDS.setOpaque(this.words, wordIndex + 1,
+                    (this.words[wordIndex + 1] & ~(this.fingerprintMask >>> shift)) | (value >>> shift));
+        }
+    }
+
+    @Override
+    public long sizeInBytes() {
+        return (long) this.words.length * Long.BYTES;
+    }
+
+    @Override
+    public TableLayout layout() {
+        return TableLayout.PACKED;
+    }
+
+    @Override
+    public long wordCount() {
+        // without the padding word
+        return this.words.length - 1;
+    }
+
+    @Override
+    public void writeWords(WritableByteChannel channel) throws IOException {
+        Words.write(this.words, this.words.length - 1, channel);
+    }
+
+    @Override
+    public void readWords(ReadableByteChannel channel) throws IOException {
+        Words.read(this.words, this.words.length - 1, channel);
+    }
+}
@@ -0,0 +1,228 @@
+package CuckooFilter;
+
+import java.util.Arrays;
+
+/**
+ * A cuckoo filter that grows instead of rejecting inserts once it is full.
+ * The filter is a chain of {@link CuckooFilter}s. When the newest filter
+ * reaches the max load factor, or cannot find room for an item, a new filter
+ * with twice its capacity is added to the chain and receives the next
+ * inserts. The original items are not needed to grow, and growing does not
+ * move any fingerprint: an insert that grows the filter only allocates the
+ * empty table of the new filter, so no insert ever pays for a rehash of the
+ * items already inserted.
+ * <p>
+ * An item is hashed once for all the filters. Queries and deletes go through
+ * the filters from the newest, which holds the most items, to the oldest.
+ * Each filter of the chain adds its own false positives, so the false
+ * positive probability of the chain is about the sum of the probabilities of
+ * its filters, and grows with the log of the number of items.
+ * <p>
+ * The filters lock their own updates, and the chain is replaced atomically
+ * when it grows, so the filter can be used by several threads.
+ */
+public class ScalableCuckooFilter {
+
+    /**
+     * Default load factor at which a new filter is added to the chain
+     */
+    public static final double DEFAULT_MAX_LOAD = 0.95;
+
+    /**
+     * Growth of the capacity between two filters of the chain
+     */
+    public static final int GROWTH_FACTOR = 2;
+
+    /**
+     * Max capacity of a single filter, 2^30 slots
+     */
+    private static final int MAX_CAPACITY = 1 << 29;
+
+    /**
+     * The size of a fingerprint in bits, in all the filters
+     */
+    protected final int fingerprintBits;
+
+    /**
+     * The layout of the tables of the filters
+     */
+    protected final TableLayout layout;
+
+    /**
+     * Load factor at which a new filter is added to the chain
+     */
+    protected final double maxLoad;
+
+    /**
+     * The filters, from the oldest to the newest
+     */
+    private volatile Filter[] filters;
+
+    /**
+     * Creates a scalable cuckoo filter with packed tables.
+     *
+     * @param initialCapacity the number of items the first filter should hold
+     * @param fingerprintBits the size of a fingerprint in bits, 8, 12, 16 or 32
+     */
+    public ScalableCuckooFilter(int initialCapacity, int fingerprintBits) {
+        this(initialCapacity, fingerprintBits, TableLayout.PACKED, DEFAULT_MAX_LOAD);
+    }
+
+    /**
+     * Creates a scalable cuckoo filter.
+     *
+     * @param initialCapacity the number of items the first filter should hold
+     * @param fingerprintBits the size of a fingerprint in bits
+     * @param layout          the layout of the tables of the filters
+     * @param maxLoad         the load factor at which a new filter is added,
+     *                        between 0 exclusive and 1 inclusive
+     */
+    public ScalableCuckooFilter(int initialCapacity, int fingerprintBits, TableLayout layout, double maxLoad) {
+        if (initialCapacity <= 0 || initialCapacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Initial capacity must be between 1 and " + MAX_CAPACITY + ": " + initialCapacity);
+        }
+        if (maxLoad <= 0 || maxLoad > 1) {
+            throw new IllegalArgumentException("Max load must be between 0 exclusive and 1 inclusive: " + maxLoad);
+        }
+
+        this.fingerprintBits = fingerprintBits;
+        this.layout = layout;
+        this.maxLoad = maxLoad;
+        this.filters = new Filter[]{newFilter(initialCapacity)};
+    }
+
+    private Filter newFilter(int capacity) {
+        return new Filter(new CuckooFilter(capacity, this.fingerprintBits, this.layout), capacity);
+    }
+
+    /**
+     * Inserts an item into the newest filter, adding a new filter to the
+     * chain first if the newest one is full.
+     *
+     * @param item the item to insert into the filter
+     * @return true if the item was inserted, false if the filter reached its
+     * max size
+     */
+    public boolean insert(String item) {
+        final long hash = CuckooFilter.HASHER.hash(item);
+
+        while (true) {
+            Filter[] current = this.filters;
+            CuckooFilter newest = current[current.length - 1].filter;
+            if (newest.loadFactor() < this.maxLoad && newest.insert(hash)) {
+                return true;
+            }
+            if (!grow(current)) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Removes one copy of an item from the newest filter that contains it.
+     *
+     * @param item the item to remove from the filter
+     * @return true if the item was found and removed, false otherwise
+     */
+    public boolean delete(String item) {
+        final long hash = CuckooFilter.HASHER.hash(item);
+
+        Filter[] current = this.filters;
+        for (int i = current.length - 1; i >= 0; i--) {
+            if (current[i].filter.delete(hash)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether an item is present in any filter of the chain.
+     *
+     * @param item the item to check for its presence in the filter
+     * @return true if the item is possibly in the filter, false if the item is definitely not in the filter
+     */
+    public boolean contains(String item) {
+        final long hash = CuckooFilter.HASHER.hash(item);
+
+        Filter[] current = this.filters;
+        for (int i = current.length - 1; i >= 0; i--) {
+            if (current[i].filter.contains(hash)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Add a new filter, unless another thread already did so since the given
+     * filters were read.
+     *
+     * @return false if the filter cannot grow anymore
+     */
+    private synchronized boolean grow(Filter[] seen) {
+        if (this.filters != seen) {
+            return true;
+        }
+
+        Filter newest = seen[seen.length - 1];
+        if (newest.capacity > MAX_CAPACITY / GROWTH_FACTOR) {
+            return false;
+        }
+
+        Filter[] grown = Arrays.copyOf(seen, seen.length + 1);
+        grown[seen.length] = newFilter(newest.capacity * GROWTH_FACTOR);
+        this.filters = grown;
+        return true;
+    }
+
+    /**
+     * Returns the number of filters the chain is made of.
+     *
+     * @return the number of filters
+     */
+    public int getFilterCount() {
+        return this.filters.length;
+    }
+
+    /**
+     * Returns the number of items in all the filters.
+     *
+     * @return the number of items
+     */
+    public long size() {
+        long size = 0;
+        for (Filter filter : this.filters) {
+            size += filter.filter.size();
+        }
+        return size;
+    }
+
+    /**
+     * Returns the approximate memory used by the tables of all the filters.
+     *
+     * @return the number of bytes used
+     */
+    public long sizeInBytes() {
+        long bytes = 0;
+        for (Filter filter : this.filters) {
+            bytes += filter.filter.sizeInBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * A filter of the chain along with the capacity it was created with.
+     */
+    private static final class Filter {
+
+        final CuckooFilter filter;
+
+        final int capacity;
+
+        Filter(CuckooFilter filter, int capacity) {
+            this.filter = filter;
+            this.capacity = capacity;
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package CuckooFilter;
+
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+import BloomFilter.core.Words;
+
+/**
+ * A {@link FingerprintTable} that compresses each bucket with semi-sorting,
+ * as in the original cuckoo filter paper (Fan et al.). The order of the
+ * fingerprints in a bucket does not matter, so they are kept sorted. The 4
+ * high-order nibbles of sorted fingerprints are then a sorted 4-tuple of
+ * nibbles, and there are only {@link #NUM_CODES} of these instead of 2^16:
+ * they are stored as a 12-bit index in a precomputed table. A bucket of 4
+ * fingerprints of <code>f</code> bits takes <code>4f - 4</code> bits, one bit
+ * per fingerprint less than a {@link PackedTable} for the same false positive
+ * probability.
+ * <p>
+ * A bucket is laid out as the 12-bit code of the nibbles, followed by the low
+ * <code>f - 4</code> bits of each fingerprint, from the smallest. With at
+ * most 16-bit fingerprints a bucket takes at most 60 bits, so it is read and
+ * written with one or two word accesses and decoded in registers.
+ * <p>
+ * Since the fingerprints are sorted, updating a bucket may move its other
+ * fingerprints to other slots: a slot index is only valid until the next
+ * update of its bucket. Empty slots, holding zero, are always the first ones.
+ * The table is not thread-safe. A {@link CuckooFilter} counts its updates as
+ * relocations, see {@link #rewritesBuckets()}, so that a lock-free lookup
+ * that read a bucket while it was rewritten probes it again under the lock.
+ */
+public class SemiSortedTable implements FingerprintTable {
+
+    /**
+     * Number of sorted 4-tuples of nibbles, C(16 + 4 - 1, 4)
+     */
+    static final int NUM_CODES = 3876;
+
+    /**
+     * Number of bits of the code of the nibbles of a bucket
+     */
+    static final int CODE_BITS = 12;
+
+    /**
+     * The sorted nibbles of each code, the smallest in the low nibble. The
+     * codes past {@link #NUM_CODES} are never written, but a lookup reading a
+     * bucket while it is rewritten may see one: they decode to zero nibbles.
+     */
+    private static final short[] DECODE = new short[1 << CODE_BITS];
+
+    /**
+     * The code of each sorted 4-tuple of nibbles, indexed as {@link #DECODE}
+     * values
+     */
+    private static final short[] ENCODE = new short[1 << 16];
+
+    static {
+        int code = 0;
+        for (int a = 0; a < 16; a++) {
+            for (int b = a; b < 16; b++) {
+                for (int c = b; c < 16; c++) {
+                    for (int d = c; d < 16; d++) {
+                        int nibbles = a | b << 4 | c << 8 | d << 12;
+                        DECODE[code] = (short) nibbles;
+                        ENCODE[nibbles] = (short) code;
+                        code++;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * The words holding the buckets
+     */
+    final long[] words;
+
+    final int numBuckets;
+
+    final int fingerprintBits;
+
+    /**
+     * Number of bits of a fingerprint stored outside of the code
+     */
+    private final int lowBits;
+
+    private final int lowMask;
+
+    /**
+     * Number of bits of a bucket
+     */
+    private final int bucketBits;
+
+    private final long bucketMask;
+
+    public SemiSortedTable(int numBuckets, int fingerprintBits) {
+        if (fingerprintBits < 5 || fingerprintBits > 16) {
+            throw new IllegalArgumentException("Fingerprint size must be between 5 and 16 bits: " + fingerprintBits);
+        }
+
+        this.lowBits = fingerprintBits - 4;
+        this.lowMask = (1 << this.lowBits) - 1;
+        this.bucketBits = bucketBits(fingerprintBits);
+        this.bucketMask = (1L << this.bucketBits) - 1;
+
+        long numWords = ((long) numBuckets * this.bucketBits + Long.SIZE - 1) >>> 6;
+        if (numWords > Integer.MAX_VALUE - 9) {
+            throw new IllegalArgumentException("Too many buckets for a semi-sorted table: " + numBuckets);
+        }
+
+        // one more word so that a bucket crossing the last word can always be read as two words,
+        // the code of 4 zero nibbles being 0 the zeroed words are empty buckets
+        this.words = new long[(int) numWords + 1];
+        this.numBuckets = numBuckets;
+        this.fingerprintBits = fingerprintBits;
+    }
+
+    @Override
+    public int numBuckets() {
+        return this.numBuckets;
+    }
+
+    @Override
+    public int fingerprintBits() {
+        return this.fingerprintBits;
+    }
+
+    @Override
+    public int get(int bucket, int slot) {
+        return fingerprint(readBucket(bucket), slot);
+    }
+
+    @Override
+    public void set(int bucket, int slot, int fingerprint) {
+        long bits = readBucket(bucket);
+        int f0 = slot == 0 ? fingerprint : fingerprint(bits, 0);
+        int f1 = slot == 1 ? fingerprint : fingerprint(bits, 1);
+        int f2 = slot == 2 ? fingerprint : fingerprint(bits, 2);
+        int f3 = slot == 3 ? fingerprint : fingerprint(bits, 3);
+        writeBucket(bucket, encode(f0, f1, f2, f3));
+    }
+
+    @Override
+    public boolean contains(int bucket, int fingerprint) {
+        return bucketContains(readBucket(bucket), fingerprint, this.lowBits);
+    }
+
+    @Override
+    public boolean insert(int bucket, int fingerprint) {
+        long bits = readBucket(bucket);
+        // empty slots sort first, the bucket is full if the first one is used
+        if (fingerprint(bits, 0) != 0) {
+            return false;
+        }
+        writeBucket(bucket, encode(fingerprint, fingerprint(bits, 1), fingerprint(bits, 2), fingerprint(bits, 3)));
+        return true;
+    }
+
+    /**
+     * Updates re-sort the bucket and rewrite it whole, over two words when
+     * it crosses a word boundary.
+     */
+    @Override
+    public boolean rewritesBuckets() {
+        return true;
+    }
+
+    @Override
+    public long sizeInBytes() {
+        return (long) this.words.length * Long.BYTES;
+    }
+
+    @Override
+    public TableLayout layout() {
+        return TableLayout.SEMI_SORTED;
+    }
+
+    @Override
+    public long wordCount() {
+        // without the padding word
+        return this.words.length - 1;
+    }
+
+    @Override
+    public void writeWords(WritableByteChannel channel) throws IOException {
+        Words.write(this.words, this.words.length - 1, channel);
+    }
+
+    @Override
+    public void readWords(ReadableByteChannel channel) throws IOException {
+        Words.read(this.words, this.words.length - 1, channel);
+    }
+
+    /**
+     * Get the number of bits of a bucket of fingerprints of the given size
+     */
+    static int bucketBits(int fingerprintBits) {
+        return CODE_BITS + SLOTS_PER_BUCKET * (fingerprintBits - 4);
+    }
+
+    /**
+     * Decode the fingerprint of a slot of an encoded bucket
+     *
+     * @param bits    the bucket
+     * @param slot    the index of the slot in the bucket
+     * @param lowBits the number of bits of a fingerprint stored outside of the code
+     * @return the fingerprint
+     */
+    static int fingerprint(long bits, int slot, int lowBits) {
+        int nibble = DECODE[(int) bits & ((1 << CODE_BITS) - 1)] >>> (slot << 2) & 0xF;
+        int low = (int) (bits >>> (CODE_BITS + slot * lowBits)) & ((1 << lowBits) - 1);
+        return nibble << lowBits | low;
+    }
+
+    /**
+     * Check if an encoded bucket holds a fingerprint, decoding its nibbles once
+     *
+     * @param bits        the bucket
+     * @param fingerprint the fingerprint to look for
+     * @param lowBits     the number of bits of a fingerprint stored outside of the code
+     * @return true if the fingerprint is present, false otherwise
+     */
+    static boolean bucketContains(long bits, int fingerprint, int lowBits) {
+        final int nibbles = DECODE[(int) bits & ((1 << CODE_BITS) - 1)];
+        final int lowMask = (1 << lowBits) - 1;
+        long low = bits >>> CODE_BITS;
+        for (int slot = 0; slot < SLOTS_PER_BUCKET; slot++) {
+            int stored = (nibbles >>> (slot << 2) & 0xF) << lowBits | (int) low & lowMask;
+            if (stored == fingerprint) {
+                return true;
+            }
+            low >>>= lowBits;
+        }
+        return false;
+    }
+
+    private int fingerprint(long bits, int slot) {
+        return fingerprint(bits, slot, this.lowBits);
+    }
+
+    /**
+     * Sort 4 fingerprints and encode them as a bucket
+     */
+    private long encode(int f0, int f1, int f2, int f3) {
+        // sorting network of 5 compare-exchanges, without branches
+        int a = Math.min(f0, f1);
+        int b = Math.max(f0, f1);
+        int c = Math.min(f2, f3);
+        int d = Math.max(f2, f3);
+        int s0 = Math.min(a, c);
+        int s3 = Math.max(b, d);
+        int s1 = Math.min(Math.max(a, c), Math.min(b, d));
+        int s2 = Math.max(Math.max(a, c), Math.min(b, d));
+
+        final int shift = this.lowBits;
+        int nibbles = s0 >>> shift | (s1 >>> shift) << 4 | (s2 >>> shift) << 8 | (s3 >>> shift) << 12;
+        long bits = ENCODE[nibbles] & 0xFFFFL;
+        bits |= (long) (s0 & this.lowMask) << CODE_BITS;
+        bits |= (long) (s1 & this.lowMask) << (CODE_BITS + shift);
+        bits |= (long) (s2 & this.lowMask) << (CODE_BITS + 2 * shift);
+        bits |= (long) (s3 & this.lowMask) << (CODE_BITS + 3 * shift);
+        return bits;
+    }
+
+    private long readBucket(int bucket) {
+        final long bit = (long) bucket * this.bucketBits;
+        final int wordIndex = (int) (bit >>> 6);
+        final int offset = (int) bit & 63;
+
+        long value = this.words[wordIndex] >>> offset;
+        if (offset + this.bucketBits > Long.SIZE) {
+            value |= this.words[wordIndex + 1] << (Long.SIZE - offset);
+        }
+        return value & this.bucketMask;
+    }
+
+    private void writeBucket(int bucket, long value) {
+        final long bit = (long) bucket * this.bucketBits;
+        final int wordIndex = (int) (bit >>> 6);
+        final int offset = (int) bit & 63;
+
+        this.words[wordIndex] = (this.words[wordIndex] & ~(this.bucketMask << offset)) | (value << offset);
+        if (offset + this.bucketBits > Long.SIZE) {
+            final int shift = Long.SIZE - offset;
+            this.words[wordIndex + 1] = (this.words[wordIndex + 1] & ~(this.bucketMask >>> shift)) | (value >>> shift);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package CuckooFilter;
+
+/**
+ * The layouts of the {@link FingerprintTable} of a {@link CuckooFilter}.
+ */
+public enum TableLayout {
+
+    /**
+     * One {@link Bucket} object per bucket, see {@link BucketTable}
+     */
+    BUCKETS {
+        @Override
+        public FingerprintTable create(int numBuckets, int fingerprintBits) {
+            return new BucketTable(numBuckets, fingerprintBits);
+        }
+    },
+
+    /**
+     * Fingerprints packed in a <code>long[]</code>, see {@link PackedTable}
+     */
+    PACKED {
+        @Override
+        public FingerprintTable create(int numBuckets, int fingerprintBits) {
+            return new PackedTable(numBuckets, fingerprintBits);
+        }
+    },
+
+    /**
+     * Sorted buckets with compressed high nibbles, one bit per fingerprint
+     * less than {@link #PACKED}, see {@link SemiSortedTable}
+     */
+    SEMI_SORTED {
+        @Override
+        public FingerprintTable create(int numBuckets, int fingerprintBits) {
+            return new SemiSortedTable(numBuckets, fingerprintBits);
+        }
+    };
+
+    /**
+     * Create an empty table of this layout.
+     *
+     * @param numBuckets      the number of buckets
+     * @param fingerprintBits the number of bits of a fingerprint
+     * @return the table
+     */
+    public abstract FingerprintTable create(int numBuckets, int fingerprintBits);
+}
@@ -0,0 +1,114 @@
+package CuckooFilter;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Version counters for stripes of buckets, used as sequence locks. A writer
+ * locks a stripe by making its version odd and unlocks it by making it even
+ * again, so a reader that sees the same even version before and after
+ * reading a bucket knows that no writer touched the bucket meanwhile. The
+ * readers that keep failing to validate can lock the stripes as well.
+ * <p>
+ * Buckets are grouped by four consecutive buckets before being mapped to a
+ * stripe, so that buckets sharing a word of a {@link PackedTable} always
+ * share a stripe.
+ */
+final class VersionStripes {
+
+    private static final VarHandle VERSIONS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    /**
+     * Versions are spread one per 64-byte cache line, to avoid false sharing
+     */
+    private static final int PADDING_SHIFT = 3;
+
+    /**
+     * Max number of stripes
+     */
+    static final int MAX_STRIPES = 1 << 14;
+
+    private final long[] versions;
+
+    private final int stripeMask;
+
+    VersionStripes(int numBuckets) {
+        int numStripes = Math.min(MAX_STRIPES, Integer.highestOneBit(Math.max(1, numBuckets >>> 2)));
+        this.versions = new long[numStripes << PADDING_SHIFT];
+        this.stripeMask = numStripes - 1;
+    }
+
+    int stripe(int bucket) {
+        return (bucket >>> 2) & this.stripeMask;
+    }
+
+    /**
+     * Read the version of a stripe before reading its buckets. An odd
+     * version means a writer holds the stripe.
+     */
+    long readVersion(int stripe) {
+        return (long) VERSIONS.getAcquire(this.versions, stripe << PADDING_SHIFT);
+    }
+
+    /**
+     * Check that the version of a stripe did not change since it was read by
+     * {@link #readVersion(int)}, after reading its buckets.
+     */
+    boolean validate(int stripe, long version) {
+        VarHandle.acquireFence();
+        return (long) VERSIONS.getOpaque(this.versions, stripe << PADDING_SHIFT) == version;
+    }
+
+    void lock(int stripe) {
+        final int index = stripe << PADDING_SHIFT;
+        while (true) {
+            long version = (long) VERSIONS.getOpaque(this.versions, index);
+            if ((version & 1) == 0 && VERSIONS.compareAndSet(this.versions, index, version, version + 1)) {
+                // the odd version must be visible before any update of the buckets
+                VarHandle.storeStoreFence();
+                return;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    void unlock(int stripe) {
+        final int index = stripe << PADDING_SHIFT;
+        VERSIONS.setRelease(this.versions, index, this.versions[index] + 1);
+    }
+
+    /**
+     * Lock two stripes, always in the same order to avoid deadlocks.
+     */
+    void lock(int stripe1, int stripe2) {
+        if (stripe1 == stripe2) {
+            lock(stripe1);
+        } else {
+            lock(Math.min(stripe1, stripe2));
+            lock(Math.max(stripe1, stripe2));
+        }
+    }
+
+    void unlock(int stripe1, int stripe2) {
+        unlock(stripe1);
+        if (stripe1 != stripe2) {
+            unlock(stripe2);
+        }
+    }
+
+    /**
+     * Lock all the stripes, in index order as {@link #lock(int, int)} does,
+     * to get a consistent view of the whole table.
+     */
+    void lockAll() {
+        for (int stripe = 0; stripe <= this.stripeMask; stripe++) {
+            lock(stripe);
+        }
+    }
+
+    void unlockAll() {
+        for (int stripe = this.stripeMask; stripe >= 0; stripe--) {
+            unlock(stripe);
+        }
+    }
+}
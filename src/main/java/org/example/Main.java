@@ -2,21 +2,27 @@ package org.example;
 
 
 import BloomFilter.BloomFilter;
+import BloomFilter.CountingBloomFilter;
+import ConcurrentSkipList.LockFreeSkipList;
 import ConcurrentSkipList.SkipList;
 import CuckooFilter.CuckooFilter;
 
 import java.io.IOException;
-import java.security.NoSuchAlgorithmException;
 import java.util.*;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.IntConsumer;
 
 public class Main {
-    public static void main(String[] args) throws NoSuchAlgorithmException, IOException {
+    public static void main(String[] args) throws IOException {
 
         ConfigLoader config = new ConfigLoader();
         String dsType = config.getProperty("datastructures.type");
         String inputLoc = config.getProperty("input.location");
         String operation = config.getProperty("operation");
         int querySize = Integer.parseInt(config.getProperty("querySize"));
+        // the skip lists are loaded and queried by this many threads
+        String threadsProperty = config.getProperty("threads");
+        int threads = threadsProperty == null ? 1 : Integer.parseInt(threadsProperty.trim());
 
         CSVProcessor csvProcessor = new CSVProcessor();
         csvProcessor.loadAndProcessCSV(inputLoc);
@@ -26,28 +32,57 @@ public class Main {
 
         switch (dsType) {
             case "ConcurrentSkipList":
-                SkipList skipList = new SkipList(csvProcessor.lines.size());
+                SkipList<String> skipList = new SkipList<>(csvProcessor.lines.size());
 
-                for (int i = 0; i < csvProcessor.lines.size(); i++)
-                    skipList.add(csvProcessor.lines.get(i));
+                runParallel(threads, csvProcessor.lines.size(), i -> skipList.add(csvProcessor.lines.get(i)));
 
                 if (operation.equals("search")) {
-                    for (Integer data : testData)
-                        skipList.search(csvProcessor.lines.get(data));
+                    runParallel(threads, testData.size(), i -> skipList.search(csvProcessor.lines.get(testData.get(i))));
                 } else if (operation.equals("delete")) {
-                    for (Integer data : testData)
-                        skipList.remove(csvProcessor.lines.get(data));
+                    runParallel(threads, testData.size(), i -> skipList.remove(csvProcessor.lines.get(testData.get(i))));
+                }
+                break;
+
+            case "LockFreeSkipList":
+                LockFreeSkipList<String> lockFreeSkipList = new LockFreeSkipList<>(csvProcessor.lines.size());
+
+                runParallel(threads, csvProcessor.lines.size(), i -> lockFreeSkipList.add(csvProcessor.lines.get(i)));
+
+                if (operation.equals("search")) {
+                    runParallel(threads, testData.size(), i -> lockFreeSkipList.search(csvProcessor.lines.get(testData.get(i))));
+                } else if (operation.equals("delete")) {
+                    runParallel(threads, testData.size(), i -> lockFreeSkipList.remove(csvProcessor.lines.get(testData.get(i))));
+                }
+                break;
+
+            case "ConcurrentSkipListSet":
+                // the JDK skip list, as a baseline for the two above
+                ConcurrentSkipListSet<String> skipListSet = new ConcurrentSkipListSet<>();
+
+                runParallel(threads, csvProcessor.lines.size(), i -> skipListSet.add(csvProcessor.lines.get(i)));
+
+                if (operation.equals("search")) {
+                    runParallel(threads, testData.size(), i -> skipListSet.contains(csvProcessor.lines.get(testData.get(i))));
+                } else if (operation.equals("delete")) {
+                    runParallel(threads, testData.size(), i -> skipListSet.remove(csvProcessor.lines.get(testData.get(i))));
                 }
                 break;
 
             case "BloomFiler":
-                BloomFilter<String> bloomFilter = new BloomFilter<String>(csvProcessor.lines.size(), 0.01d);
+                // only the counting variant supports removal, at four times the memory
+                BloomFilter<String> bloomFilter = operation.equals("delete")
+                        ? new CountingBloomFilter<String>(csvProcessor.lines.size(), 0.01d)
+                        : new BloomFilter<String>(csvProcessor.lines.size(), 0.01d);
                 for (int i = 0; i < csvProcessor.lines.size(); i++)
                     bloomFilter.add(csvProcessor.lines.get(i));
 
                 if (operation.equals("search")) {
                     for (Integer data : testData)
                         bloomFilter.contains(csvProcessor.lines.get(data));
+                } else if (operation.equals("delete")) {
+                    CountingBloomFilter<String> countingBloomFilter = (CountingBloomFilter<String>) bloomFilter;
+                    for (Integer data : testData)
+                        countingBloomFilter.remove(csvProcessor.lines.get(data));
                 }
                 break;
 
@@ -74,4 +109,35 @@ public class Main {
         System.out.println("Execution time: " + duration / 1_000_000 + " ms");
         System.out.println("Memory used: " + memoryUsage / 1024 / 1024 + " MB");
     }
+
+    /**
+     * Run the operation for the indexes 0 to n - 1, split in contiguous ranges between the given
+     * number of threads, and wait for all of them.
+     */
+    private static void runParallel(int threads, int n, IntConsumer operation) {
+        if (threads <= 1) {
+            for (int i = 0; i < n; i++)
+                operation.accept(i);
+            return;
+        }
+
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            final int from = (int) ((long) n * t / threads);
+            final int to = (int) ((long) n * (t + 1) / threads);
+            workers[t] = new Thread(() -> {
+                for (int i = from; i < to; i++)
+                    operation.accept(i);
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the workers", e);
+            }
+        }
+    }
 }
\ No newline at end of file
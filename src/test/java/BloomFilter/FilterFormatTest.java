@@ -0,0 +1,86 @@
+package BloomFilter;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.Test;
+
+import BloomFilter.decompose.Decomposer;
+import BloomFilter.decompose.DefaultDecomposer;
+
+class FilterFormatTest {
+
+    /**
+     * A filter of UTF-16 strings read back, then written and read again, still decomposes its
+     * values in UTF-16 whatever the default charset.
+     */
+    @Test
+    void keepsTheCharsetOfTheDefaultDecomposer() throws IOException {
+        BloomFilter<String> filter = new BloomFilter<>(1_000, 0.01,
+                new DefaultDecomposer<String>(StandardCharsets.UTF_16LE), null);
+        for (int i = 0; i < 1_000; i++) {
+            filter.add("value-" + i);
+        }
+
+        BloomFilter<String> reread = BloomFilter.readFrom(Channels.newChannel(new ByteArrayInputStream(write(filter))));
+        BloomFilter<String> rewritten = BloomFilter.readFrom(Channels.newChannel(new ByteArrayInputStream(write(reread))));
+        for (int i = 0; i < 1_000; i++) {
+            assertTrue(rewritten.contains("value-" + i));
+        }
+    }
+
+    @Test
+    void needsTheCustomDecomposerToRead() throws IOException {
+        Decomposer<String> reversed = (value, sink) -> sink.putString(new StringBuilder(value).reverse(), StandardCharsets.UTF_8);
+        BloomFilter<String> filter = new BloomFilter<>(1_000, 0.01, reversed, null);
+        filter.add("value");
+        byte[] bytes = write(filter);
+
+        assertThrows(IOException.class, () -> BloomFilter.readFrom(Channels.newChannel(new ByteArrayInputStream(bytes))));
+        BloomFilter<String> reread = BloomFilter.readFrom(Channels.newChannel(new ByteArrayInputStream(bytes)), null, reversed);
+        assertTrue(reread.contains("value"));
+    }
+
+    /**
+     * Corrupted header fields are reported as {@link IOException}s before anything is
+     * allocated.
+     */
+    @Test
+    void rejectsCorruptedHeaders() throws IOException {
+        byte[] bytes = write(new BloomFilter<String>(1_000, 0.01));
+
+        // number of bits
+        assertCorrupted(bytes, header -> header.putLong(12, 1L << 40));
+        assertCorrupted(bytes, header -> header.putLong(12, -64));
+        // number of hash functions
+        assertCorrupted(bytes, header -> header.putInt(20, 0));
+        // hash function
+        assertCorrupted(bytes, header -> header.putInt(24, 99));
+        // number of words
+        assertCorrupted(bytes, header -> header.putLong(36, 1L << 40));
+        // charset name
+        assertCorrupted(bytes, header -> header.putShort(44, (short) -1));
+        assertCorrupted(bytes, header -> header.put(46, (byte) '?'));
+    }
+
+    private static void assertCorrupted(byte[] bytes, Consumer<ByteBuffer> corruption) {
+        byte[] corrupted = bytes.clone();
+        corruption.accept(ByteBuffer.wrap(corrupted).order(ByteOrder.LITTLE_ENDIAN));
+        assertThrows(IOException.class, () -> BloomFilter.readFrom(Channels.newChannel(new ByteArrayInputStream(corrupted))));
+    }
+
+    private static byte[] write(BloomFilter<?> filter) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        filter.writeTo(Channels.newChannel(out));
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,121 @@
+package BloomFilter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import BloomFilter.core.BitArray;
+
+class ScalableBloomFilterTest {
+
+    /**
+     * The second slice is sized for 400M values, over 2^31 bits: it must be
+     * created with a wide hash whose probes reach past bit 2^31, instead of
+     * failing inside <code>add</code>. The bits are kept in a sparse array so
+     * that the test allocates next to nothing.
+     */
+    @Test
+    void growsPastTwoToTheThirtyOneBits() throws IOException {
+        AtomicLong highestBit = new AtomicLong();
+        try (ScalableBloomFilter<String> filter = new ScalableBloomFilter<>(1_000, 0.5, 400_000, 0.85, null, null,
+                numBits -> new SparseBitArray(numBits, highestBit))) {
+            int first = 0;
+            while (filter.getSliceCount() == 1 && first < 10_000) {
+                filter.add("first-" + first++);
+            }
+            assertEquals(2, filter.getSliceCount());
+
+            for (int i = 0; i < 10_000; i++) {
+                filter.add(("second-" + i).getBytes(StandardCharsets.UTF_8));
+            }
+            for (int i = 0; i < first; i++) {
+                assertTrue(filter.contains("first-" + i));
+            }
+            for (int i = 0; i < 10_000; i++) {
+                assertTrue(filter.contains(("second-" + i).getBytes(StandardCharsets.UTF_8)));
+            }
+            assertTrue(highestBit.get() > Integer.MAX_VALUE);
+        }
+    }
+
+    /**
+     * Threads adding distinct values while the filter grows never lose a
+     * value, with the default bit arrays.
+     */
+    @Test
+    void addsFromSeveralThreads() throws Exception {
+        try (ScalableBloomFilter<String> filter = new ScalableBloomFilter<>(1_000, 0.01)) {
+            Thread[] threads = new Thread[4];
+            for (int t = 0; t < threads.length; t++) {
+                final int thread = t;
+                threads[t] = new Thread(() -> {
+                    for (int i = 0; i < 20_000; i++) {
+                        filter.add(thread + "-" + i);
+                    }
+                });
+                threads[t].start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+
+            assertTrue(filter.getSliceCount() > 1);
+            for (int t = 0; t < threads.length; t++) {
+                for (int i = 0; i < 20_000; i++) {
+                    assertTrue(filter.contains(t + "-" + i));
+                }
+            }
+        }
+    }
+
+    @Test
+    void rejectsDegenerateFalsePositiveProbability() {
+        assertThrows(IllegalArgumentException.class, () -> new ScalableBloomFilter<String>(1_000, 0));
+        assertThrows(IllegalArgumentException.class, () -> new ScalableBloomFilter<String>(1_000, 1));
+    }
+
+    /**
+     * A bit array of any size that only stores its set bits.
+     */
+    private static final class SparseBitArray implements BitArray {
+
+        private final Set<Long> bits = new HashSet<>();
+
+        private final long numBits;
+
+        private final AtomicLong highestBit;
+
+        SparseBitArray(long numBits, AtomicLong highestBit) {
+            this.numBits = numBits;
+            this.highestBit = highestBit;
+        }
+
+        @Override
+        public boolean getBit(long index) {
+            return this.bits.contains(index);
+        }
+
+        @Override
+        public boolean setBit(long index) {
+            this.highestBit.accumulateAndGet(index, Math::max);
+            return this.bits.add(index);
+        }
+
+        @Override
+        public long bitSize() {
+            return this.numBits;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
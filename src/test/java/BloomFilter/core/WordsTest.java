@@ -0,0 +1,46 @@
+package BloomFilter.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+class WordsTest {
+
+    @Test
+    void bufferOfMultiGigabyteArraysIsFull() {
+        assertEquals(1 << 20, Words.bufferBytes(1 << 28));
+        assertEquals(1 << 20, Words.bufferBytes((1 << 29) + 3));
+        assertEquals(1 << 20, Words.bufferBytes(Integer.MAX_VALUE));
+    }
+
+    @Test
+    void bufferOfSmallArraysFitsTheWords() {
+        assertEquals(Long.BYTES, Words.bufferBytes(0));
+        assertEquals(Long.BYTES, Words.bufferBytes(1));
+        assertEquals(100 * Long.BYTES, Words.bufferBytes(100));
+        assertEquals(1 << 20, Words.bufferBytes(1 << 17));
+    }
+
+    @Test
+    void wordsRoundTripAcrossBuffers() throws IOException {
+        long[] words = new long[(1 << 17) + 5];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = i * 0x9E3779B97F4A7C15L;
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Words.write(words, Channels.newChannel(out));
+        assertEquals(words.length * Long.BYTES, out.size());
+
+        long[] read = new long[words.length];
+        Words.read(read, Channels.newChannel(new ByteArrayInputStream(out.toByteArray())));
+        assertTrue(Arrays.equals(words, read));
+    }
+}
@@ -0,0 +1,26 @@
+package BloomFilter.hash;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+class Murmur3Hash128Test {
+
+    @Test
+    void hashesIntoAnArrayAsTheAllocatingMethods() {
+        Murmur3Hash128 hasher = new Murmur3Hash128(42);
+        byte[] bytes = "the quick brown fox jumps over the lazy dog".getBytes(StandardCharsets.UTF_8);
+        long[] out = new long[2];
+
+        // every length of tail, from a non-zero offset
+        for (int length = 0; length < bytes.length; length++) {
+            hasher.hashMultiple(bytes, 1, length, out);
+            assertArrayEquals(hasher.hashMultiple(bytes, 1, length), out);
+        }
+
+        hasher.hashMultiple(0x0123456789ABCDEFL, out);
+        assertArrayEquals(hasher.hashMultiple(0x0123456789ABCDEFL), out);
+    }
+}
@@ -0,0 +1,60 @@
+package ConcurrentSkipList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+class RangeViewTest {
+
+    private static SkipList<Integer> reversed() {
+        SkipList<Integer> list = new SkipList<>(1000, Comparator.reverseOrder());
+        for (int i = 0; i < 10; i++) {
+            list.add(i);
+        }
+        return list;
+    }
+
+    @Test
+    void limitedViewIsNotSortedInNaturalOrder() {
+        List<Integer> sorted = reversed().keys().skip(1).stream().sorted().collect(Collectors.toList());
+        assertEquals(List.of(0, 1, 2, 3, 4, 5, 6, 7, 8), sorted);
+
+        List<Integer> parallel = reversed().keys().limit(5).parallelStream().sorted().collect(Collectors.toList());
+        assertEquals(List.of(5, 6, 7, 8, 9), parallel);
+    }
+
+    @Test
+    void viewFollowsTheComparator() {
+        assertEquals(List.of(9, 8, 7, 6, 5, 4, 3, 2, 1, 0), reversed().keys().stream().collect(Collectors.toList()));
+        assertEquals(List.of(7, 6, 5), reversed().subSet(7, true, 4, false).stream().collect(Collectors.toList()));
+        assertEquals(List.of(4, 5, 6, 7, 8, 9), reversed().headSet(3, false).descending().stream().collect(Collectors.toList()));
+    }
+
+    @Test
+    void boundsAndPages() {
+        SkipList<Integer> list = new SkipList<>(1 << 16);
+        for (int i = 0; i < 10_000; i += 2) {
+            list.add(i);
+        }
+
+        assertEquals(List.of(10, 12, 14), toList(list.subSet(9, true, 15, false)));
+        assertEquals(List.of(12, 14), toList(list.subSet(10, false, 14, true)));
+        assertEquals(List.of(14, 12), toList(list.subSet(10, false, 14, true).descending()));
+        assertEquals(List.of(), toList(list.subSet(20, true, 10, true)));
+        assertEquals(List.of(120, 122, 124), toList(list.tailSet(20, true).skip(50).limit(3)));
+        assertEquals(List.of(9_898, 9_896), toList(list.headSet(10_000, false).descending().skip(50).limit(2)));
+        assertEquals(5_000, list.keys().parallelStream().count());
+    }
+
+    private static List<Integer> toList(RangeView<Integer> view) {
+        List<Integer> keys = new ArrayList<>();
+        view.forEach(keys::add);
+        assertEquals(keys, view.stream().collect(Collectors.toList()));
+        return keys;
+    }
+}
@@ -0,0 +1,71 @@
+package CuckooFilter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+class ConcurrentCuckooFilterTest {
+
+    /**
+     * Snapshots written while another thread inserts and deletes hold as many fingerprints as
+     * the count they record, and all the items inserted before the write.
+     */
+    @Test
+    void writesConsistentSnapshotsDuringUpdates() throws Exception {
+        ConcurrentCuckooFilter filter = new ConcurrentCuckooFilter(1 << 14, 16);
+        for (int i = 0; i < 4_000; i++) {
+            assertTrue(filter.insert("stable-" + i));
+        }
+
+        AtomicBoolean done = new AtomicBoolean();
+        Thread writer = new Thread(() -> {
+            while (!done.get()) {
+                for (int i = 0; i < 2_000; i++) {
+                    filter.insert("churn-" + i);
+                }
+                for (int i = 0; i < 2_000; i++) {
+                    filter.delete("churn-" + i);
+                }
+            }
+        });
+        writer.start();
+
+        try {
+            for (int snapshot = 0; snapshot < 20; snapshot++) {
+                CuckooFilter reread = CuckooFilter.readFrom(Channels.newChannel(new ByteArrayInputStream(write(filter))));
+                assertEquals(reread.size(), fingerprints(reread.table));
+                for (int i = 0; i < 4_000; i++) {
+                    assertTrue(reread.contains("stable-" + i));
+                }
+            }
+        } finally {
+            done.set(true);
+            writer.join();
+        }
+    }
+
+    private static long fingerprints(FingerprintTable table) {
+        long fingerprints = 0;
+        for (int bucket = 0; bucket < table.numBuckets(); bucket++) {
+            for (int slot = 0; slot < FingerprintTable.SLOTS_PER_BUCKET; slot++) {
+                if (table.get(bucket, slot) != 0) {
+                    fingerprints++;
+                }
+            }
+        }
+        return fingerprints;
+    }
+
+    private static byte[] write(CuckooFilter filter) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        filter.writeTo(Channels.newChannel(out));
+        return out.toByteArray();
+    }
+}
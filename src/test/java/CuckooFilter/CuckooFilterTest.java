@@ -0,0 +1,152 @@
+package CuckooFilter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+class CuckooFilterTest {
+
+    /**
+     * Readers recheck items inserted up front while a writer inserts and deletes other items.
+     * With 12-bit fingerprints a semi-sorted bucket takes 44 bits and often crosses a word, and
+     * every update rewrites its whole bucket: a lookup must never miss a present item.
+     */
+    @Test
+    void semiSortedLookupsNeverMissDuringUpdates() throws InterruptedException {
+        CuckooFilter filter = new CuckooFilter(1 << 12, 12, TableLayout.SEMI_SORTED);
+        final int present = 1500;
+        for (int i = 0; i < present; i++) {
+            assertTrue(filter.insert("present-" + i));
+        }
+
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicLong misses = new AtomicLong();
+        Thread[] readers = new Thread[3];
+        for (int r = 0; r < readers.length; r++) {
+            readers[r] = new Thread(() -> {
+                while (!done.get()) {
+                    for (int i = 0; i < present; i++) {
+                        if (!filter.contains("present-" + i)) {
+                            misses.incrementAndGet();
+                        }
+                    }
+                }
+            });
+            readers[r].start();
+        }
+
+        for (int round = 0; round < 200; round++) {
+            for (int i = 0; i < 1000; i++) {
+                filter.insert("churn-" + i);
+            }
+            for (int i = 0; i < 1000; i++) {
+                filter.delete("churn-" + i);
+            }
+        }
+        done.set(true);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        assertEquals(0, misses.get());
+    }
+
+    /**
+     * A lookup made while a table rewriting its buckets is halfway through an insert, and holds
+     * none of its fingerprints, must wait for the insert instead of missing a present item.
+     */
+    @Test
+    void lookupDuringABucketRewriteSeesThePresentItems() throws Exception {
+        RewritingTable table = new RewritingTable(new PackedTable(16, 16));
+        CuckooFilter filter = new CuckooFilter(table);
+        assertTrue(filter.insert("present"));
+
+        CompletableFuture<Boolean> lookup = new CompletableFuture<>();
+        table.midRewrite = () -> {
+            Thread reader = new Thread(() -> lookup.complete(filter.contains("present")));
+            reader.start();
+            try {
+                lookup.get(200, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                // the reader waits for the lock, as it should
+            } catch (Exception e) {
+                throw new AssertionError(e);
+            }
+        };
+        assertTrue(filter.insert("other"));
+
+        assertTrue(lookup.get(10, TimeUnit.SECONDS));
+    }
+
+    /**
+     * A table whose inserts empty all its slots, then write them back with the new fingerprint,
+     * as a torn read of a rewritten bucket may see them.
+     */
+    private static final class RewritingTable implements FingerprintTable {
+
+        private final FingerprintTable delegate;
+
+        private Runnable midRewrite = () -> {
+        };
+
+        RewritingTable(FingerprintTable delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public boolean insert(int bucket, int fingerprint) {
+            int[] saved = new int[numBuckets() * SLOTS_PER_BUCKET];
+            for (int i = 0; i < saved.length; i++) {
+                saved[i] = delegate.get(i / SLOTS_PER_BUCKET, i % SLOTS_PER_BUCKET);
+                delegate.set(i / SLOTS_PER_BUCKET, i % SLOTS_PER_BUCKET, 0);
+            }
+            midRewrite.run();
+            for (int i = 0; i < saved.length; i++) {
+                delegate.set(i / SLOTS_PER_BUCKET, i % SLOTS_PER_BUCKET, saved[i]);
+            }
+            return delegate.insert(bucket, fingerprint);
+        }
+
+        @Override
+        public boolean rewritesBuckets() {
+            return true;
+        }
+
+        @Override
+        public int numBuckets() {
+            return delegate.numBuckets();
+        }
+
+        @Override
+        public int fingerprintBits() {
+            return delegate.fingerprintBits();
+        }
+
+        @Override
+        public int get(int bucket, int slot) {
+            return delegate.get(bucket, slot);
+        }
+
+        @Override
+        public void set(int bucket, int slot, int fingerprint) {
+            delegate.set(bucket, slot, fingerprint);
+        }
+
+        @Override
+        public long sizeInBytes() {
+            return delegate.sizeInBytes();
+        }
+
+        @Override
+        public TableLayout layout() {
+            return delegate.layout();
+        }
+    }
+}
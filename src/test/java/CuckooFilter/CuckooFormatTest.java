@@ -0,0 +1,63 @@
+package CuckooFilter;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.Test;
+
+class CuckooFormatTest {
+
+    @Test
+    void readsBackEachLayout() throws IOException {
+        for (TableLayout layout : TableLayout.values()) {
+            CuckooFilter filter = new CuckooFilter(1_000, 12, layout);
+            for (int i = 0; i < 500; i++) {
+                filter.insert("item-" + i);
+            }
+
+            CuckooFilter reread = CuckooFilter.readFrom(Channels.newChannel(new ByteArrayInputStream(write(filter))));
+            for (int i = 0; i < 500; i++) {
+                assertTrue(reread.contains("item-" + i));
+            }
+        }
+    }
+
+    /**
+     * Corrupted header fields are reported as {@link IOException}s before the table is
+     * allocated.
+     */
+    @Test
+    void rejectsCorruptedHeaders() throws IOException {
+        byte[] buckets = write(new CuckooFilter(1_000, 12, TableLayout.BUCKETS));
+        byte[] packed = write(new CuckooFilter(1_000, 12, TableLayout.PACKED));
+
+        // number of buckets, out of proportion with the words
+        assertCorrupted(buckets, header -> header.putInt(8, 1 << 30));
+        assertCorrupted(packed, header -> header.putInt(8, 3));
+        // fingerprint size the layout does not support
+        assertCorrupted(packed, header -> header.put(7, (byte) 10));
+        assertCorrupted(buckets, header -> header.put(7, (byte) 33));
+        // stash victim out of the table
+        assertCorrupted(packed, header -> header.putInt(12, 1).putLong(16, 1).putInt(48, 7).putInt(52, 1 << 20));
+    }
+
+    private static void assertCorrupted(byte[] bytes, Consumer<ByteBuffer> corruption) {
+        byte[] corrupted = bytes.clone();
+        corruption.accept(ByteBuffer.wrap(corrupted).order(ByteOrder.LITTLE_ENDIAN));
+        assertThrows(IOException.class, () -> CuckooFilter.readFrom(Channels.newChannel(new ByteArrayInputStream(corrupted))));
+    }
+
+    private static byte[] write(CuckooFilter filter) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        filter.writeTo(Channels.newChannel(out));
+        return out.toByteArray();
+    }
+}
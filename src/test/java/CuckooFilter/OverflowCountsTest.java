@@ -0,0 +1,65 @@
+package CuckooFilter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class OverflowCountsTest {
+
+    @Test
+    void countsUpAndDown() {
+        OverflowCounts counts = new OverflowCounts();
+        long key = 7L << 32 | 0xABCL;
+        assertFalse(counts.decrement(key));
+
+        counts.increment(key);
+        counts.increment(key);
+        assertEquals(2, counts.get(key));
+        assertEquals(1, counts.size());
+
+        assertTrue(counts.decrement(key));
+        assertTrue(counts.decrement(key));
+        assertEquals(0, counts.get(key));
+        assertTrue(counts.isEmpty());
+    }
+
+    /**
+     * Few distinct keys with many updates, so that removals shift back the keys of long runs
+     * and the table grows several times.
+     */
+    @Test
+    void matchesAMapUnderRandomUpdates() {
+        OverflowCounts counts = new OverflowCounts();
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 200_000; i++) {
+            long key = (long) random.nextInt(64) << 32 | (1 + random.nextInt(512));
+            if (random.nextInt(3) == 0) {
+                Integer count = expected.get(key);
+                assertEquals(count != null, counts.decrement(key));
+                if (count != null) {
+                    if (count == 1) {
+                        expected.remove(key);
+                    } else {
+                        expected.put(key, count - 1);
+                    }
+                }
+            } else {
+                counts.increment(key);
+                expected.merge(key, 1, Integer::sum);
+            }
+        }
+
+        assertEquals(expected.size(), counts.size());
+        for (Map.Entry<Long, Integer> entry : expected.entrySet()) {
+            assertEquals((int) entry.getValue(), counts.get(entry.getKey()));
+        }
+    }
+}
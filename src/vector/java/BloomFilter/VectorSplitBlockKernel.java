@@ -0,0 +1,56 @@
+package BloomFilter;
+
+import BloomFilter.core.AtomicBitArray;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * A {@link SplitBlockKernel} using the incubating Vector API: the eight lane
+ * masks are computed in one 256-bit vector and a probe tests all of them with
+ * a single vector compare. This class is only compiled by the
+ * <code>vector</code> Maven profile, and only used when the
+ * <code>jdk.incubator.vector</code> module is present at runtime.
+ */
+final class VectorSplitBlockKernel implements SplitBlockKernel {
+
+    private static final VectorSpecies<Integer> INT_256 = IntVector.SPECIES_256;
+
+    private static final VectorSpecies<Long> LONG_256 = LongVector.SPECIES_256;
+
+    private static final IntVector SALT_VECTOR = IntVector.fromArray(INT_256, SALTS, 0);
+
+    private static final IntVector ONES = IntVector.broadcast(INT_256, 1);
+
+    VectorSplitBlockKernel() {
+        if (IntVector.SPECIES_PREFERRED.vectorBitSize() < INT_256.vectorBitSize()) {
+            throw new UnsupportedOperationException("256-bit vectors are not supported on this platform");
+        }
+    }
+
+    private static LongVector masks(int key) {
+        IntVector shifts = IntVector.broadcast(INT_256, key).mul(SALT_VECTOR).lanewise(VectorOperators.LSHR, 27);
+        return ONES.lanewise(VectorOperators.LSHL, shifts).reinterpretAsLongs();
+    }
+
+    @Override
+    public boolean set(AtomicBitArray bits, int wordIndex, int key) {
+        LongVector masks = masks(key);
+
+        boolean bitsChanged = false;
+        for (int i = 0; i < 4; i++) {
+            bitsChanged |= bits.orWord(wordIndex + i, masks.lane(i));
+        }
+
+        return bitsChanged;
+    }
+
+    @Override
+    public boolean test(long[] words, int wordIndex, int key) {
+        LongVector masks = masks(key);
+        LongVector block = LongVector.fromArray(LONG_256, words, wordIndex);
+
+        return block.and(masks).eq(masks).allTrue();
+    }
+}